@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import uk.ac.gate.cloud.client.PooledHttpTransport;
+import uk.ac.gate.cloud.client.PooledHttpTransport.Protocol;
+import uk.ac.gate.cloud.client.RestClient;
+
+/**
+ * Compares {@link PooledHttpTransport} in HTTP/1.1 and HTTP/2 mode with
+ * many requests in flight at once. Each operation starts
+ * <code>inFlight</code> asynchronous GET requests against a
+ * {@link StubServer} that takes <code>serverDelayMillis</code> to answer
+ * each one, and waits for them all. HTTP/1.1 can only have
+ * <code>maxConnectionsPerHost</code> requests on the wire at a time,
+ * whereas HTTP/2 multiplexes them all over one connection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Http2MultiplexingBenchmark {
+
+  private static final TypeReference<JsonNode> JSON =
+          new TypeReference<JsonNode>() {
+          };
+
+  @Param({"HTTP_1_1", "HTTP_2"})
+  public Protocol protocol;
+
+  @Param({"64", "256"})
+  public int inFlight;
+
+  @Param({"20"})
+  public long serverDelayMillis;
+
+  @Param({"20"})
+  public int maxConnectionsPerHost;
+
+  private StubServer server;
+
+  private PooledHttpTransport transport;
+
+  private RestClient client;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    server = new StubServer(serverDelayMillis, protocol == Protocol.HTTP_2);
+    transport =
+            new PooledHttpTransport(protocol, maxConnectionsPerHost,
+                    PooledHttpTransport.DEFAULT_KEEP_ALIVE_MILLIS,
+                    PooledHttpTransport.DEFAULT_MAX_IDLE_MILLIS);
+    client = new RestClient(server.getBaseUrl(), "key", "password");
+    client.setTransport(transport);
+    // pay for the HTTP/2 probe and the first connections up front
+    client.get("ping", JSON);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    transport.close();
+    server.close();
+  }
+
+  @Benchmark
+  public List<JsonNode> concurrentCalls() {
+    List<CompletableFuture<JsonNode>> calls = new ArrayList<>(inFlight);
+    for(int i = 0; i < inFlight; i++) {
+      calls.add(client.getAsync("doc/" + i, JSON));
+    }
+    List<JsonNode> results = new ArrayList<>(inFlight);
+    for(CompletableFuture<JsonNode> call : calls) {
+      results.add(call.join());
+    }
+    return results;
+  }
+}
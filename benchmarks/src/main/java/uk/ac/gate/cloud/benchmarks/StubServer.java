@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.benchmarks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.AsyncEntityProducers;
+import org.apache.hc.core5.http.nio.entity.DiscardingEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+
+/**
+ * Embedded HTTP server for the benchmarks, speaking either HTTP/1.1 or
+ * cleartext HTTP/2 (h2c with prior knowledge). Every request gets a
+ * small JSON response after a fixed delay, standing in for the time the
+ * real service spends processing a document. The
+ * delay is applied without holding a server thread, so the server can
+ * have any number of requests in progress at once.
+ */
+public class StubServer implements AutoCloseable {
+
+  private static final String RESPONSE = "{\"status\":\"ok\"}";
+
+  private final HttpAsyncServer server;
+
+  private final ScheduledExecutorService timer =
+          Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stub-server-timer");
+            t.setDaemon(true);
+            return t;
+          });
+
+  private final URL baseUrl;
+
+  /**
+   * Start a server on an ephemeral port of the loopback interface.
+   * 
+   * @param delayMillis time to wait before sending each response
+   * @param http2 should the server speak HTTP/2 rather than HTTP/1.1?
+   */
+  public StubServer(long delayMillis, boolean http2) throws IOException {
+    server =
+            H2ServerBootstrap.bootstrap()
+                    .setVersionPolicy(http2
+                            ? HttpVersionPolicy.FORCE_HTTP_2
+                            : HttpVersionPolicy.FORCE_HTTP_1)
+                    .register("*", new DelayedHandler(delayMillis))
+                    .create();
+    server.start();
+    try {
+      ListenerEndpoint endpoint =
+              server.listen(new InetSocketAddress("127.0.0.1", 0),
+                      URIScheme.HTTP).get();
+      int port = ((InetSocketAddress)endpoint.getAddress()).getPort();
+      baseUrl = new URL("http://127.0.0.1:" + port + "/");
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      close();
+      throw new IOException("Interrupted starting stub server", e);
+    } catch(ExecutionException e) {
+      close();
+      throw new IOException("Could not start stub server", e.getCause());
+    }
+  }
+
+  /**
+   * The URL of the server's root.
+   */
+  public URL getBaseUrl() {
+    return baseUrl;
+  }
+
+  @Override
+  public void close() {
+    server.close(CloseMode.IMMEDIATE);
+    timer.shutdownNow();
+  }
+
+  private class DelayedHandler
+                              implements
+                              AsyncServerRequestHandler<Message<HttpRequest, Void>> {
+
+    private final long delayMillis;
+
+    DelayedHandler(long delayMillis) {
+      this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public AsyncRequestConsumer<Message<HttpRequest, Void>> prepare(
+            HttpRequest request, EntityDetails entityDetails,
+            HttpContext context) {
+      return new BasicRequestConsumer<>(entityDetails == null
+              ? null
+              : new DiscardingEntityConsumer<>());
+    }
+
+    @Override
+    public void handle(Message<HttpRequest, Void> request,
+            ResponseTrigger responseTrigger, HttpContext context) {
+      timer.schedule(() -> {
+        try {
+          responseTrigger.submitResponse(AsyncResponseBuilder
+                  .create(HttpStatus.SC_OK)
+                  .setEntity(AsyncEntityProducers.create(RESPONSE,
+                          ContentType.APPLICATION_JSON)).build(), context);
+        } catch(HttpException | IOException e) {
+          // the client has gone away
+        }
+      }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+}
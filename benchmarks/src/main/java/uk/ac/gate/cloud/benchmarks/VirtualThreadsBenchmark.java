@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import uk.ac.gate.cloud.client.RestClient;
+import uk.ac.gate.cloud.client.VirtualThreads;
+
+/**
+ * Compares running the client's asynchronous requests on platform
+ * threads and on virtual threads. Each operation starts
+ * <code>inFlight</code> asynchronous GET requests through the default
+ * transport, which blocks a thread for the whole of every request,
+ * against an HTTP/1.1 {@link StubServer} that takes
+ * <code>serverDelayMillis</code> to answer each one, and waits for them
+ * all. The benchmark JVM is started with a keep-alive cache big enough
+ * for every connection, so sockets are reused between operations.
+ * <ul>
+ * <li><code>PLATFORM_POOL</code> uses a fixed pool of
+ * <code>poolSize</code> platform threads, so only that many requests
+ * can be on the wire at a time.</li>
+ * <li><code>PLATFORM_PER_TASK</code> uses a cached pool of platform
+ * threads, as the client does by default before Java 21.</li>
+ * <li><code>VIRTUAL</code> uses a new virtual thread per task, as the
+ * client does by default on Java 21 and later. This mode needs a Java 21
+ * JVM.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dhttp.maxConnections=2048")
+@State(Scope.Benchmark)
+public class VirtualThreadsBenchmark {
+
+  public enum Threads {
+    PLATFORM_POOL, PLATFORM_PER_TASK, VIRTUAL
+  }
+
+  private static final TypeReference<JsonNode> JSON =
+          new TypeReference<JsonNode>() {
+          };
+
+  @Param({"PLATFORM_POOL", "PLATFORM_PER_TASK", "VIRTUAL"})
+  public Threads threads;
+
+  @Param({"256", "1024"})
+  public int inFlight;
+
+  @Param({"20"})
+  public long serverDelayMillis;
+
+  @Param({"64"})
+  public int poolSize;
+
+  private StubServer server;
+
+  private ExecutorService executor;
+
+  private RestClient client;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    switch(threads) {
+      case PLATFORM_POOL:
+        executor = Executors.newFixedThreadPool(poolSize);
+        break;
+      case PLATFORM_PER_TASK:
+        executor = Executors.newCachedThreadPool();
+        break;
+      default:
+        executor = VirtualThreads.newExecutor("benchmark-");
+        if(executor == null) {
+          throw new IllegalStateException(
+                  "Virtual threads need Java 21 or later");
+        }
+    }
+    server = new StubServer(serverDelayMillis, false);
+    client = new RestClient(server.getBaseUrl(), "key", "password");
+    client.setAsyncExecutor(executor);
+    client.get("ping", JSON);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    executor.shutdownNow();
+    server.close();
+  }
+
+  @Benchmark
+  public List<JsonNode> concurrentCalls() {
+    List<CompletableFuture<JsonNode>> calls = new ArrayList<>(inFlight);
+    for(int i = 0; i < inFlight; i++) {
+      calls.add(client.getAsync("doc/" + i, JSON));
+    }
+    List<JsonNode> results = new ArrayList<>(inFlight);
+    for(CompletableFuture<JsonNode> call : calls) {
+      results.add(call.join());
+    }
+    return results;
+  }
+}
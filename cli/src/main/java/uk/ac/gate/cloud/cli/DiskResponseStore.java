@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.cli;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import uk.ac.gate.cloud.client.ResponseStore;
+import uk.ac.gate.cloud.client.StoredResponse;
+
+/**
+ * {@link ResponseStore} that keeps responses as files in a directory,
+ * so they can be shared between separate invocations of the command
+ * line tool. Each response is stored in its own file, named by a hash
+ * of the URL and the API key (so different keys never see each other's
+ * responses). Once the files exceed the maximum total size the least
+ * recently used are deleted. Files are written to a temporary name and
+ * then renamed, so concurrent invocations never see a partial entry.
+ */
+public class DiskResponseStore implements ResponseStore {
+
+  private static final int MAGIC = 0x47435232; // "GCR2"
+
+  private static final String SUFFIX = ".response";
+
+  private static final String TEMP_PREFIX = "store";
+
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  /**
+   * Age after which a temporary file is assumed to have been left behind
+   * by an invocation that was killed part way through writing it.
+   */
+  private static final long STALE_TEMP_MILLIS = 60 * 60 * 1000L;
+
+  private final File directory;
+
+  private final String partition;
+
+  private final long maxAgeMillis;
+
+  private final long maxSizeBytes;
+
+  /**
+   * @param directory the directory in which to store responses, created
+   *          if necessary
+   * @param partition string identifying the credentials in use, such
+   *          as the API key ID, which is hashed into the file names
+   * @param maxAgeMillis time for which a stored response can be used
+   *          without revalidating it with the server
+   * @param maxSizeBytes maximum total size of the stored responses
+   */
+  public DiskResponseStore(File directory, String partition,
+          long maxAgeMillis, long maxSizeBytes) {
+    this.directory = directory;
+    this.partition = partition;
+    this.maxAgeMillis = maxAgeMillis;
+    this.maxSizeBytes = maxSizeBytes;
+  }
+
+  @Override
+  public long getMaxAgeMillis() {
+    return maxAgeMillis;
+  }
+
+  @Override
+  public StoredResponse load(String url) throws IOException {
+    File file = fileFor(url);
+    DataInputStream in;
+    try {
+      in = new DataInputStream(new BufferedInputStream(
+              new FileInputStream(file)));
+    } catch(FileNotFoundException e) {
+      return null;
+    }
+    try {
+      if(in.readInt() != MAGIC || !url.equals(readString(in))) {
+        return null;
+      }
+      String etag = readOptional(in);
+      String lastModified = readOptional(in);
+      long storedAt = in.readLong();
+      byte[] body = new byte[in.readInt()];
+      in.readFully(body);
+      // record the use for least-recently-used eviction
+      file.setLastModified(System.currentTimeMillis());
+      return new StoredResponse(body, etag, lastModified, storedAt);
+    } finally {
+      in.close();
+    }
+  }
+
+  @Override
+  public void store(String url, StoredResponse response) throws IOException {
+    if(!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Could not create cache directory " + directory);
+    }
+    File temp = File.createTempFile(TEMP_PREFIX, TEMP_SUFFIX, directory);
+    try {
+      DataOutputStream out =
+              new DataOutputStream(new BufferedOutputStream(
+                      new FileOutputStream(temp)));
+      try {
+        out.writeInt(MAGIC);
+        writeString(out, url);
+        writeOptional(out, response.getETag());
+        writeOptional(out, response.getLastModified());
+        out.writeLong(response.getStoredAt());
+        out.writeInt(response.getBody().length);
+        out.write(response.getBody());
+      } finally {
+        out.close();
+      }
+      try {
+        Files.move(temp.toPath(), fileFor(url).toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+      } catch(AtomicMoveNotSupportedException e) {
+        Files.move(temp.toPath(), fileFor(url).toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      temp.delete();
+    }
+    trim();
+  }
+
+  /**
+   * Delete any stale temporary files, then the least recently used
+   * responses until the total size is within the limit.
+   */
+  private void trim() {
+    long staleBefore = System.currentTimeMillis() - STALE_TEMP_MILLIS;
+    File[] temps = directory.listFiles((dir, name) ->
+            name.startsWith(TEMP_PREFIX) && name.endsWith(TEMP_SUFFIX));
+    if(temps != null) {
+      for(File f : temps) {
+        if(f.lastModified() < staleBefore) {
+          f.delete();
+        }
+      }
+    }
+    File[] files = listFiles();
+    long total = 0;
+    for(File f : files) {
+      total += f.length();
+    }
+    if(total <= maxSizeBytes) {
+      return;
+    }
+    Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+    for(int i = 0; i < files.length && total > maxSizeBytes; i++) {
+      long size = files[i].length();
+      if(files[i].delete()) {
+        total -= size;
+      }
+    }
+  }
+
+  /**
+   * Delete all stored responses.
+   */
+  public void clear() {
+    for(File f : listFiles()) {
+      f.delete();
+    }
+  }
+
+  private File[] listFiles() {
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+    return (files == null) ? new File[0] : files;
+  }
+
+  private File fileFor(String url) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(partition.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte)0);
+      byte[] hash = digest.digest(url.getBytes(StandardCharsets.UTF_8));
+      StringBuilder name = new StringBuilder();
+      for(int i = 0; i < 16; i++) {
+        name.append(Character.forDigit((hash[i] >> 4) & 0xf, 16));
+        name.append(Character.forDigit(hash[i] & 0xf, 16));
+      }
+      return new File(directory, name.append(SUFFIX).toString());
+    } catch(NoSuchAlgorithmException e) {
+      // shouldn't happen
+      throw new RuntimeException("JVM claims not to support SHA-256...", e);
+    }
+  }
+
+  /**
+   * Read a string written by {@link #writeString}.
+   */
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Write a string as length-prefixed UTF-8, which unlike
+   * <code>writeUTF</code> has no 64 KiB limit.
+   */
+  private static void writeString(DataOutputStream out, String value)
+          throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readOptional(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static void writeOptional(DataOutputStream out, String value)
+          throws IOException {
+    out.writeBoolean(value != null);
+    if(value != null) {
+      out.writeUTF(value);
+    }
+  }
+}
@@ -28,6 +28,7 @@ import java.util.*;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
+import uk.ac.gate.cloud.client.BandwidthLimiter;
 import uk.ac.gate.cloud.client.RestClient;
 import uk.ac.gate.cloud.client.RestClientException;
 
@@ -38,8 +39,31 @@ public class Main {
    */
   public static void main(String... args) throws Exception {
     boolean jsonOutput = false;
-    if(args.length > 0 && "--json".equals(args[0])) {
-      jsonOutput = true;
+    boolean useCache = true;
+    long maxUploadRate = 0;
+    long maxDownloadRate = 0;
+    while(args.length > 0 && args[0].startsWith("--")) {
+      if("--json".equals(args[0])) {
+        jsonOutput = true;
+      } else if("--no-cache".equals(args[0])) {
+        useCache = false;
+      } else if("--max-upload-rate".equals(args[0])
+              || "--max-download-rate".equals(args[0])) {
+        long rate = (args.length > 1) ? parseRate(args[1]) : -1;
+        if(rate <= 0) {
+          System.err.println(args[0]
+                  + " option requires a rate in bytes per second, e.g. 500k or 2m");
+          System.exit(1);
+        }
+        if("--max-upload-rate".equals(args[0])) {
+          maxUploadRate = rate;
+        } else {
+          maxDownloadRate = rate;
+        }
+        args = Arrays.copyOfRange(args, 1, args.length);
+      } else {
+        break;
+      }
       args = Arrays.copyOfRange(args, 1, args.length);
     }
 
@@ -80,10 +104,19 @@ public class Main {
       // either no command, just "help" with no arg, or "help cmd" for invalid cmd
       System.err.println("Usage:");
       System.err.println();
-      System.err.println("    java -jar gate-cloud-cli.jar [--json] <command> [options]");
+      System.err.println("    java -jar gate-cloud-cli.jar [--json] [--no-cache]");
+      System.err.println("        [--max-upload-rate <rate>] [--max-download-rate <rate>]");
+      System.err.println("        <command> [options]");
       System.err.println();
       System.err.println("  --json - produce output as JSON instead of the default human-readable");
       System.err.println("           tabular format");
+      System.err.println("  --no-cache - always fetch fresh data from the server rather than");
+      System.err.println("               reusing responses cached by earlier commands");
+      System.err.println("  --max-upload-rate <rate> - limit the speed of file uploads to <rate>");
+      System.err.println("               bytes per second, with an optional k or m suffix for");
+      System.err.println("               KiB or MiB (e.g. 500k)");
+      System.err.println("  --max-download-rate <rate> - limit the speed of file downloads in");
+      System.err.println("               the same way");
       System.err.println();
       System.err.println("Valid commands are:");
       List<String> validCommands = new ArrayList<String>();
@@ -108,14 +141,32 @@ public class Main {
     }
 
     String[] cmdArgs = Arrays.copyOfRange(args, 1, args.length);
+    DiskResponseStore cache = null;
     try {
-      RestClient client = createClient();
+      Properties config = loadConfig();
+      RestClient client = createClient(config);
+      if(maxUploadRate > 0) {
+        client.setUploadBandwidthLimiter(new BandwidthLimiter(maxUploadRate));
+      }
+      if(maxDownloadRate > 0) {
+        client.setDownloadBandwidthLimiter(new BandwidthLimiter(
+                maxDownloadRate));
+      }
+      cache = createCache(config);
+      if(cache != null && useCache && cmd instanceof ReadOnlyCommand) {
+        client.setResponseStore(cache);
+      }
       cmd.run(client, jsonOutput, cmdArgs);
     } catch(RestClientException e) {
       String response =
               (e.getResponse() == null) ? "(no detail available)" : e
                       .getResponse().at("/message").asText();
       System.err.println(e.getMessage() + ": " + response);
+    } finally {
+      if(cache != null && !(cmd instanceof ReadOnlyCommand)) {
+        // this command may have changed things on the server
+        cache.clear();
+      }
     }
   }
 
@@ -170,7 +221,7 @@ public class Main {
     }
   }
 
-  private static RestClient createClient() throws Exception {
+  private static Properties loadConfig() {
     File configFile = findConfigFile();
 
     Properties config = new Properties();
@@ -186,7 +237,37 @@ public class Main {
         // ignore for the moment
       }
     }
+    return config;
+  }
 
+  /**
+   * Parse a transfer rate in bytes per second, with an optional
+   * <code>k</code>, <code>m</code> or <code>g</code> suffix for KiB,
+   * MiB or GiB per second.
+   * 
+   * @return the rate, or -1 if it is not valid
+   */
+  private static long parseRate(String rate) {
+    String number = rate.trim().toLowerCase(Locale.ENGLISH);
+    long multiplier = 1;
+    if(number.endsWith("k")) {
+      multiplier = 1024L;
+    } else if(number.endsWith("m")) {
+      multiplier = 1024L * 1024L;
+    } else if(number.endsWith("g")) {
+      multiplier = 1024L * 1024L * 1024L;
+    }
+    if(multiplier > 1) {
+      number = number.substring(0, number.length() - 1);
+    }
+    try {
+      return (long)(Double.parseDouble(number) * multiplier);
+    } catch(NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static RestClient createClient(Properties config) throws Exception {
     String keyId =
             System.getProperty("gate.cloud.apiKey.id",
                     config.getProperty("keyId"));
@@ -208,6 +289,41 @@ public class Main {
     return new RestClient(new URL(baseUrl), keyId, password);
   }
 
+  /**
+   * Create the on-disk response cache, in a directory alongside the
+   * configuration file. The maximum age (in seconds) and size (in MiB)
+   * of the cache can be set in the configuration file as
+   * <code>cacheMaxAge</code> and <code>cacheMaxSize</code>, and a max
+   * age of 0 disables the cache.
+   */
+  private static DiskResponseStore createCache(Properties config) {
+    long maxAge =
+            Long.parseLong(System.getProperty("gate.cloud.cache.maxAge",
+                    config.getProperty("cacheMaxAge", "30")));
+    long maxSize =
+            Long.parseLong(System.getProperty("gate.cloud.cache.maxSize",
+                    config.getProperty("cacheMaxSize", "50")));
+    if(maxAge <= 0) {
+      return null;
+    }
+    File configFile = findConfigFile();
+    String name = configFile.getName();
+    if(name.endsWith(".conf")) {
+      name = name.substring(0, name.length() - 5);
+    }
+    File cacheDir =
+            new File(configFile.getAbsoluteFile().getParentFile(), name
+                    + "-cache");
+    String partition =
+            System.getProperty("gate.cloud.baseUrl",
+                    config.getProperty("baseUrl", ""))
+                    + " "
+                    + System.getProperty("gate.cloud.apiKey.id",
+                            config.getProperty("keyId"));
+    return new DiskResponseStore(cacheDir, partition, maxAge * 1000L,
+            maxSize * 1024L * 1024L);
+  }
+
   private static void configFileUsage(File configFile) {
     System.err
             .println("Please provide your API key and password by creating a configuration file:");
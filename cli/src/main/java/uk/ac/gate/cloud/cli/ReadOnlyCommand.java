@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.cli;
+
+/**
+ * Marker for commands that do not change anything on the server. Only
+ * these commands are served from the on-disk response cache, and any
+ * other command clears the cache once it has run, so that later
+ * commands see its effects.
+ */
+public interface ReadOnlyCommand extends Command {
+}
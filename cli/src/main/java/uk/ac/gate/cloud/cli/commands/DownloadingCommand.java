@@ -16,12 +16,10 @@
  */
 package uk.ac.gate.cloud.cli.commands;
 
-import org.apache.commons.io.FileUtils;
 import uk.ac.gate.cloud.client.RestClientException;
 import uk.ac.gate.cloud.common.Downloadable;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -61,9 +59,11 @@ public abstract class DownloadingCommand extends AbstractCommand {
         System.out.println(originalName + " -> " + f.getPath());
       }
       try {
-        FileUtils.copyURLToFile(ent.urlToDownload(), f);
-      } catch(IOException e) {
-        throw new RestClientException("Error downloading " + ent.url);
+        // uses the client's connect and read timeouts, so a stalled
+        // download fails rather than hanging
+        ent.download(f);
+      } catch(RestClientException e) {
+        throw new RestClientException("Error downloading " + ent.url, e);
       }
       i++;
     }
@@ -16,13 +16,14 @@
  */
 package uk.ac.gate.cloud.cli.commands.data;
 
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.AbstractCommand;
 import uk.ac.gate.cloud.client.RestClient;
 import uk.ac.gate.cloud.common.Downloadable;
 import uk.ac.gate.cloud.data.DataBundle;
 import uk.ac.gate.cloud.data.DataManager;
 
-public class BundleDetails extends AbstractCommand {
+public class BundleDetails extends AbstractCommand implements ReadOnlyCommand {
 
   public void run(RestClient client, boolean jsonOutput, String... args) throws Exception {
     if(args.length < 1) {
@@ -19,12 +19,14 @@ package uk.ac.gate.cloud.cli.commands.data;
 import java.io.File;
 import java.util.*;
 
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.DownloadingCommand;
 import uk.ac.gate.cloud.client.RestClient;
 import uk.ac.gate.cloud.data.DataBundle;
 import uk.ac.gate.cloud.data.DataManager;
 
-public class DownloadBundle extends DownloadingCommand {
+public class DownloadBundle extends DownloadingCommand
+        implements ReadOnlyCommand {
 
   public void run(RestClient client, boolean jsonOutput, String... args) throws Exception {
     if(args.length < 1) {
@@ -20,13 +20,14 @@ import java.util.Collections;
 import java.util.Formatter;
 import java.util.List;
 
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.AbstractCommand;
 import uk.ac.gate.cloud.client.RestClient;
 
 import uk.ac.gate.cloud.data.DataBundleSummary;
 import uk.ac.gate.cloud.data.DataManager;
 
-public class ListBundles extends AbstractCommand {
+public class ListBundles extends AbstractCommand implements ReadOnlyCommand {
 
   public void run(RestClient client, boolean jsonOutput, String... args) throws Exception {
     DataManager mgr = new DataManager(client);
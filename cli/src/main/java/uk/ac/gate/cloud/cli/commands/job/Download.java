@@ -21,11 +21,12 @@ import java.net.URL;
 import java.util.Collections;
 import java.util.List;
 
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.DownloadingCommand;
 import uk.ac.gate.cloud.client.RestClient;
 import uk.ac.gate.cloud.common.Downloadable;
 
-public class Download extends DownloadingCommand {
+public class Download extends DownloadingCommand implements ReadOnlyCommand {
 
   public void run(RestClient client, boolean jsonOutput, String... args) throws Exception {
     if(args.length < 1) {
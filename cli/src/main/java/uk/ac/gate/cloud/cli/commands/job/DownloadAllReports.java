@@ -19,12 +19,14 @@ package uk.ac.gate.cloud.cli.commands.job;
 import java.io.File;
 import java.util.List;
 
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.DownloadingCommand;
 import uk.ac.gate.cloud.client.RestClient;
 import uk.ac.gate.cloud.job.Job;
 import uk.ac.gate.cloud.job.JobManager;
 
-public class DownloadAllReports extends DownloadingCommand {
+public class DownloadAllReports extends DownloadingCommand
+        implements ReadOnlyCommand {
 
   @Override
   public void run(RestClient client, boolean jsonOutput, String... args) throws Exception {
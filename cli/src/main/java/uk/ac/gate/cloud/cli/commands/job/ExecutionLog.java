@@ -25,6 +25,7 @@ import java.util.List;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.AbstractCommand;
 import uk.ac.gate.cloud.client.RestClient;
 
@@ -32,7 +33,7 @@ import uk.ac.gate.cloud.job.Job;
 import uk.ac.gate.cloud.job.JobManager;
 import uk.ac.gate.cloud.job.LogMessage;
 
-public class ExecutionLog extends AbstractCommand {
+public class ExecutionLog extends AbstractCommand implements ReadOnlyCommand {
   
   private DateFormat dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.LONG);
 
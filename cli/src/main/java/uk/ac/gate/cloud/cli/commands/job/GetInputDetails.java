@@ -16,13 +16,15 @@
  */
 package uk.ac.gate.cloud.cli.commands.job;
 
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.AbstractCommand;
 import uk.ac.gate.cloud.client.RestClient;
 
 import uk.ac.gate.cloud.job.InputDetails;
 import uk.ac.gate.cloud.job.JobManager;
 
-public class GetInputDetails extends AbstractCommand {
+public class GetInputDetails extends AbstractCommand
+        implements ReadOnlyCommand {
 
   public void run(RestClient client, boolean jsonOutput, String... args) throws Exception {
     if(args.length < 1) {
@@ -16,6 +16,7 @@
  */
 package uk.ac.gate.cloud.cli.commands.job;
 
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.AbstractCommand;
 import uk.ac.gate.cloud.client.RestClient;
 
@@ -23,7 +24,7 @@ import uk.ac.gate.cloud.job.Job;
 import uk.ac.gate.cloud.job.JobManager;
 import uk.ac.gate.cloud.job.JobState;
 
-public class JobDetails extends AbstractCommand {
+public class JobDetails extends AbstractCommand implements ReadOnlyCommand {
 
   public void run(RestClient client, boolean jsonOutput, String... args) throws Exception {
     if(args.length < 1) {
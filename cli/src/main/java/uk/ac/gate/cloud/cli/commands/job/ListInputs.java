@@ -19,6 +19,7 @@ package uk.ac.gate.cloud.cli.commands.job;
 import java.util.Collections;
 import java.util.List;
 
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.AbstractCommand;
 import uk.ac.gate.cloud.client.RestClient;
 
@@ -26,7 +27,7 @@ import uk.ac.gate.cloud.job.InputSummary;
 import uk.ac.gate.cloud.job.Job;
 import uk.ac.gate.cloud.job.JobManager;
 
-public class ListInputs extends AbstractCommand {
+public class ListInputs extends AbstractCommand implements ReadOnlyCommand {
 
   public void run(RestClient client, boolean jsonOutput, String... args) throws Exception {
     if(args.length < 1) {
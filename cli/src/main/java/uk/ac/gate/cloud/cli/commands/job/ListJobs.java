@@ -18,6 +18,7 @@ package uk.ac.gate.cloud.cli.commands.job;
 
 import java.util.*;
 
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.AbstractCommand;
 import uk.ac.gate.cloud.client.RestClient;
 
@@ -26,7 +27,7 @@ import uk.ac.gate.cloud.job.JobManager;
 import uk.ac.gate.cloud.job.JobState;
 import uk.ac.gate.cloud.job.JobSummary;
 
-public class ListJobs extends AbstractCommand {
+public class ListJobs extends AbstractCommand implements ReadOnlyCommand {
 
   public void run(RestClient client, boolean jsonOutput, String... args) throws Exception {
     JobManager mgr = new JobManager(client);
@@ -41,24 +42,20 @@ public class ListJobs extends AbstractCommand {
       }
     }
     List<JobSummary> jobs = mgr.listJobs(states);
+    // fetch the details of all the jobs concurrently
+    List<Job> jobDetails =
+            (jobs == null) ? new ArrayList<Job>() : mgr.getJobDetails(jobs);
     if(jsonOutput) {
-      List<Job> jobDetails = new ArrayList<>();
-      if(jobs != null) {
-        for(JobSummary summ : jobs) {
-          jobDetails.add(summ.details());
-        }
-      }
       mapper.writeValue(System.out, jobDetails);
     } else {
-      if(jobs == null || jobs.isEmpty()) {
+      if(jobDetails.isEmpty()) {
         System.out.println("No jobs found");
       } else {
         // ID (6 cols), Name (32 cols), price (rest)
         System.out.println("    ID  Name                                      State");
         System.out.println("----------------------------------------------------------");
         Formatter f = new Formatter(System.out);
-        for(JobSummary summ : jobs) {
-          Job j = summ.details();
+        for(Job j : jobDetails) {
           String name = j.name;
           if(name.length() > 40) {
             name = name.substring(0, 37) + "...";
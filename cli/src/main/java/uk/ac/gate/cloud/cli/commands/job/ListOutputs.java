@@ -19,6 +19,7 @@ package uk.ac.gate.cloud.cli.commands.job;
 import java.util.Collections;
 import java.util.List;
 
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.AbstractCommand;
 import uk.ac.gate.cloud.client.RestClient;
 
@@ -27,7 +28,7 @@ import uk.ac.gate.cloud.job.JobManager;
 import uk.ac.gate.cloud.job.Output;
 import uk.ac.gate.cloud.job.OutputType;
 
-public class ListOutputs extends AbstractCommand {
+public class ListOutputs extends AbstractCommand implements ReadOnlyCommand {
 
   public void run(RestClient client, boolean jsonOutput, String... args) throws Exception {
     if(args.length < 1) {
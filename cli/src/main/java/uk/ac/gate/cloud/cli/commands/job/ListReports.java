@@ -19,13 +19,14 @@ package uk.ac.gate.cloud.cli.commands.job;
 import java.util.Collections;
 import java.util.List;
 
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.AbstractCommand;
 import uk.ac.gate.cloud.client.RestClient;
 import uk.ac.gate.cloud.common.Downloadable;
 import uk.ac.gate.cloud.job.Job;
 import uk.ac.gate.cloud.job.JobManager;
 
-public class ListReports extends AbstractCommand {
+public class ListReports extends AbstractCommand implements ReadOnlyCommand {
 
   public void run(RestClient client, boolean jsonOutput, String... args) throws Exception {
     if(args.length < 1) {
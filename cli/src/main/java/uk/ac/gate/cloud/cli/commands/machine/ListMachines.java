@@ -16,6 +16,7 @@
  */
 package uk.ac.gate.cloud.cli.commands.machine;
 
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.AbstractCommand;
 import uk.ac.gate.cloud.client.RestClient;
 import uk.ac.gate.cloud.machine.Machine;
@@ -27,7 +28,7 @@ import java.util.ArrayList;
 import java.util.Formatter;
 import java.util.List;
 
-public class ListMachines extends AbstractCommand {
+public class ListMachines extends AbstractCommand implements ReadOnlyCommand {
 
   public void run(RestClient client, boolean jsonOutput, String... args) throws Exception {
     MachineManager mgr = new MachineManager(client);
@@ -41,24 +42,22 @@ public class ListMachines extends AbstractCommand {
       }
     }
     List<MachineSummary> machines = mgr.listMachines(states);
+    // fetch the details of all the machines concurrently
+    List<Machine> machineDetails =
+            (machines == null)
+                    ? new ArrayList<Machine>()
+                    : mgr.getMachineDetails(machines);
     if(jsonOutput) {
-      List<Machine> machineDetails = new ArrayList<>();
-      if(machines != null) {
-        for(MachineSummary summ : machines) {
-          machineDetails.add(summ.details());
-        }
-      }
       mapper.writeValue(System.out, machineDetails);
     } else {
-      if(machines == null || machines.isEmpty()) {
+      if(machineDetails.isEmpty()) {
         System.out.println("No machines found");
       } else {
         // ID (6 cols), Name (32 cols), price (rest)
         System.out.println("    ID  Name                                      State");
         System.out.println("----------------------------------------------------------");
         Formatter f = new Formatter(System.out);
-        for(MachineSummary summ : machines) {
-          Machine m = summ.details();
+        for(Machine m : machineDetails) {
           String name = m.name;
           if(name.length() > 40) {
             name = name.substring(0, 37) + "...";
@@ -16,6 +16,7 @@
  */
 package uk.ac.gate.cloud.cli.commands.machine;
 
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.AbstractCommand;
 import uk.ac.gate.cloud.client.RestClient;
 import uk.ac.gate.cloud.common.Prices;
@@ -23,7 +24,7 @@ import uk.ac.gate.cloud.machine.Machine;
 import uk.ac.gate.cloud.machine.MachineManager;
 import uk.ac.gate.cloud.machine.MachineState;
 
-public class MachineDetails extends AbstractCommand {
+public class MachineDetails extends AbstractCommand implements ReadOnlyCommand {
 
   public void run(RestClient client, boolean jsonOutput, String... args) throws Exception {
     if(args.length < 1) {
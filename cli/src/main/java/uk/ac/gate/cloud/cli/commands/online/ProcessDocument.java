@@ -17,22 +17,24 @@
 package uk.ac.gate.cloud.cli.commands.online;
 
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.channels.Channels;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
-import java.util.Map;
+import java.nio.file.StandardCopyOption;
 
 import org.apache.commons.io.IOUtils;
 
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.AbstractCommand;
+import uk.ac.gate.cloud.client.Response;
 import uk.ac.gate.cloud.client.RestClient;
 import uk.ac.gate.cloud.online.ApiEndpoint;
 import uk.ac.gate.cloud.online.OnlineApiManager;
 import uk.ac.gate.cloud.online.ResponseType;
 
-public class ProcessDocument extends AbstractCommand {
+public class ProcessDocument extends AbstractCommand
+        implements ReadOnlyCommand {
 
   @Override
   public void run(RestClient client, boolean jsonOutput, String... args) throws Exception {
@@ -79,35 +81,50 @@ public class ProcessDocument extends AbstractCommand {
       }
     }
     
-    try(InputStream result = endpoint.call(content, mimeType, responseType, annotationSelectors, includeText)) {
-      try(OutputStream out = (outputFile == null ? System.out : Files.newOutputStream(outputFile))) {
-        IOUtils.copy(result, out);
+    Response<InputStream> response = null;
+    if(showQuotaInfo) {
+      // need the response headers as well as the body
+      response = endpoint.exchange(content, mimeType, responseType,
+              annotationSelectors, includeText, null);
+      try(InputStream in = response.getBody()) {
+        if(in != null) {
+          if(outputFile == null) {
+            IOUtils.copy(in, System.out);
+            System.out.flush();
+          } else {
+            Files.copy(in, outputFile, StandardCopyOption.REPLACE_EXISTING);
+          }
+        }
       }
+    } else if(outputFile == null) {
+      endpoint.callToChannel(content, mimeType, responseType, annotationSelectors, includeText, Channels.newChannel(System.out));
+      System.out.flush();
+    } else {
+      endpoint.callToFile(content, mimeType, responseType, annotationSelectors, includeText, outputFile);
     }
     
     if(showQuotaInfo) {
-      Map<String, List<String>> headers = client.getLastHeaders();
       System.err.println("Quota information");
       System.err.println();
-      List<String> reqCost = headers.get("X-GATE-Request-Cost");
-      if(reqCost != null && reqCost.size() > 0) {
-        System.err.println("                Cost of this request: " + reqCost.get(0));
+      String reqCost = response.getHeader("X-GATE-Request-Cost");
+      if(reqCost != null) {
+        System.err.println("                Cost of this request: " + reqCost);
       }
-      List<String> remainingQuota = headers.get("X-GATE-Remaining-Quota");
-      if(remainingQuota != null && remainingQuota.size() > 0) {
-        System.err.println("           Remaining quota for today: " + remainingQuota.get(0));
+      String remainingQuota = response.getHeader("X-GATE-Remaining-Quota");
+      if(remainingQuota != null) {
+        System.err.println("           Remaining quota for today: " + remainingQuota);
       }
-      List<String> quotaReset = headers.get("X-GATE-Quota-Reset");
-      if(quotaReset != null && quotaReset.size() > 0) {
-        System.err.println("                 Quota will reset at: " + quotaReset.get(0));
+      String quotaReset = response.getHeader("X-GATE-Quota-Reset");
+      if(quotaReset != null) {
+        System.err.println("                 Quota will reset at: " + quotaReset);
       }
-      List<String> rateLimit = headers.get("X-GATE-Rate-Limit-Calls");
-      if(rateLimit != null && rateLimit.size() > 0) {
-        System.err.println("Remaining calls in rate limit window: " + rateLimit.get(0));
+      String rateLimit = response.getHeader("X-GATE-Rate-Limit-Calls");
+      if(rateLimit != null) {
+        System.err.println("Remaining calls in rate limit window: " + rateLimit);
       }
-      List<String> limitReset = headers.get("X-GATE-Rate-Limit-Reset");
-      if(limitReset != null && limitReset.size() > 0) {
-        System.err.println("           Rate limit window ends at: " + limitReset.get(0));
+      String limitReset = response.getHeader("X-GATE-Rate-Limit-Reset");
+      if(limitReset != null) {
+        System.err.println("           Rate limit window ends at: " + limitReset);
       }
     }
   }
@@ -16,13 +16,14 @@
  */
 package uk.ac.gate.cloud.cli.commands.shop;
 
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.AbstractCommand;
 import uk.ac.gate.cloud.client.RestClient;
 
 import uk.ac.gate.cloud.shop.Item;
 import uk.ac.gate.cloud.shop.Shop;
 
-public class ItemDetails extends AbstractCommand {
+public class ItemDetails extends AbstractCommand implements ReadOnlyCommand {
 
   public void run(RestClient client, boolean jsonOutput, String... args) throws Exception {
     if(args.length < 1) {
@@ -20,13 +20,14 @@ import java.util.Collections;
 import java.util.Formatter;
 import java.util.List;
 
+import uk.ac.gate.cloud.cli.ReadOnlyCommand;
 import uk.ac.gate.cloud.cli.commands.AbstractCommand;
 import uk.ac.gate.cloud.client.RestClient;
 
 import uk.ac.gate.cloud.shop.Item;
 import uk.ac.gate.cloud.shop.Shop;
 
-public class ListItems extends AbstractCommand {
+public class ListItems extends AbstractCommand implements ReadOnlyCommand {
   
   public void run(RestClient client, boolean jsonOutput, String... args) throws Exception {
     Shop shop = new Shop(client);
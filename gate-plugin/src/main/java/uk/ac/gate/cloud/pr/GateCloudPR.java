@@ -18,6 +18,8 @@ package uk.ac.gate.cloud.pr;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.util.TreeSet;
 
@@ -27,6 +29,10 @@ import javax.xml.stream.XMLStreamReader;
 
 import com.sun.xml.fastinfoset.stax.StAXDocumentParser;
 
+import uk.ac.gate.cloud.client.CallOptions;
+import uk.ac.gate.cloud.client.Cancellation;
+import uk.ac.gate.cloud.client.FlightRecorderEvents;
+import uk.ac.gate.cloud.client.RateLimiter;
 import uk.ac.gate.cloud.client.RestClient;
 import uk.ac.gate.cloud.client.RestClientException;
 import uk.ac.gate.cloud.client.StreamWritable;
@@ -72,9 +78,14 @@ public class GateCloudPR extends AbstractLanguageAnalyser {
 
   private FeatureMap annotationSetMapping;
 
+  private Integer warmUpConnections = 0;
+
   private ApiEndpoint endpoint;
 
-  private long[] lastCallTime;
+  /**
+   * Handle for cancelling the call currently in progress, if any.
+   */
+  private transient volatile Cancellation cancellation;
 
   public URL getEndpointUrl() {
     return endpointUrl;
@@ -128,8 +139,9 @@ public class GateCloudPR extends AbstractLanguageAnalyser {
 
   @RunTime
   @CreoleParameter(
-          comment = "Minimum delay in milliseconds to leave between calls to the service, "
-                  + "to allow for rate limiting", defaultValue = "501")
+          comment = "Delay in milliseconds to leave between calls to the service "
+                  + "until the service reports its rate limits, after which calls "
+                  + "are paced to the rate the service allows", defaultValue = "501")
   public void setMinDelay(Integer minDelay) {
     this.minDelay = minDelay;
   }
@@ -161,34 +173,33 @@ public class GateCloudPR extends AbstractLanguageAnalyser {
     this.annotationSetMapping = annotationSetMapping;
   }
 
-  /**
-   * For internal use by the duplication mechanism only.
-   */
-  public ApiEndpoint getEndpoint() {
-    return endpoint;
+  public Integer getWarmUpConnections() {
+    return warmUpConnections;
   }
 
-  /**
-   * For internal use by the duplication mechanism only.
-   */
-  @Sharable
-  public void setEndpoint(ApiEndpoint endpoint) {
-    this.endpoint = endpoint;
+  @Optional
+  @CreoleParameter(
+          comment = "Number of connections to the service to open in the "
+                  + "background when the PR is created, so the first calls "
+                  + "do not have to wait for connection setup.  0 to disable.",
+          defaultValue = "0")
+  public void setWarmUpConnections(Integer warmUpConnections) {
+    this.warmUpConnections = warmUpConnections;
   }
 
   /**
    * For internal use by the duplication mechanism only.
    */
-  public long[] getLastCallTime() {
-    return lastCallTime;
+  public ApiEndpoint getEndpoint() {
+    return endpoint;
   }
 
   /**
    * For internal use by the duplication mechanism only.
    */
   @Sharable
-  public void setLastCallTime(long[] lastCallTime) {
-    this.lastCallTime = lastCallTime;
+  public void setEndpoint(ApiEndpoint endpoint) {
+    this.endpoint = endpoint;
   }
 
   @Override
@@ -200,7 +211,11 @@ public class GateCloudPR extends AbstractLanguageAnalyser {
       RestClient client = new RestClient(apiKey, apiPassword);
       OnlineApiManager mgr = new OnlineApiManager(client);
       endpoint = mgr.getEndpoint(endpointUrl.toString());
-      lastCallTime = new long[] {0L};
+      if(warmUpConnections != null && warmUpConnections > 0) {
+        // failures are ignored, the first call will simply connect as
+        // normal
+        client.warmUpAsync(endpointUrl, warmUpConnections);
+      }
     }
     return this;
   }
@@ -208,10 +223,22 @@ public class GateCloudPR extends AbstractLanguageAnalyser {
   @Override
   public void reInit() throws ResourceInstantiationException {
     endpoint = null;
-    lastCallTime = null;
     init();
   }
 
+  /**
+   * Interrupt the current execution, aborting any call to the service
+   * that is in progress rather than waiting for it to complete.
+   */
+  @Override
+  public void interrupt() {
+    super.interrupt();
+    Cancellation c = cancellation;
+    if(c != null) {
+      c.cancel();
+    }
+  }
+
   public void execute() throws ExecutionException {
     if(isInterrupted()) {
       throw new ExecutionInterruptedException();
@@ -241,29 +268,49 @@ public class GateCloudPR extends AbstractLanguageAnalyser {
                           .peakAtNextAnnotationId())};
     }
 
-    try {
-      synchronized(endpoint) {
-        // ensure we wait at least minDelay ms since the last call
-        // before making the next one
-        long timeSinceLastCall = System.currentTimeMillis() - lastCallTime[0];
-        long requiredDelay = minDelay - timeSinceLastCall;
-        if(requiredDelay > 0) {
-          try {
-            Thread.sleep(requiredDelay);
-          } catch(InterruptedException e) {
-            throw new ExecutionInterruptedException();
-          }
-        }
-        response =
-                endpoint.call(content, mimeType, ResponseType.FINF,
-                        annotationSelectors, false, extraParameters);
-        lastCallTime[0] = System.currentTimeMillis();
+    synchronized(endpoint) {
+      // the limiter is shared by all duplicates of this PR, as they
+      // share the endpoint, and adapts to the service's rate limits.
+      // It is replaced if minDelay has changed since it was created, but
+      // a limiter set on the endpoint by other means is left alone
+      int delay = (minDelay != null && minDelay > 0) ? minDelay : 0;
+      RateLimiter current = endpoint.getRateLimiter();
+      if(current == null || (current instanceof MinDelayLimiter
+              && ((MinDelayLimiter)current).minDelay != delay)) {
+        endpoint.setRateLimiter(new MinDelayLimiter(delay));
       }
+    }
+
+    CallOptions options = new CallOptions();
+    options.setCancellation(new Cancellation());
+    cancellation = options.getCancellation();
+    Object callEvent = FlightRecorderEvents.beginServiceCall();
+    boolean succeeded = false;
+    try {
+      response =
+              endpoint.call(content, mimeType, ResponseType.FINF,
+                      annotationSelectors, false, options, extraParameters);
+      succeeded = true;
     } catch(RestClientException rce) {
+      if(rce.getCause() instanceof InterruptedIOException
+              && !(rce.getCause() instanceof SocketTimeoutException)) {
+        throw new ExecutionInterruptedException();
+      }
       throw new ExecutionException("Error calling GATE Cloud service", rce);
+    } finally {
+      if(!succeeded) {
+        // a successful call keeps the handle so an interrupt can still
+        // abort reading the response, and clears it after parsing
+        cancellation = null;
+      }
+      FlightRecorderEvents.endServiceCall(callEvent,
+              String.valueOf(endpointUrl), document.getName(), mimeType,
+              succeeded);
     }
 
     // parse the response
+    Object parseEvent = FlightRecorderEvents.beginAnnotationParse();
+    int annotationSets = 0;
     XMLStreamReader xsr = new StAXDocumentParser(response);
     try {
       try {
@@ -272,15 +319,40 @@ public class GateCloudPR extends AbstractLanguageAnalyser {
           DocumentStaxUtils.readAnnotationSet(xsr, document
                   .getAnnotations(mappedASName(xsr.getAttributeValue(null,
                           "Name"))), null, new TreeSet<Integer>(), null);
+          annotationSets++;
         }
       } finally {
         xsr.close();
         response.close();
+        FlightRecorderEvents.endAnnotationParse(parseEvent,
+                document.getName(), annotationSets, document.getContent()
+                        .size());
       }
     } catch(XMLStreamException e) {
+      if(isInterrupted()) {
+        throw new ExecutionInterruptedException();
+      }
       throw new ExecutionException("Error parsing result from service", e);
     } catch(IOException e) {
+      if(isInterrupted()) {
+        throw new ExecutionInterruptedException();
+      }
       throw new ExecutionException("Error parsing result from service", e);
+    } finally {
+      cancellation = null;
+    }
+  }
+
+  /**
+   * Rate limiter created from the <code>minDelay</code> parameter,
+   * remembering the delay it was created for.
+   */
+  private static class MinDelayLimiter extends RateLimiter {
+    final int minDelay;
+
+    MinDelayLimiter(int minDelay) {
+      super(minDelay > 0 ? 1000.0 / minDelay : 0, 1);
+      this.minDelay = minDelay;
     }
   }
 
@@ -18,31 +18,31 @@ package uk.ac.gate.cloud.pr;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 
-import org.apache.commons.io.output.CloseShieldOutputStream;
-
-import uk.ac.gate.cloud.client.StreamWritable;
+import uk.ac.gate.cloud.client.SizedStreamWritable;
 
 /**
  * Simple <code>StreamWritable</code> implementation to write a string
- * as UTF-8.
+ * as UTF-8. The string is encoded up front so its length is known,
+ * allowing it to be sent with a fixed <code>Content-Length</code>.
  */
-public class TextWritable implements StreamWritable {
+public class TextWritable implements SizedStreamWritable {
   
-  private String str;
+  private byte[] bytes;
   
   public TextWritable(String str) {
-    this.str = str;
+    this.bytes = str.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public long getContentLength() {
+    return bytes.length;
   }
 
   @Override
   public void writeTo(OutputStream out) throws IOException {
-    // don't close the output stream after writing
-    try(CloseShieldOutputStream csos = new CloseShieldOutputStream(out);
-        OutputStreamWriter w = new OutputStreamWriter(csos, "UTF-8")) {
-      w.write(str);
-    }
+    out.write(bytes);
   }
 
 }
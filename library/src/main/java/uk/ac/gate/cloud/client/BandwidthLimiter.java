@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiter for the number of bytes per second transferred
+ * by bulk uploads and downloads, such as
+ * {@link uk.ac.gate.cloud.data.DataBundle#addFile(java.io.File) bundle
+ * uploads} and {@link uk.ac.gate.cloud.common.Downloadable#download(java.io.File)
+ * file downloads}. A limiter is set on a {@link RestClient} with
+ * {@link RestClient#setUploadBandwidthLimiter(BandwidthLimiter)} or
+ * {@link RestClient#setDownloadBandwidthLimiter(BandwidthLimiter)}, and
+ * the streams of every transfer in that direction draw from the same
+ * bucket, so the cap applies to their combined rate. The same limiter
+ * may be shared between several clients.
+ * <p>
+ * Idle time accumulates credit up to the burst size, after which the
+ * transfer proceeds at the configured rate. Like {@link RateLimiter},
+ * the limiter is lock-free: each transfer reserves its bytes with a
+ * single atomic update and then sleeps for as long as the reservation
+ * exceeds the credit available.
+ */
+public class BandwidthLimiter {
+
+  /**
+   * Largest number of bytes a limited stream reads or writes in one go,
+   * so that large buffers are spread out rather than sent in a single
+   * burst followed by a long pause.
+   */
+  private static final int CHUNK_SIZE = 16384;
+
+  private final long bytesPerSecond;
+
+  private final long burstBytes;
+
+  /**
+   * Allowed burst, in nanoseconds of transfer at the full rate.
+   */
+  private final long burstNanos;
+
+  /**
+   * Theoretical time at which all the bytes reserved so far will have
+   * been transferred at the permitted rate, in
+   * <code>System.nanoTime</code> terms.
+   */
+  private final AtomicLong nextFree = new AtomicLong(System.nanoTime());
+
+  /**
+   * Create a limiter with the given rate, and a burst size of a tenth of
+   * a second's worth of data (but at least 16 KiB).
+   * 
+   * @param bytesPerSecond the maximum average transfer rate
+   */
+  public BandwidthLimiter(long bytesPerSecond) {
+    this(bytesPerSecond, Math.max(bytesPerSecond / 10, CHUNK_SIZE));
+  }
+
+  /**
+   * Create a limiter with the given rate and burst size.
+   * 
+   * @param bytesPerSecond the maximum average transfer rate
+   * @param burstBytes the number of bytes that may be transferred at
+   *          full speed after the limiter has been idle
+   */
+  public BandwidthLimiter(long bytesPerSecond, long burstBytes) {
+    if(bytesPerSecond <= 0) {
+      throw new IllegalArgumentException("bytesPerSecond must be positive");
+    }
+    if(burstBytes < 0) {
+      throw new IllegalArgumentException("burstBytes must not be negative");
+    }
+    this.bytesPerSecond = bytesPerSecond;
+    this.burstBytes = burstBytes;
+    this.burstNanos = nanosFor(burstBytes);
+  }
+
+  public long getBytesPerSecond() {
+    return bytesPerSecond;
+  }
+
+  public long getBurstBytes() {
+    return burstBytes;
+  }
+
+  private long nanosFor(long bytes) {
+    return (long)((double)bytes * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond);
+  }
+
+  /**
+   * Reserve the given number of bytes, returning the number of
+   * nanoseconds the caller must wait before transferring them (0 if they
+   * can be transferred immediately).
+   */
+  public long reserve(long bytes) {
+    long cost = nanosFor(bytes);
+    while(true) {
+      long now = System.nanoTime();
+      long current = nextFree.get();
+      long next = Math.max(current, now) + cost;
+      if(nextFree.compareAndSet(current, next)) {
+        // reservations may run up to the burst size ahead of now, which
+        // is also the most credit idle time can earn
+        return Math.max(0, next - now - burstNanos);
+      }
+    }
+  }
+
+  /**
+   * Wait until the given number of bytes may be transferred.
+   * 
+   * @throws InterruptedIOException if interrupted while waiting
+   */
+  public void acquire(long bytes) throws InterruptedIOException {
+    long wait = reserve(bytes);
+    if(wait > 0) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(wait);
+      } catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted waiting for bandwidth");
+      }
+    }
+  }
+
+  /**
+   * Wrap the given stream so that reads from it are limited by this
+   * limiter. Closing the returned stream closes the original.
+   */
+  public InputStream limit(InputStream in) {
+    return new FilterInputStream(in) {
+      @Override
+      public int read() throws IOException {
+        acquire(1);
+        return super.read();
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, Math.min(len, CHUNK_SIZE));
+        if(n > 0) {
+          // pay for the data once we know how much was actually read
+          acquire(n);
+        }
+        return n;
+      }
+    };
+  }
+
+  /**
+   * Wrap the given stream so that writes to it are limited by this
+   * limiter. Closing the returned stream closes the original.
+   */
+  public OutputStream limit(OutputStream out) {
+    return new FilterOutputStream(out) {
+      @Override
+      public void write(int b) throws IOException {
+        acquire(1);
+        out.write(b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        while(len > 0) {
+          int n = Math.min(len, CHUNK_SIZE);
+          acquire(n);
+          out.write(b, off, n);
+          off += n;
+          len -= n;
+        }
+      }
+    };
+  }
+}
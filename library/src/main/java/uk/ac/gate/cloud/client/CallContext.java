@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The state of a single logical call through a {@link RestClient},
+ * which may span several HTTP requests (retries, hedges and redirects).
+ * Holds the effective timeouts, and if the call has a deadline or a
+ * {@link Cancellation} handle it tracks the call's connections so they
+ * can be disconnected when the deadline passes or the call is
+ * cancelled. State is guarded by a <code>ReentrantLock</code> rather
+ * than the object's monitor, so a virtual thread waiting to retry does
+ * not pin its carrier thread.
+ */
+class CallContext {
+
+  static final int CANCELLED = 1;
+
+  static final int DEADLINE_EXCEEDED = 2;
+
+  private final int connectTimeoutMillis;
+
+  private final int readTimeoutMillis;
+
+  private final long deadlineMillis;
+
+  /**
+   * <code>System.nanoTime()</code> value at the deadline, only
+   * meaningful if <code>deadlineMillis > 0</code>.
+   */
+  private final long deadlineNanos;
+
+  private final Cancellation cancellation;
+
+  /**
+   * Can this call be aborted, by cancellation or at a deadline?
+   */
+  private final boolean abortable;
+
+  /**
+   * Connections opened by this call, only tracked if it is abortable.
+   */
+  private final List<TransportConnection> connections;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * Signalled when the call is aborted, to wake a thread waiting to
+   * retry.
+   */
+  private final Condition abortedCondition = lock.newCondition();
+
+  private ScheduledFuture<?> deadlineTimer;
+
+  /**
+   * <code>System.nanoTime()</code> value when the call was created.
+   */
+  final long startNanos = System.nanoTime();
+
+  /**
+   * Number of HTTP requests made so far for this call.
+   */
+  private final AtomicInteger requests = new AtomicInteger();
+
+  private int aborted;
+
+  private boolean finished;
+
+  CallContext(int connectTimeoutMillis, int readTimeoutMillis,
+          long deadlineMillis, CallOptions options) {
+    if(options != null) {
+      if(options.getConnectTimeoutMillis() >= 0) {
+        connectTimeoutMillis = options.getConnectTimeoutMillis();
+      }
+      if(options.getReadTimeoutMillis() >= 0) {
+        readTimeoutMillis = options.getReadTimeoutMillis();
+      }
+      if(options.getDeadlineMillis() >= 0) {
+        deadlineMillis = options.getDeadlineMillis();
+      }
+      this.cancellation = options.getCancellation();
+    } else {
+      this.cancellation = null;
+    }
+    this.connectTimeoutMillis = connectTimeoutMillis;
+    this.readTimeoutMillis = readTimeoutMillis;
+    this.deadlineMillis = deadlineMillis;
+    this.deadlineNanos =
+            System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+    this.abortable = deadlineMillis > 0 || cancellation != null;
+    this.connections = abortable ? new ArrayList<>(2) : null;
+  }
+
+  /**
+   * Start tracking this call - register it with its cancellation handle
+   * and schedule the abort at its deadline.
+   */
+  CallContext start(ScheduledExecutorService scheduler) {
+    if(abortable) {
+      if(deadlineMillis > 0) {
+        ScheduledFuture<?> timer =
+                scheduler.schedule(() -> abort(DEADLINE_EXCEEDED),
+                        deadlineMillis, TimeUnit.MILLISECONDS);
+        lock.lock();
+        try {
+          deadlineTimer = timer;
+        } finally {
+          lock.unlock();
+        }
+      }
+      if(cancellation != null) {
+        cancellation.register(this);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Time remaining before the deadline in milliseconds, or
+   * <code>Long.MAX_VALUE</code> if there is no deadline.
+   */
+  long remainingMillis() {
+    if(deadlineMillis <= 0) {
+      return Long.MAX_VALUE;
+    }
+    return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+  }
+
+  /**
+   * Apply this call's timeouts to a newly opened connection, and track
+   * it so it can be aborted.
+   * 
+   * @throws InterruptedIOException if the call has already been
+   *           aborted
+   */
+  void opened(TransportConnection connection) throws InterruptedIOException {
+    requests.incrementAndGet();
+    long remaining = remainingMillis();
+    connection.setTimeouts(bound(connectTimeoutMillis, remaining),
+            bound(readTimeoutMillis, remaining));
+    if(abortable) {
+      lock.lock();
+      try {
+        if(aborted == 0) {
+          if(!finished) {
+            connections.add(connection);
+          }
+          return;
+        }
+      } finally {
+        lock.unlock();
+      }
+      connection.disconnect();
+      throw abortedException();
+    }
+  }
+
+  /**
+   * Limit a timeout to the time remaining before the deadline.
+   */
+  private static int bound(int timeoutMillis, long remainingMillis) {
+    if(remainingMillis == Long.MAX_VALUE) {
+      return timeoutMillis;
+    }
+    // a zero timeout would mean "no timeout"
+    int remaining = (int)Math.max(1, Math.min(Integer.MAX_VALUE, remainingMillis));
+    return (timeoutMillis == 0) ? remaining : Math.min(timeoutMillis, remaining);
+  }
+
+  /**
+   * Abort this call for the given reason, disconnecting its connections
+   * and waking any thread waiting to retry.
+   */
+  void abort(int reason) {
+    List<TransportConnection> toDisconnect;
+    lock.lock();
+    try {
+      if(!abortable || aborted != 0 || finished) {
+        return;
+      }
+      aborted = reason;
+      toDisconnect = new ArrayList<>(connections);
+      connections.clear();
+      abortedCondition.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    for(TransportConnection connection : toDisconnect) {
+      connection.disconnect();
+    }
+  }
+
+  boolean isAborted() {
+    lock.lock();
+    try {
+      return aborted != 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Can this call be aborted? If not, there is no need to track its
+   * connections or check its response streams.
+   */
+  boolean isAbortable() {
+    return abortable;
+  }
+
+  /**
+   * Throw a suitable exception if this call has been aborted.
+   */
+  void checkAborted() throws InterruptedIOException {
+    if(isAborted()) {
+      throw abortedException();
+    }
+  }
+
+  /**
+   * Throw a suitable exception if this call has been cancelled or has
+   * passed its deadline.
+   */
+  void check() throws InterruptedIOException {
+    if(deadlineMillis > 0 && remainingMillis() <= 0) {
+      abort(DEADLINE_EXCEEDED);
+    }
+    checkAborted();
+  }
+
+  /**
+   * If this call has been aborted, replace the given exception (most
+   * likely a side effect of disconnecting the connection) with one
+   * explaining why, otherwise return it unchanged.
+   */
+  IOException translate(IOException e) {
+    if(!isAborted()) {
+      return e;
+    }
+    InterruptedIOException aborted = abortedException();
+    aborted.initCause(e);
+    return aborted;
+  }
+
+  /**
+   * Create the exception reporting why this call was aborted.
+   */
+  InterruptedIOException abortedException() {
+    lock.lock();
+    try {
+      if(aborted == DEADLINE_EXCEEDED) {
+        return new SocketTimeoutException("Call deadline of "
+                + deadlineMillis + "ms exceeded");
+      }
+      return new InterruptedIOException("Call was cancelled");
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Wait before a retry, returning early with an exception if the call
+   * is aborted or the delay would take it past its deadline.
+   */
+  void sleep(long delayMillis) throws InterruptedIOException {
+    if(delayMillis >= remainingMillis()) {
+      abort(DEADLINE_EXCEEDED);
+      throw abortedException();
+    }
+    long wait = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+    lock.lock();
+    try {
+      while(aborted == 0 && wait > 0) {
+        wait = abortedCondition.awaitNanos(wait);
+      }
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting to retry");
+    } finally {
+      lock.unlock();
+    }
+    check();
+  }
+
+  /**
+   * Number of HTTP requests made for this call, including retries,
+   * hedges and redirects.
+   */
+  int requestCount() {
+    return requests.get();
+  }
+
+  /**
+   * Stop tracking this call once it is complete.
+   */
+  void finish() {
+    ScheduledFuture<?> timer;
+    lock.lock();
+    try {
+      if(finished) {
+        return;
+      }
+      finished = true;
+      if(abortable) {
+        connections.clear();
+      }
+      timer = deadlineTimer;
+    } finally {
+      lock.unlock();
+    }
+    if(timer != null) {
+      timer.cancel(false);
+    }
+    if(cancellation != null) {
+      cancellation.unregister(this);
+    }
+  }
+}
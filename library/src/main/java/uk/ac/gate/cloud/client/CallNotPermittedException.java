@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+/**
+ * Exception thrown when a {@link CircuitBreaker} refuses to let a call
+ * through, either because the circuit is open or because the maximum
+ * number of concurrent calls is already in progress. No request is sent
+ * to the server in this case.
+ */
+public class CallNotPermittedException extends RestClientException {
+
+  private static final long serialVersionUID = 3518716286236466211L;
+
+  private final CircuitBreaker.State state;
+
+  public CallNotPermittedException(String message, CircuitBreaker.State state) {
+    super(message);
+    this.state = state;
+  }
+
+  /**
+   * The state of the circuit breaker when the call was refused.
+   */
+  public CircuitBreaker.State getState() {
+    return state;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+/**
+ * Per-call settings that override the timeouts and deadline configured
+ * on the {@link RestClient}, and an optional {@link Cancellation}
+ * handle through which the call can be aborted from another thread.
+ * Any timeout left at -1 takes the client's value.
+ */
+public class CallOptions {
+
+  private int connectTimeoutMillis = -1;
+
+  private int readTimeoutMillis = -1;
+
+  private long deadlineMillis = -1;
+
+  private Cancellation cancellation;
+
+  /**
+   * Create options that use the client's timeouts and deadline, with no
+   * cancellation handle.
+   */
+  public CallOptions() {
+  }
+
+  /**
+   * Create options with the given overall deadline and cancellation
+   * handle.
+   * 
+   * @param deadlineMillis maximum total time for the call, 0 for no
+   *          deadline or -1 to use the client's deadline
+   * @param cancellation handle through which the call can be
+   *          cancelled, may be <code>null</code>
+   */
+  public CallOptions(long deadlineMillis, Cancellation cancellation) {
+    this.deadlineMillis = deadlineMillis;
+    this.cancellation = cancellation;
+  }
+
+  /**
+   * Maximum time to wait for a connection to be established, 0 to wait
+   * indefinitely, or -1 to use the client's
+   * {@link RestClient#getConnectTimeoutMillis() connect timeout}.
+   */
+  public int getConnectTimeoutMillis() {
+    return connectTimeoutMillis;
+  }
+
+  public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+    this.connectTimeoutMillis = connectTimeoutMillis;
+  }
+
+  /**
+   * Maximum time to wait for data from the server - either the response
+   * headers or the next part of the body - 0 to wait indefinitely, or -1
+   * to use the client's {@link RestClient#getReadTimeoutMillis() read
+   * timeout}.
+   */
+  public int getReadTimeoutMillis() {
+    return readTimeoutMillis;
+  }
+
+  public void setReadTimeoutMillis(int readTimeoutMillis) {
+    this.readTimeoutMillis = readTimeoutMillis;
+  }
+
+  /**
+   * Maximum total time for the call, including any retries and the
+   * reading of the response body, 0 for no deadline, or -1 to use the
+   * client's {@link RestClient#getDeadlineMillis() deadline}.
+   */
+  public long getDeadlineMillis() {
+    return deadlineMillis;
+  }
+
+  public void setDeadlineMillis(long deadlineMillis) {
+    this.deadlineMillis = deadlineMillis;
+  }
+
+  /**
+   * Handle through which the call can be cancelled, or
+   * <code>null</code> if it cannot.
+   */
+  public Cancellation getCancellation() {
+    return cancellation;
+  }
+
+  public void setCancellation(Cancellation cancellation) {
+    this.cancellation = cancellation;
+  }
+}
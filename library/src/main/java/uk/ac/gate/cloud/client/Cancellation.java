@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Handle through which in-flight calls can be aborted from another
+ * thread. Pass the handle to a call in its {@link CallOptions}, then
+ * {@link #cancel()} it to disconnect the call's connection immediately
+ * - the call fails with a {@link RestClientException} whose cause is an
+ * <code>InterruptedIOException</code>. A handle may be shared by
+ * several calls, which are all cancelled together, and once cancelled
+ * any further call using it fails straight away.
+ */
+public class Cancellation {
+
+  private volatile boolean cancelled;
+
+  private final Set<CallContext> calls = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Cancel all the calls using this handle.
+   */
+  public void cancel() {
+    cancelled = true;
+    for(CallContext call : calls) {
+      call.abort(CallContext.CANCELLED);
+    }
+  }
+
+  /**
+   * Has this handle been cancelled?
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  void register(CallContext call) {
+    calls.add(call);
+    if(cancelled) {
+      call.abort(CallContext.CANCELLED);
+    }
+  }
+
+  void unregister(CallContext call) {
+    calls.remove(call);
+  }
+}
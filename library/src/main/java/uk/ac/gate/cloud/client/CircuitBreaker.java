@@ -0,0 +1,460 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker and concurrency bulkhead protecting calls to a single
+ * endpoint. A breaker is attached to a {@link RestClient} for a URL
+ * prefix (see
+ * {@link uk.ac.gate.cloud.online.ApiEndpoint#setCircuitBreaker(CircuitBreaker)})
+ * and every request attempt to that prefix passes through it.
+ * <p>
+ * The breaker records the outcome of the most recent calls in a sliding
+ * window. A call fails if it ends in an I/O error or a 5xx response,
+ * and is slow if the response takes longer than the slow call
+ * threshold. Once the window holds at least the minimum number of calls,
+ * the breaker <em>opens</em> if the proportion of failed calls or of
+ * slow calls reaches its threshold. While open, calls fail immediately
+ * with a {@link CallNotPermittedException} instead of waiting for a
+ * struggling server. After the open duration the breaker becomes
+ * <em>half open</em> and lets a small number of trial calls through -
+ * if they all succeed promptly the breaker closes again, otherwise it
+ * re-opens.
+ * <p>
+ * Independently of the circuit state, the breaker can limit the number
+ * of calls in progress at once (a bulkhead), so that one slow endpoint
+ * cannot tie up every thread of the caller. Calls beyond the limit are
+ * refused with a {@link CallNotPermittedException}. A call is in
+ * progress from when its request is sent until its response headers
+ * arrive.
+ */
+public class CircuitBreaker {
+
+  /**
+   * The state of a circuit breaker.
+   */
+  public enum State {
+    /**
+     * Calls are permitted and their outcomes recorded.
+     */
+    CLOSED,
+
+    /**
+     * Calls are refused until the open duration has passed.
+     */
+    OPEN,
+
+    /**
+     * A limited number of trial calls are permitted to test whether the
+     * endpoint has recovered.
+     */
+    HALF_OPEN
+  }
+
+  /**
+   * Listener notified when a circuit breaker changes state.
+   */
+  public interface StateListener {
+    public void stateChanged(CircuitBreaker breaker, State from, State to);
+  }
+
+  public static final int DEFAULT_WINDOW_SIZE = 20;
+
+  public static final int DEFAULT_MINIMUM_CALLS = 10;
+
+  public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+
+  public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 0.8;
+
+  public static final long DEFAULT_SLOW_CALL_MILLIS = 20000L;
+
+  public static final long DEFAULT_OPEN_MILLIS = 30000L;
+
+  public static final int DEFAULT_HALF_OPEN_CALLS = 3;
+
+  private static final byte FAILED = 1;
+
+  private static final byte SLOW = 2;
+
+  private final String name;
+
+  private int minimumCalls = DEFAULT_MINIMUM_CALLS;
+
+  private double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+
+  private double slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+
+  private long slowCallMillis = DEFAULT_SLOW_CALL_MILLIS;
+
+  private long openMillis = DEFAULT_OPEN_MILLIS;
+
+  private int halfOpenCalls = DEFAULT_HALF_OPEN_CALLS;
+
+  private int maxConcurrentCalls = Integer.MAX_VALUE;
+
+  private final List<StateListener> listeners = new CopyOnWriteArrayList<>();
+
+  // state below is guarded by "this"
+
+  private State state = State.CLOSED;
+
+  private long openedAt;
+
+  /**
+   * Ring buffer of call outcomes, each a combination of the FAILED and
+   * SLOW flags.
+   */
+  private final byte[] outcomes;
+
+  private int next;
+
+  private int recorded;
+
+  private int failed;
+
+  private int slow;
+
+  private int halfOpenPermits;
+
+  private int halfOpenSuccesses;
+
+  private int activeCalls;
+
+  /**
+   * Create a breaker with the default settings.
+   * 
+   * @param name name identifying the protected endpoint, used in
+   *          exception messages
+   */
+  public CircuitBreaker(String name) {
+    this(name, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Create a breaker with the given sliding window size.
+   * 
+   * @param name name identifying the protected endpoint, used in
+   *          exception messages
+   * @param windowSize number of recent calls whose outcomes are
+   *          considered
+   */
+  public CircuitBreaker(String name, int windowSize) {
+    if(windowSize < 1) {
+      throw new IllegalArgumentException("windowSize must be at least 1");
+    }
+    this.name = name;
+    this.outcomes = new byte[windowSize];
+  }
+
+  /**
+   * Ask permission to make a call. If permission is granted the caller
+   * <em>must</em> later report the outcome with
+   * {@link #onResult(boolean, long)} or give the permission back with
+   * {@link #release()}.
+   * 
+   * @throws CallNotPermittedException if the circuit is open, or the
+   *           maximum number of concurrent calls are in progress
+   */
+  public void acquirePermission() throws CallNotPermittedException {
+    State from;
+    State to;
+    CallNotPermittedException refused = null;
+    synchronized(this) {
+      from = state;
+      if(state == State.OPEN) {
+        if(System.nanoTime() - openedAt < TimeUnit.MILLISECONDS
+                .toNanos(openMillis)) {
+          refused = new CallNotPermittedException("Circuit breaker for "
+                  + name + " is open", State.OPEN);
+        } else {
+          state = State.HALF_OPEN;
+          halfOpenPermits = halfOpenCalls;
+          halfOpenSuccesses = 0;
+        }
+      }
+      if(refused == null && state == State.HALF_OPEN
+              && halfOpenPermits <= 0) {
+        refused = new CallNotPermittedException("Circuit breaker for " + name
+                + " is waiting for trial calls to complete", State.HALF_OPEN);
+      } else if(refused == null && activeCalls >= maxConcurrentCalls) {
+        refused = new CallNotPermittedException(
+                "Too many concurrent calls to " + name, state);
+      }
+      if(refused == null) {
+        if(state == State.HALF_OPEN) {
+          halfOpenPermits--;
+        }
+        activeCalls++;
+      }
+      to = state;
+    }
+    fire(from, to);
+    if(refused != null) {
+      throw refused;
+    }
+  }
+
+  /**
+   * Report the outcome of a permitted call.
+   * 
+   * @param failure true if the call failed
+   * @param durationNanos how long the call took
+   */
+  public void onResult(boolean failure, long durationNanos) {
+    boolean isSlow =
+            durationNanos >= TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+    State from;
+    State to;
+    synchronized(this) {
+      activeCalls--;
+      from = state;
+      if(state == State.HALF_OPEN) {
+        if(failure || isSlow) {
+          open();
+        } else if(++halfOpenSuccesses >= halfOpenCalls) {
+          state = State.CLOSED;
+          clearWindow();
+        }
+      } else if(state == State.CLOSED) {
+        record((byte)((failure ? FAILED : 0) | (isSlow ? SLOW : 0)));
+        if(recorded >= minimumCalls
+                && (failed >= failureRateThreshold * recorded
+                        || slow >= slowCallRateThreshold * recorded)) {
+          open();
+        }
+      }
+      // calls that complete while the breaker is open are ignored
+      to = state;
+    }
+    fire(from, to);
+  }
+
+  /**
+   * Give back a permission without recording an outcome, for example
+   * if the call was cancelled before it completed.
+   */
+  public void release() {
+    synchronized(this) {
+      activeCalls--;
+      if(state == State.HALF_OPEN) {
+        halfOpenPermits++;
+      }
+    }
+  }
+
+  /**
+   * Return the breaker to the closed state and forget all recorded
+   * calls.
+   */
+  public void reset() {
+    State from;
+    synchronized(this) {
+      from = state;
+      state = State.CLOSED;
+      clearWindow();
+    }
+    fire(from, State.CLOSED);
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAt = System.nanoTime();
+    clearWindow();
+  }
+
+  private void record(byte outcome) {
+    if(recorded == outcomes.length) {
+      byte old = outcomes[next];
+      if((old & FAILED) != 0) {
+        failed--;
+      }
+      if((old & SLOW) != 0) {
+        slow--;
+      }
+    } else {
+      recorded++;
+    }
+    outcomes[next] = outcome;
+    next = (next + 1) % outcomes.length;
+    if((outcome & FAILED) != 0) {
+      failed++;
+    }
+    if((outcome & SLOW) != 0) {
+      slow++;
+    }
+  }
+
+  private void clearWindow() {
+    next = 0;
+    recorded = 0;
+    failed = 0;
+    slow = 0;
+  }
+
+  private void fire(State from, State to) {
+    if(from != to) {
+      for(StateListener l : listeners) {
+        l.stateChanged(this, from, to);
+      }
+    }
+  }
+
+  /**
+   * The name of the endpoint protected by this breaker.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * The current state of the breaker. An open breaker whose open
+   * duration has passed is still reported as open until the next call
+   * is attempted.
+   */
+  public synchronized State getState() {
+    return state;
+  }
+
+  /**
+   * Proportion of the calls in the current window that failed, or 0 if
+   * no calls have been recorded.
+   */
+  public synchronized double getFailureRate() {
+    return recorded == 0 ? 0.0 : (double)failed / recorded;
+  }
+
+  /**
+   * Proportion of the calls in the current window that were slow, or 0
+   * if no calls have been recorded.
+   */
+  public synchronized double getSlowCallRate() {
+    return recorded == 0 ? 0.0 : (double)slow / recorded;
+  }
+
+  /**
+   * Number of calls in the current window.
+   */
+  public synchronized int getRecordedCalls() {
+    return recorded;
+  }
+
+  /**
+   * Number of calls currently in progress.
+   */
+  public synchronized int getActiveCalls() {
+    return activeCalls;
+  }
+
+  public void addStateListener(StateListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeStateListener(StateListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Minimum number of calls that must be recorded before the failure
+   * and slow call rates are considered.
+   */
+  public int getMinimumCalls() {
+    return minimumCalls;
+  }
+
+  public void setMinimumCalls(int minimumCalls) {
+    this.minimumCalls = minimumCalls;
+  }
+
+  /**
+   * Proportion of failed calls (between 0 and 1) at which the breaker
+   * opens.
+   */
+  public double getFailureRateThreshold() {
+    return failureRateThreshold;
+  }
+
+  public void setFailureRateThreshold(double failureRateThreshold) {
+    this.failureRateThreshold = failureRateThreshold;
+  }
+
+  /**
+   * Proportion of slow calls (between 0 and 1) at which the breaker
+   * opens. A value greater than 1 disables opening on latency.
+   */
+  public double getSlowCallRateThreshold() {
+    return slowCallRateThreshold;
+  }
+
+  public void setSlowCallRateThreshold(double slowCallRateThreshold) {
+    this.slowCallRateThreshold = slowCallRateThreshold;
+  }
+
+  /**
+   * Calls that take at least this long (in milliseconds) are counted as
+   * slow.
+   */
+  public long getSlowCallMillis() {
+    return slowCallMillis;
+  }
+
+  public void setSlowCallMillis(long slowCallMillis) {
+    this.slowCallMillis = slowCallMillis;
+  }
+
+  /**
+   * How long (in milliseconds) the breaker stays open before allowing
+   * trial calls.
+   */
+  public long getOpenMillis() {
+    return openMillis;
+  }
+
+  public void setOpenMillis(long openMillis) {
+    this.openMillis = openMillis;
+  }
+
+  /**
+   * Number of trial calls permitted while half open, all of which must
+   * succeed for the breaker to close.
+   */
+  public int getHalfOpenCalls() {
+    return halfOpenCalls;
+  }
+
+  public void setHalfOpenCalls(int halfOpenCalls) {
+    this.halfOpenCalls = halfOpenCalls;
+  }
+
+  /**
+   * Maximum number of calls that may be in progress at once.
+   */
+  public int getMaxConcurrentCalls() {
+    return maxConcurrentCalls;
+  }
+
+  /**
+   * Set the maximum number of calls that may be in progress at once.
+   * The default is unlimited.
+   */
+  public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+    this.maxConcurrentCalls = maxConcurrentCalls;
+  }
+}
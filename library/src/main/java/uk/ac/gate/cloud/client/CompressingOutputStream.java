@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Output stream for a request body that buffers the start of the data,
+ * asks a {@link RequestCompression} policy how it should be compressed,
+ * then sets the appropriate headers on the connection and streams the
+ * rest of the body straight through. Bodies that end before the
+ * threshold is reached are sent uncompressed with a fixed
+ * <code>Content-Length</code>, as are larger bodies that the policy
+ * decides not to compress if their length was known up front.
+ */
+public class CompressingOutputStream extends OutputStream {
+
+  private TransportConnection connection;
+
+  private RequestCompression compression;
+
+  private String contentType;
+
+  private int threshold;
+
+  private long contentLength;
+
+  private byte[] buffer;
+
+  private int count;
+
+  private OutputStream out;
+
+  /**
+   * Create a stream writing a body of unknown length to the given
+   * connection.
+   * 
+   * @param connection the connection to which the body will be sent
+   * @param compression the policy deciding on compression
+   * @param threshold minimum body size before compression is
+   *          considered, overriding the policy's own threshold
+   * @param contentType the MIME type of the body, may be
+   *          <code>null</code>
+   */
+  public CompressingOutputStream(TransportConnection connection,
+          RequestCompression compression, int threshold, String contentType) {
+    this(connection, compression, threshold, contentType, -1);
+  }
+
+  /**
+   * Create a stream writing to the given connection.
+   * 
+   * @param connection the connection to which the body will be sent
+   * @param compression the policy deciding on compression
+   * @param threshold minimum body size before compression is
+   *          considered, overriding the policy's own threshold
+   * @param contentType the MIME type of the body, may be
+   *          <code>null</code>
+   * @param contentLength the exact length of the body if known, or -1
+   *          if not. If the body is not compressed it is sent with this
+   *          fixed length rather than chunked.
+   */
+  public CompressingOutputStream(TransportConnection connection,
+          RequestCompression compression, int threshold, String contentType,
+          long contentLength) {
+    this.connection = connection;
+    this.compression = compression;
+    this.threshold = threshold;
+    this.contentType = contentType;
+    this.contentLength = contentLength;
+    this.buffer =
+            new byte[Math.max(Math.max(threshold, compression.getSampleSize()), 1)];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    if(out == null) {
+      if(count == buffer.length) {
+        decide(false);
+        out.write(b);
+      } else {
+        buffer[count++] = (byte)b;
+      }
+    } else {
+      out.write(b);
+    }
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if(out == null) {
+      int n = Math.min(len, buffer.length - count);
+      System.arraycopy(b, off, buffer, count, n);
+      count += n;
+      if(n == len) {
+        return;
+      }
+      decide(false);
+      off += n;
+      len -= n;
+    }
+    out.write(b, off, len);
+  }
+
+  /**
+   * Decide how to send the body based on the buffered data, open the
+   * underlying stream and send the buffer.
+   * 
+   * @param complete true if the buffer holds the whole body
+   */
+  private void decide(boolean complete) throws IOException {
+    Object event = JfrSupport.beginCompression();
+    int level = RequestCompression.NO_COMPRESSION;
+    if(!complete || count >= threshold) {
+      level = compression.chooseLevel(contentType, buffer, 0, count);
+    }
+    JfrSupport.endCompression(event, contentType, level, count);
+    if(level == RequestCompression.NO_COMPRESSION) {
+      connection.setContentLength(complete ? count : contentLength);
+      out = connection.getOutputStream();
+    } else {
+      connection.setRequestProperty("Content-Encoding", "gzip");
+      // compressed length is unknown, so the body will be chunked
+      connection.setContentLength(-1);
+      out = new LevelGZIPOutputStream(connection.getOutputStream(), level);
+    }
+    out.write(buffer, 0, count);
+    buffer = null;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    // nothing to flush until we have decided what to do
+    if(out != null) {
+      out.flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if(out == null) {
+      decide(true);
+    }
+    out.close();
+  }
+
+  /**
+   * <code>GZIPOutputStream</code> with a configurable compression level.
+   */
+  private static class LevelGZIPOutputStream extends GZIPOutputStream {
+    LevelGZIPOutputStream(OutputStream out, int level) throws IOException {
+      super(out, 8192);
+      def.setLevel(level);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+/**
+ * The Java Flight Recorder events emitted by the client and by
+ * components built on it. The implementation, <code>JfrEvents</code>,
+ * is the only class that refers to the <code>jdk.jfr</code> API, and is
+ * compiled separately from the rest of the library (from
+ * <code>src/main/jfr</code>) so that the library itself can be built
+ * against the plain Java 8 API. {@link JfrSupport} loads it only if JFR
+ * is available at runtime. The "begin" methods return an opaque event
+ * object, or <code>null</code> if the event is not enabled, which is
+ * passed to the matching "end" method.
+ */
+interface FlightEvents {
+
+  Object beginRequest();
+
+  void endRequest(Object event, RequestEvent request);
+
+  void redirect(int statusCode, String location);
+
+  Object beginCompression();
+
+  void endCompression(Object event, String contentType, int level,
+          long sampledBytes);
+
+  Object beginRateLimitWait();
+
+  void endRateLimitWait(Object event, String url);
+
+  Object beginServiceCall();
+
+  void endServiceCall(Object event, String endpoint, String document,
+          String mimeType, boolean succeeded);
+
+  Object beginAnnotationParse();
+
+  void endAnnotationParse(Object event, String document, int annotationSets,
+          long documentLength);
+}
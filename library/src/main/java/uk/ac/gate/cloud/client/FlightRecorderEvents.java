@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+/**
+ * Java Flight Recorder events for components that call GATE Cloud
+ * services through this library, such as the GATE Cloud processing
+ * resource. They appear alongside the client's own request events in
+ * the "GATE Cloud" category. Every method does nothing if JFR is not
+ * available, and costs a single check if it is available but the event
+ * is not enabled. The "begin" methods return an opaque event object, or
+ * <code>null</code> if the event is disabled, which should be passed to
+ * the matching "end" method.
+ */
+public final class FlightRecorderEvents {
+
+  private FlightRecorderEvents() {
+  }
+
+  /**
+   * Start timing a <code>uk.ac.gate.cloud.pr.ServiceCall</code> event,
+   * covering the sending of a document to a GATE Cloud API endpoint,
+   * including any rate limit wait, until the response starts.
+   */
+  public static Object beginServiceCall() {
+    return JfrSupport.AVAILABLE ? JfrSupport.EVENTS.beginServiceCall() : null;
+  }
+
+  /**
+   * Finish and commit a service call event.
+   * 
+   * @param event the object returned by {@link #beginServiceCall()}
+   * @param endpoint the URL of the endpoint that was called
+   * @param document the name of the document
+   * @param mimeType the MIME type the document was sent as
+   * @param succeeded did the call succeed?
+   */
+  public static void endServiceCall(Object event, String endpoint,
+          String document, String mimeType, boolean succeeded) {
+    if(event != null) {
+      JfrSupport.EVENTS.endServiceCall(event, endpoint, document, mimeType,
+              succeeded);
+    }
+  }
+
+  /**
+   * Start timing a <code>uk.ac.gate.cloud.pr.AnnotationParse</code>
+   * event, covering the reading of the annotations returned by the
+   * service into a document.
+   */
+  public static Object beginAnnotationParse() {
+    return JfrSupport.AVAILABLE
+            ? JfrSupport.EVENTS.beginAnnotationParse()
+            : null;
+  }
+
+  /**
+   * Finish and commit an annotation parse event.
+   * 
+   * @param event the object returned by {@link #beginAnnotationParse()}
+   * @param document the name of the document
+   * @param annotationSets the number of annotation sets read
+   * @param documentLength the length of the document content
+   */
+  public static void endAnnotationParse(Object event, String document,
+          int annotationSets, long documentLength) {
+    if(event != null) {
+      JfrSupport.EVENTS.endAnnotationParse(event, document, annotationSets,
+              documentLength);
+    }
+  }
+}
@@ -30,16 +30,26 @@ import org.apache.commons.io.output.ThresholdingOutputStream;
  * threshold is reached, then the data is sent as-is, otherwise the
  * "Content-Encoding" header is set on the connection and the data is
  * sent with GZIP compression.
+ * 
+ * @deprecated {@link RestClient} now uses a
+ *             {@link CompressingOutputStream}, which also considers
+ *             how compressible the data is before compressing it.
  */
+@Deprecated
 public class GZIPThresholdOutputStream extends ThresholdingOutputStream {
 
-  private HttpURLConnection connection;
+  private TransportConnection connection;
 
   private ByteArrayOutputStream buffer;
 
   private OutputStream currentStream;
 
   public GZIPThresholdOutputStream(HttpURLConnection connection, int threshold) {
+    this(new UrlConnectionTransport.Connection(connection), threshold);
+  }
+
+  public GZIPThresholdOutputStream(TransportConnection connection,
+          int threshold) {
     super(threshold);
     this.connection = connection;
     buffer = new ByteArrayOutputStream(threshold);
@@ -56,10 +66,12 @@ public class GZIPThresholdOutputStream extends ThresholdingOutputStream {
   protected void thresholdReached() throws IOException {
     // add header
     connection.setRequestProperty("Content-Encoding", "gzip");
+    // compressed length is unknown, so the body will be chunked
+    connection.setContentLength(-1);
     // wrap output stream in GZIP
     currentStream = new GZIPOutputStream(connection.getOutputStream());
     // send buffered data
-    currentStream.write(buffer.toByteArray());
+    buffer.writeTo(currentStream);
     // from now on, we are writing directly to the connection
     buffer = null;
   }
@@ -68,9 +80,10 @@ public class GZIPThresholdOutputStream extends ThresholdingOutputStream {
   public void close() throws IOException {
     if(buffer != null) {
       // we have finished writing data without hitting the threshold, so
-      // send it uncompressed
+      // send it uncompressed, and we now know its exact length
+      connection.setContentLength(buffer.size());
       currentStream = connection.getOutputStream();
-      currentStream.write(buffer.toByteArray());
+      buffer.writeTo(currentStream);
     }
     super.close();
   }
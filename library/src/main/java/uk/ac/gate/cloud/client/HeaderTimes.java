@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * Utility methods to interpret HTTP response headers that specify a
+ * point in time, such as <code>Retry-After</code> and the GATE Cloud
+ * <code>X-GATE-Rate-Limit-Reset</code> header.
+ */
+class HeaderTimes {
+
+  private HeaderTimes() {
+  }
+
+  /**
+   * Work out how many milliseconds from now the given header value
+   * refers to. The value may be a number of seconds (as in
+   * <code>Retry-After</code>), a Unix timestamp in seconds or
+   * milliseconds, an HTTP date, or an ISO 8601 date/time.
+   * 
+   * @param value the header value, may be <code>null</code>
+   * @return the delay in milliseconds (zero if the time is in the
+   *         past), or -1 if the value is missing or not recognised.
+   */
+  static long delayMillis(String value) {
+    if(value == null) {
+      return -1;
+    }
+    value = value.trim();
+    long now = System.currentTimeMillis();
+    try {
+      long number = Long.parseLong(value);
+      if(number > 100000000000L) {
+        // Unix time in milliseconds
+        return Math.max(0, number - now);
+      } else if(number > 1000000000L) {
+        // Unix time in seconds
+        return Math.max(0, number * 1000 - now);
+      } else {
+        // delta seconds
+        return Math.max(0, number * 1000);
+      }
+    } catch(NumberFormatException e) {
+      // not a number, try dates
+    }
+    SimpleDateFormat httpDate =
+            new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+    httpDate.setTimeZone(TimeZone.getTimeZone("GMT"));
+    Date date = httpDate.parse(value, new ParsePosition(0));
+    if(date != null) {
+      return Math.max(0, date.getTime() - now);
+    }
+    try {
+      return Math.max(0, DatatypeConverter.parseDateTime(value)
+              .getTimeInMillis() - now);
+    } catch(IllegalArgumentException e) {
+      return -1;
+    }
+  }
+}
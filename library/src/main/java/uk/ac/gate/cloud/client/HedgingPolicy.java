@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Policy for hedging requests to reduce tail latency. When a request
+ * protected by a hedging policy has not received a response within a
+ * given percentile of recent response times, the {@link RestClient}
+ * sends a duplicate request and uses whichever response arrives first.
+ * The slower request is then cancelled by disconnecting it.
+ * <p>
+ * Hedges are limited by a budget - each request earns a fraction of a
+ * hedge (the {@link #getMaxHedgeRatio() hedge ratio}), so by default at
+ * most one request in ten is duplicated. A hedge also takes a call slot
+ * from any {@link RateLimiter} that applies to the request, and is only
+ * sent if a slot is available immediately, so hedging never delays
+ * other requests or exceeds the permitted rate. Likewise a hedge must
+ * be permitted by any {@link CircuitBreaker} for the endpoint.
+ * <p>
+ * Only requests whose body can be sent more than once are hedged
+ * (requests with no body, JSON bodies and {@link StreamWritable}
+ * bodies). The {@link RetryPolicy} still applies to hedged requests,
+ * treating the original request and its hedge together as one attempt:
+ * a response with a retryable status (such as 503 or 429) only wins if
+ * the other request does no better, and if neither succeeds the pair is
+ * retried after the policy's backoff. The hedge itself does not count
+ * towards the policy's maximum number of attempts.
+ */
+public class HedgingPolicy {
+
+  public static final double DEFAULT_PERCENTILE = 0.95;
+
+  public static final long DEFAULT_MIN_DELAY_MILLIS = 50L;
+
+  public static final double DEFAULT_MAX_HEDGE_RATIO = 0.1;
+
+  public static final int DEFAULT_SAMPLE_SIZE = 100;
+
+  public static final int DEFAULT_MIN_SAMPLES = 20;
+
+  /**
+   * Maximum number of unused hedges that can be saved up.
+   */
+  private static final double MAX_HEDGE_CREDIT = 10.0;
+
+  private double percentile = DEFAULT_PERCENTILE;
+
+  private long minDelayMillis = DEFAULT_MIN_DELAY_MILLIS;
+
+  private double maxHedgeRatio = DEFAULT_MAX_HEDGE_RATIO;
+
+  private int minSamples = DEFAULT_MIN_SAMPLES;
+
+  // state below is guarded by "this"
+
+  /**
+   * Ring buffer of recent response times in nanoseconds.
+   */
+  private final long[] samples;
+
+  private int next;
+
+  private int sampleCount;
+
+  private double hedgeCredit;
+
+  private long hedgesSent;
+
+  private long hedgesWon;
+
+  /**
+   * Create a policy with the default settings.
+   */
+  public HedgingPolicy() {
+    this(DEFAULT_SAMPLE_SIZE);
+  }
+
+  /**
+   * Create a policy that tracks the given number of recent response
+   * times.
+   */
+  public HedgingPolicy(int sampleSize) {
+    if(sampleSize < 1) {
+      throw new IllegalArgumentException("sampleSize must be at least 1");
+    }
+    this.samples = new long[sampleSize];
+  }
+
+  /**
+   * Record the start of a request that may be hedged, and return how
+   * long to wait for a response before sending a hedge.
+   * 
+   * @return the hedge delay in nanoseconds, or -1 if the request should
+   *         not be hedged because too few response times have been
+   *         recorded yet
+   */
+  public synchronized long hedgeDelayNanos() {
+    hedgeCredit = Math.min(MAX_HEDGE_CREDIT, hedgeCredit + maxHedgeRatio);
+    if(sampleCount < minSamples) {
+      return -1;
+    }
+    long[] sorted = Arrays.copyOf(samples, sampleCount);
+    Arrays.sort(sorted);
+    int index =
+            Math.min(sampleCount - 1,
+                    (int)Math.ceil(percentile * sampleCount) - 1);
+    return Math.max(TimeUnit.MILLISECONDS.toNanos(minDelayMillis),
+            sorted[Math.max(0, index)]);
+  }
+
+  /**
+   * Take a hedge from the budget, if one is available.
+   * 
+   * @return true if a hedge may be sent
+   */
+  public synchronized boolean tryHedge() {
+    if(hedgeCredit >= 1.0) {
+      hedgeCredit -= 1.0;
+      hedgesSent++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Record the time taken to receive the response to a request.
+   * 
+   * @param nanos the response time in nanoseconds
+   * @param hedgeWon true if the response came from a hedge rather than
+   *          the original request
+   */
+  public synchronized void recordResponse(long nanos, boolean hedgeWon) {
+    samples[next] = nanos;
+    next = (next + 1) % samples.length;
+    if(sampleCount < samples.length) {
+      sampleCount++;
+    }
+    if(hedgeWon) {
+      hedgesWon++;
+    }
+  }
+
+  /**
+   * Number of hedges that have been sent.
+   */
+  public synchronized long getHedgesSent() {
+    return hedgesSent;
+  }
+
+  /**
+   * Number of hedges whose response arrived before the original
+   * request's.
+   */
+  public synchronized long getHedgesWon() {
+    return hedgesWon;
+  }
+
+  /**
+   * Percentile of recent response times (between 0 and 1) after which
+   * a hedge is sent.
+   */
+  public double getPercentile() {
+    return percentile;
+  }
+
+  public void setPercentile(double percentile) {
+    this.percentile = percentile;
+  }
+
+  /**
+   * Minimum time in milliseconds to wait before sending a hedge,
+   * however quick recent responses have been.
+   */
+  public long getMinDelayMillis() {
+    return minDelayMillis;
+  }
+
+  public void setMinDelayMillis(long minDelayMillis) {
+    this.minDelayMillis = minDelayMillis;
+  }
+
+  /**
+   * Maximum proportion of requests that may be hedged.
+   */
+  public double getMaxHedgeRatio() {
+    return maxHedgeRatio;
+  }
+
+  public void setMaxHedgeRatio(double maxHedgeRatio) {
+    this.maxHedgeRatio = maxHedgeRatio;
+  }
+
+  /**
+   * Number of response times that must be recorded before any request
+   * is hedged.
+   */
+  public int getMinSamples() {
+    return minSamples;
+  }
+
+  public void setMinSamples(int minSamples) {
+    this.minSamples = minSamples;
+  }
+}
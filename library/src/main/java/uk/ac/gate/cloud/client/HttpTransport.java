@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * Service provider interface for the HTTP layer underneath a
+ * {@link RestClient}. A transport is responsible for creating
+ * {@link TransportConnection}s, and may pool or otherwise reuse the
+ * underlying network connections between requests. The default
+ * implementation is {@link UrlConnectionTransport}, which uses the
+ * standard <code>HttpURLConnection</code>; {@link PooledHttpTransport}
+ * offers explicit control over connection pooling.
+ */
+public interface HttpTransport extends Closeable {
+
+  /**
+   * Open a new connection for a single request to the given URL. The
+   * transport must not follow redirects automatically, the
+   * {@link RestClient} handles these itself.
+   *
+   * @param url the absolute URL to request
+   * @param method the request method (GET, POST, DELETE, etc.)
+   * @return a connection on which the request headers and body can be
+   *         set before reading the response
+   * @throws IOException if the connection cannot be opened
+   */
+  public TransportConnection open(URL url, String method) throws IOException;
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+/**
+ * Entry points for emitting the client's Java Flight Recorder events.
+ * When JFR is not available in the running JVM, or the library was
+ * built without its JFR events, every method does nothing, and when JFR
+ * is available but no recording has the events enabled, the cost is a
+ * single check per event. The "begin" methods return an opaque event
+ * object, or <code>null</code> if the event is disabled, which should
+ * be passed to the matching "end" method.
+ */
+final class JfrSupport {
+
+  /**
+   * The JFR event implementation, or <code>null</code> if JFR is not
+   * available.
+   */
+  static final FlightEvents EVENTS = load();
+
+  static final boolean AVAILABLE = EVENTS != null;
+
+  private JfrSupport() {
+  }
+
+  private static FlightEvents load() {
+    try {
+      Class.forName("jdk.jfr.Event");
+      return (FlightEvents)Class.forName(
+              "uk.ac.gate.cloud.client.JfrEvents").getDeclaredConstructor()
+              .newInstance();
+    } catch(ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+
+  static Object beginRequest() {
+    return AVAILABLE ? EVENTS.beginRequest() : null;
+  }
+
+  static void endRequest(Object event, RequestEvent request) {
+    if(event != null) {
+      EVENTS.endRequest(event, request);
+    }
+  }
+
+  static void redirect(int statusCode, String location) {
+    if(AVAILABLE) {
+      EVENTS.redirect(statusCode, location);
+    }
+  }
+
+  static Object beginCompression() {
+    return AVAILABLE ? EVENTS.beginCompression() : null;
+  }
+
+  static void endCompression(Object event, String contentType, int level,
+          long sampledBytes) {
+    if(event != null) {
+      EVENTS.endCompression(event, contentType, level, sampledBytes);
+    }
+  }
+
+  static Object beginRateLimitWait() {
+    return AVAILABLE ? EVENTS.beginRateLimitWait() : null;
+  }
+
+  static void endRateLimitWait(Object event, String url) {
+    if(event != null) {
+      EVENTS.endRateLimitWait(event, url);
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent histogram of durations with a fixed set of log-linear
+ * buckets, accurate to within about 6%. Recording a value does not
+ * allocate or lock, so it is cheap enough to use on every request.
+ * Durations from 1 microsecond up to several days are supported, longer
+ * values are counted in the highest bucket.
+ */
+public class LatencyHistogram {
+
+  /**
+   * Number of sub-buckets for each power of two, as a power of two.
+   */
+  private static final int SUB_BUCKET_BITS = 3;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * Values below this (in microseconds) each have their own bucket.
+   */
+  private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+
+  private static final int MAX_EXPONENT = 40;
+
+  /**
+   * Buckets for every exponent below <code>MAX_EXPONENT</code>, plus one
+   * for the values that are too large.
+   */
+  static final int BUCKETS = LINEAR_LIMIT
+          + (MAX_EXPONENT - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  private final LongAdder count = new LongAdder();
+
+  private final LongAdder totalMicros = new LongAdder();
+
+  private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Record a duration.
+   * 
+   * @param nanos the duration in nanoseconds
+   */
+  public void record(long nanos) {
+    long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+    counts.incrementAndGet(bucket(micros));
+    count.increment();
+    totalMicros.add(micros);
+    maxMicros.accumulate(micros);
+  }
+
+  static int bucket(long micros) {
+    if(micros < LINEAR_LIMIT) {
+      return (int)micros;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(micros);
+    if(exponent >= MAX_EXPONENT) {
+      return BUCKETS - 1;
+    }
+    int sub = (int)(micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * The midpoint of the range of values counted in the given bucket,
+   * in microseconds.
+   */
+  static long value(int bucket) {
+    if(bucket < LINEAR_LIMIT) {
+      return bucket;
+    }
+    int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+    int sub = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+    long width = 1L << (exponent - SUB_BUCKET_BITS);
+    return (1L << exponent) + sub * width + width / 2;
+  }
+
+  /**
+   * Number of durations recorded.
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * The mean duration in nanoseconds, or 0 if nothing has been
+   * recorded.
+   */
+  public long getMeanNanos() {
+    long n = count.sum();
+    return n == 0 ? 0 : TimeUnit.MICROSECONDS.toNanos(totalMicros.sum() / n);
+  }
+
+  /**
+   * The longest duration recorded, in nanoseconds.
+   */
+  public long getMaxNanos() {
+    return TimeUnit.MICROSECONDS.toNanos(maxMicros.get());
+  }
+
+  /**
+   * Estimate the given percentile of the recorded durations.
+   * 
+   * @param percentile the percentile, between 0 and 1 (e.g. 0.99 for the
+   *          99th percentile)
+   * @return the estimated duration in nanoseconds, or 0 if nothing has
+   *         been recorded
+   */
+  public long getPercentileNanos(double percentile) {
+    long total = 0;
+    long[] snapshot = new long[BUCKETS];
+    for(int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if(total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long)Math.ceil(percentile * total));
+    long seen = 0;
+    for(int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if(seen >= rank) {
+        return TimeUnit.MICROSECONDS.toNanos(Math.min(value(i),
+                maxMicros.get()));
+      }
+    }
+    return getMaxNanos();
+  }
+}
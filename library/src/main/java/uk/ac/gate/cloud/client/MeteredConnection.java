@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link TransportConnection} wrapper that measures a request and
+ * reports it to the client's {@link RestClientListener}s and, when it
+ * is being recorded, as a Java Flight Recorder event. The request is
+ * complete once its response body has been read to the end or
+ * closed, it fails, or the connection is disconnected.
+ */
+class MeteredConnection implements TransportConnection {
+
+  private final TransportConnection delegate;
+
+  private final RequestEvent event;
+
+  private final List<RestClientListener> listeners;
+
+  private final Object flightEvent;
+
+  private final long start;
+
+  private final AtomicBoolean completed = new AtomicBoolean();
+
+  MeteredConnection(TransportConnection delegate, RequestEvent event,
+          List<RestClientListener> listeners, Object flightEvent) {
+    this.delegate = delegate;
+    this.event = event;
+    this.listeners = listeners;
+    this.flightEvent = flightEvent;
+    for(RestClientListener l : listeners) {
+      try {
+        l.requestStarted(event);
+      } catch(RuntimeException e) {
+        // ignore
+      }
+    }
+    this.start = System.nanoTime();
+  }
+
+  @Override
+  public void setRequestProperty(String name, String value) {
+    delegate.setRequestProperty(name, value);
+  }
+
+  @Override
+  public void setTimeouts(int connectTimeoutMillis, int readTimeoutMillis) {
+    delegate.setTimeouts(connectTimeoutMillis, readTimeoutMillis);
+  }
+
+  @Override
+  public void setContentLength(long contentLength) {
+    delegate.setContentLength(contentLength);
+  }
+
+  @Override
+  public OutputStream getOutputStream() throws IOException {
+    return new FilterOutputStream(delegate.getOutputStream()) {
+      @Override
+      public void write(int b) throws IOException {
+        out.write(b);
+        event.bytesSent++;
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        event.bytesSent += len;
+      }
+    };
+  }
+
+  @Override
+  public int getResponseCode() throws IOException {
+    try {
+      int code = delegate.getResponseCode();
+      receivedHeaders(code);
+      return code;
+    } catch(IOException | RuntimeException e) {
+      failed(e);
+      throw e;
+    }
+  }
+
+  @Override
+  public CompletableFuture<Integer> getResponseCodeAsync(Executor executor) {
+    return delegate.getResponseCodeAsync(executor).whenComplete(
+            (code, error) -> {
+              if(error == null) {
+                receivedHeaders(code);
+              } else {
+                failed(error);
+              }
+            });
+  }
+
+  private void receivedHeaders(int code) {
+    if(event.statusCode == 0) {
+      event.statusCode = code;
+      event.headersNanos = System.nanoTime() - start;
+      if(code == 204 || code == 304 || "HEAD".equals(event.getMethod())) {
+        // no body to wait for
+        complete();
+      }
+    }
+  }
+
+  @Override
+  public String getHeaderField(String name) {
+    return delegate.getHeaderField(name);
+  }
+
+  @Override
+  public Map<String, List<String>> getHeaderFields() {
+    return delegate.getHeaderFields();
+  }
+
+  @Override
+  public String getContentEncoding() {
+    return delegate.getContentEncoding();
+  }
+
+  @Override
+  public InputStream getInputStream() throws IOException {
+    return meter(delegate.getInputStream());
+  }
+
+  @Override
+  public InputStream getErrorStream() {
+    InputStream stream = delegate.getErrorStream();
+    return stream == null ? null : meter(stream);
+  }
+
+  @Override
+  public void disconnect() {
+    delegate.disconnect();
+    complete();
+  }
+
+  /**
+   * Record that the request failed with the given error.
+   */
+  void failed(Throwable error) {
+    event.error = error;
+    complete();
+  }
+
+  private void complete() {
+    if(completed.compareAndSet(false, true)) {
+      event.durationNanos = System.nanoTime() - start;
+      JfrSupport.endRequest(flightEvent, event);
+      for(RestClientListener l : listeners) {
+        try {
+          l.requestCompleted(event);
+        } catch(RuntimeException e) {
+          // ignore
+        }
+      }
+    }
+  }
+
+  /**
+   * Wrap a response stream to count the bytes read and complete the
+   * request at the end of the stream or when it is closed.
+   */
+  private InputStream meter(InputStream stream) {
+    return new FilterInputStream(stream) {
+      @Override
+      public int read() throws IOException {
+        int b = in.read();
+        if(b < 0) {
+          complete();
+        } else {
+          event.bytesReceived++;
+        }
+        return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if(n < 0) {
+          complete();
+        } else {
+          event.bytesReceived += n;
+        }
+        return n;
+      }
+
+      @Override
+      public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        event.bytesReceived += skipped;
+        return skipped;
+      }
+
+      @Override
+      public void close() throws IOException {
+        try {
+          in.close();
+        } finally {
+          complete();
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * {@link RestClientListener} that collects request metrics for each
+ * combination of HTTP method and endpoint - request, error and retry
+ * counts, bytes sent and received, status code classes, and a
+ * {@link LatencyHistogram} of request durations. Endpoints are
+ * identified by their URL without the query string, and with any purely
+ * numeric path segments (such as job or bundle IDs) replaced by
+ * <code>{id}</code>, so requests for different objects of the same
+ * kind are counted together.
+ * <p>
+ * Typical usage:
+ * 
+ * <pre>
+ * MetricsCollector metrics = new MetricsCollector();
+ * client.addListener(metrics);
+ * // ... make requests ...
+ * System.out.println(metrics.toJson());
+ * </pre>
+ */
+public class MetricsCollector implements RestClientListener {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final ConcurrentMap<String, EndpointMetrics> metrics =
+          new ConcurrentHashMap<>();
+
+  /**
+   * Metrics for a single method and endpoint.
+   */
+  public static class EndpointMetrics {
+
+    private final String method;
+
+    private final String endpoint;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder bytesSent = new LongAdder();
+
+    private final LongAdder bytesReceived = new LongAdder();
+
+    /**
+     * Counts of responses by status class - index 0 counts requests
+     * with no response, 1 to 5 count 1xx to 5xx responses.
+     */
+    private final AtomicLongArray statusClasses = new AtomicLongArray(6);
+
+    EndpointMetrics(String method, String endpoint) {
+      this.method = method;
+      this.endpoint = endpoint;
+    }
+
+    void record(RequestEvent event) {
+      latency.record(event.getDurationNanos());
+      if(event.getError() != null) {
+        errors.increment();
+      }
+      if(event.getAttempt() > 1) {
+        retries.increment();
+      }
+      bytesSent.add(event.getBytesSent());
+      bytesReceived.add(event.getBytesReceived());
+      int statusClass = event.getStatusCode() / 100;
+      statusClasses.incrementAndGet(statusClass >= 1 && statusClass <= 5
+              ? statusClass
+              : 0);
+    }
+
+    public String getMethod() {
+      return method;
+    }
+
+    public String getEndpoint() {
+      return endpoint;
+    }
+
+    /**
+     * Histogram of request durations, from opening the connection to
+     * reading the end of the response.
+     */
+    public LatencyHistogram getLatency() {
+      return latency;
+    }
+
+    /**
+     * Number of requests, including retries.
+     */
+    public long getCount() {
+      return latency.getCount();
+    }
+
+    /**
+     * Number of requests that failed with an exception rather than
+     * receiving a response.
+     */
+    public long getErrors() {
+      return errors.sum();
+    }
+
+    /**
+     * Number of requests that were retries of an earlier attempt.
+     */
+    public long getRetries() {
+      return retries.sum();
+    }
+
+    public long getBytesSent() {
+      return bytesSent.sum();
+    }
+
+    public long getBytesReceived() {
+      return bytesReceived.sum();
+    }
+
+    /**
+     * Number of responses with the given status class.
+     * 
+     * @param statusClass the class, 1 to 5 for 1xx to 5xx responses, or
+     *          0 for requests that received no response
+     */
+    public long getStatusCount(int statusClass) {
+      return statusClasses.get(statusClass);
+    }
+  }
+
+  @Override
+  public void requestCompleted(RequestEvent event) {
+    String endpoint = endpoint(event.getUrl());
+    String key = event.getMethod() + " " + endpoint;
+    EndpointMetrics m = metrics.get(key);
+    if(m == null) {
+      m = metrics.computeIfAbsent(key,
+              k -> new EndpointMetrics(event.getMethod(), endpoint));
+    }
+    m.record(event);
+  }
+
+  /**
+   * Normalize a request URL to identify its endpoint.
+   */
+  static String endpoint(String url) {
+    int query = url.indexOf('?');
+    if(query >= 0) {
+      url = url.substring(0, query);
+    }
+    int pathStart = url.indexOf('/', url.indexOf("//") + 2);
+    if(pathStart < 0 || !hasNumericSegment(url, pathStart)) {
+      return url;
+    }
+    StringBuilder buf = new StringBuilder(url.length());
+    buf.append(url, 0, pathStart);
+    int segmentStart = pathStart + 1;
+    for(int i = segmentStart; i <= url.length(); i++) {
+      if(i == url.length() || url.charAt(i) == '/') {
+        buf.append('/');
+        if(i > segmentStart && isNumeric(url, segmentStart, i)) {
+          buf.append("{id}");
+        } else {
+          buf.append(url, segmentStart, i);
+        }
+        segmentStart = i + 1;
+      }
+    }
+    return buf.toString();
+  }
+
+  private static boolean hasNumericSegment(String url, int pathStart) {
+    int segmentStart = pathStart + 1;
+    for(int i = segmentStart; i <= url.length(); i++) {
+      if(i == url.length() || url.charAt(i) == '/') {
+        if(i > segmentStart && isNumeric(url, segmentStart, i)) {
+          return true;
+        }
+        segmentStart = i + 1;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isNumeric(String s, int start, int end) {
+    for(int i = start; i < end; i++) {
+      if(s.charAt(i) < '0' || s.charAt(i) > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get the metrics collected so far, one entry for each method and
+   * endpoint.
+   */
+  public Collection<EndpointMetrics> getMetrics() {
+    return Collections.unmodifiableCollection(metrics.values());
+  }
+
+  /**
+   * Discard all the metrics collected so far.
+   */
+  public void reset() {
+    metrics.clear();
+  }
+
+  /**
+   * Build a JSON representation of the metrics collected so far. Times
+   * are given in milliseconds.
+   */
+  public ObjectNode toJsonNode() {
+    ObjectNode root = MAPPER.createObjectNode();
+    ArrayNode endpoints = root.putArray("endpoints");
+    List<EndpointMetrics> sorted = new ArrayList<>(metrics.values());
+    sorted.sort((a, b) -> {
+      int c = a.endpoint.compareTo(b.endpoint);
+      return c != 0 ? c : a.method.compareTo(b.method);
+    });
+    for(EndpointMetrics m : sorted) {
+      ObjectNode node = endpoints.addObject();
+      node.put("method", m.getMethod());
+      node.put("endpoint", m.getEndpoint());
+      node.put("count", m.getCount());
+      node.put("errors", m.getErrors());
+      node.put("retries", m.getRetries());
+      node.put("bytesSent", m.getBytesSent());
+      node.put("bytesReceived", m.getBytesReceived());
+      ObjectNode status = node.putObject("status");
+      for(int i = 0; i <= 5; i++) {
+        long n = m.getStatusCount(i);
+        if(n > 0) {
+          status.put(i == 0 ? "none" : i + "xx", n);
+        }
+      }
+      LatencyHistogram h = m.getLatency();
+      ObjectNode latency = node.putObject("latencyMillis");
+      latency.put("p50", millis(h.getPercentileNanos(0.5)));
+      latency.put("p90", millis(h.getPercentileNanos(0.9)));
+      latency.put("p99", millis(h.getPercentileNanos(0.99)));
+      latency.put("max", millis(h.getMaxNanos()));
+      latency.put("mean", millis(h.getMeanNanos()));
+    }
+    return root;
+  }
+
+  private static double millis(long nanos) {
+    return nanos / (double)TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * Get the metrics collected so far as a JSON string.
+   */
+  public String toJson() {
+    try {
+      return MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(
+              toJsonNode());
+    } catch(JsonProcessingException e) {
+      // can't happen when writing a tree to a string
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Write the metrics collected so far as JSON to the given stream. The
+   * stream is not closed.
+   */
+  public void writeJson(OutputStream out) throws IOException {
+    MAPPER.writerWithDefaultPrettyPrinter()
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .writeValue(out, toJsonNode());
+  }
+}
@@ -0,0 +1,844 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ConnectionClosedException;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.http.nio.support.classic.ContentInputStream;
+import org.apache.hc.core5.http.nio.support.classic.ContentOutputStream;
+import org.apache.hc.core5.http.nio.support.classic.SharedInputBuffer;
+import org.apache.hc.core5.http.nio.support.classic.SharedOutputBuffer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.H2ConnectionException;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.http2.impl.nio.ProtocolNegotiationException;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * {@link HttpTransport} that keeps a pool of persistent connections,
+ * with a configurable maximum number of connections per host, a
+ * keep-alive limit, and eviction of connections that have been idle for
+ * too long. This avoids paying the TCP and TLS setup costs on every
+ * request when making large numbers of calls to the same API.
+ * <p>
+ * This implementation is based on the Apache HttpComponents
+ * asynchronous client, which is an <em>optional</em> dependency of this
+ * library - applications that wish to use this transport must add
+ * <code>org.apache.httpcomponents.client5:httpclient5</code> to their
+ * own dependencies. Request and response bodies are streamed through
+ * bounded buffers, so large documents are never held in memory in
+ * full.
+ * <p>
+ * In {@link Protocol#HTTP_2 HTTP/2} mode, requests to hosts that
+ * support HTTP/2 are multiplexed as concurrent streams over a single
+ * connection per host, so large numbers of concurrent
+ * {@link uk.ac.gate.cloud.online.ApiEndpoint#call ApiEndpoint calls} do
+ * not each need a socket of their own. The first request to each host
+ * sends a lightweight <code>OPTIONS</code> probe to check that HTTP/2
+ * is available, and if it is not then all requests to that host fall
+ * back to the HTTP/1.1 connection pool. Requests never wait for the
+ * probe for longer than the {@link #getProbeTimeoutMillis() probe
+ * timeout} or their own connect timeout, whichever is shorter - if the
+ * probe has not finished by then the request is sent over HTTP/1.1.
+ * Note that HTTP/2 over TLS
+ * requires a JVM with ALPN support (Java 8u252 or later).
+ * <p>
+ * Transports hold background I/O threads and should be
+ * {@link #close() closed} when no longer required.
+ */
+public class PooledHttpTransport implements HttpTransport {
+
+  /**
+   * HTTP protocol versions that this transport can use.
+   */
+  public static enum Protocol {
+    /**
+     * Always use HTTP/1.1, with one request per pooled connection at a
+     * time.
+     */
+    HTTP_1_1,
+
+    /**
+     * Multiplex requests over HTTP/2 where the server supports it,
+     * falling back to HTTP/1.1 for servers that do not.
+     */
+    HTTP_2
+  }
+
+  /**
+   * Default maximum number of concurrent connections to any one host.
+   */
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+
+  /**
+   * Default maximum time to keep an idle connection alive for reuse, if
+   * the server does not specify a shorter time itself.
+   */
+  public static final long DEFAULT_KEEP_ALIVE_MILLIS = 60000L;
+
+  /**
+   * Default interval after which idle connections are evicted from the
+   * pool.
+   */
+  public static final long DEFAULT_MAX_IDLE_MILLIS = 30000L;
+
+  /**
+   * Default time allowed for the HTTP/2 probe of each host.
+   */
+  public static final int DEFAULT_PROBE_TIMEOUT_MILLIS = 5000;
+
+  /**
+   * How long to use HTTP/1.1 for a host whose HTTP/2 probe failed for a
+   * reason other than a protocol error (a timeout, a reset connection,
+   * a TLS failure) before probing it again.
+   */
+  private static final long PROBE_RETRY_MILLIS = 60000L;
+
+  /**
+   * Size of the buffers used to stream request and response bodies
+   * between the caller's thread and the I/O thread.
+   */
+  private static final int BUFFER_SIZE = 65536;
+
+  private CloseableHttpAsyncClient httpClient;
+
+  /**
+   * Multiplexing HTTP/2 client, <code>null</code> in HTTP/1.1 mode.
+   */
+  private CloseableHttpAsyncClient h2Client;
+
+  /**
+   * Result of the HTTP/2 probe for each host (scheme and authority) this
+   * transport has talked to, <code>true</code> if the host supports
+   * HTTP/2.
+   */
+  private final ConcurrentMap<String, Probe> h2Support =
+          new ConcurrentHashMap<>();
+
+  private volatile int probeTimeoutMillis = DEFAULT_PROBE_TIMEOUT_MILLIS;
+
+  /**
+   * Create a transport with the default pool settings.
+   */
+  public PooledHttpTransport() {
+    this(DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_KEEP_ALIVE_MILLIS,
+            DEFAULT_MAX_IDLE_MILLIS);
+  }
+
+  /**
+   * Create a transport using the given protocol, with the default pool
+   * settings.
+   */
+  public PooledHttpTransport(Protocol protocol) {
+    this(protocol, DEFAULT_MAX_CONNECTIONS_PER_HOST,
+            DEFAULT_KEEP_ALIVE_MILLIS, DEFAULT_MAX_IDLE_MILLIS);
+  }
+
+  /**
+   * Create a transport with the given pool settings.
+   *
+   * @param maxConnectionsPerHost maximum number of concurrent
+   *          connections to any one host. Requests beyond this limit
+   *          will wait for a connection to be released. The total limit
+   *          across all hosts is twice this value, to allow for
+   *          downloads from the storage host alongside the API host.
+   * @param keepAliveMillis maximum time to keep a connection open for
+   *          reuse after a response, if the server does not specify a
+   *          shorter time with a <code>Keep-Alive</code> header.
+   * @param maxIdleMillis connections that have been idle in the pool
+   *          for longer than this will be closed by a background
+   *          evictor.
+   */
+  public PooledHttpTransport(int maxConnectionsPerHost, long keepAliveMillis,
+          long maxIdleMillis) {
+    this(Protocol.HTTP_1_1, maxConnectionsPerHost, keepAliveMillis,
+            maxIdleMillis);
+  }
+
+  /**
+   * Create a transport with the given protocol and pool settings.
+   *
+   * @param protocol the HTTP protocol version to use
+   * @param maxConnectionsPerHost maximum number of concurrent HTTP/1.1
+   *          connections to any one host. HTTP/2 always uses a single
+   *          connection per host, with the number of concurrent streams
+   *          limited by the server.
+   * @param keepAliveMillis maximum time to keep an HTTP/1.1 connection
+   *          open for reuse after a response, if the server does not
+   *          specify a shorter time.
+   * @param maxIdleMillis connections that have been idle for longer
+   *          than this will be closed by a background evictor.
+   */
+  public PooledHttpTransport(Protocol protocol, int maxConnectionsPerHost,
+          long keepAliveMillis, long maxIdleMillis) {
+    PoolingAsyncClientConnectionManager connectionManager =
+            PoolingAsyncClientConnectionManagerBuilder.create()
+                    .setMaxConnPerRoute(maxConnectionsPerHost)
+                    .setMaxConnTotal(maxConnectionsPerHost * 2).build();
+    final TimeValue keepAlive = TimeValue.ofMilliseconds(keepAliveMillis);
+    ConnectionKeepAliveStrategy keepAliveStrategy =
+            (response, context) -> {
+              // honour the server's keep-alive timeout if it is shorter
+              TimeValue serverKeepAlive =
+                      DefaultConnectionKeepAliveStrategy.INSTANCE
+                              .getKeepAliveDuration(response, context);
+              return serverKeepAlive.min(keepAlive);
+            };
+    httpClient =
+            HttpAsyncClients.custom().setConnectionManager(connectionManager)
+                    .setKeepAliveStrategy(keepAliveStrategy)
+                    .evictIdleConnections(
+                            TimeValue.ofMilliseconds(maxIdleMillis))
+                    .evictExpiredConnections()
+                    // redirects are followed by RestClient itself, and
+                    // authentication is sent pre-emptively
+                    .disableRedirectHandling().disableAutomaticRetries()
+                    .disableCookieManagement().disableAuthCaching().build();
+    httpClient.start();
+    if(protocol == Protocol.HTTP_2) {
+      h2Client =
+              H2AsyncClientBuilder.create()
+                      .setH2Config(H2Config.custom().setPushEnabled(false)
+                              .build())
+                      // the probe is the only request without its own
+                      // connect timeout
+                      .setConnectionConfigResolver(host -> ConnectionConfig
+                              .custom()
+                              .setConnectTimeout(Timeout
+                                      .ofMilliseconds(probeTimeoutMillis))
+                              .build())
+                      .evictIdleConnections(
+                              TimeValue.ofMilliseconds(maxIdleMillis))
+                      .disableRedirectHandling().disableAutomaticRetries()
+                      .disableCookieManagement().disableAuthCaching().build();
+      h2Client.start();
+    }
+  }
+
+  /**
+   * Get the protocol this transport was configured to use.
+   */
+  public Protocol getProtocol() {
+    return h2Client == null ? Protocol.HTTP_1_1 : Protocol.HTTP_2;
+  }
+
+  /**
+   * Maximum time allowed for the HTTP/2 probe of a host, in
+   * milliseconds. A probe that has not finished in this time is
+   * abandoned and the host is treated as HTTP/1.1 for a while before
+   * being probed again.
+   */
+  public int getProbeTimeoutMillis() {
+    return probeTimeoutMillis;
+  }
+
+  public void setProbeTimeoutMillis(int probeTimeoutMillis) {
+    if(probeTimeoutMillis < 1) {
+      throw new IllegalArgumentException("probeTimeoutMillis must be positive");
+    }
+    this.probeTimeoutMillis = probeTimeoutMillis;
+  }
+
+  /**
+   * Choose the client to use for the given request - the HTTP/2 client
+   * if we are in HTTP/2 mode and the target host supports it, otherwise
+   * the HTTP/1.1 pool. The first request to each host waits for the
+   * result of the HTTP/2 probe, but no longer than the probe timeout or
+   * the request's own connect timeout, and not after the request has
+   * been disconnected.
+   * 
+   * @param connectTimeoutMillis the request's connect timeout, zero for
+   *          none
+   * @param disconnected completed if the request is disconnected
+   *          (cancelled or past its deadline) while waiting
+   */
+  private CloseableHttpAsyncClient clientFor(BasicHttpRequest request,
+          int connectTimeoutMillis, CompletableFuture<Void> disconnected)
+          throws IOException {
+    if(h2Client == null) {
+      return httpClient;
+    }
+    String host = request.getScheme() + "://" + request.getAuthority();
+    Probe probe = h2Support.get(host);
+    if(probe != null && probe.isStale()) {
+      h2Support.remove(host, probe);
+      probe = null;
+    }
+    if(probe == null) {
+      Probe newProbe = new Probe();
+      probe = h2Support.putIfAbsent(host, newProbe);
+      if(probe == null) {
+        probe = newProbe;
+        probeHttp2(host, request, probe);
+      }
+    }
+    long waitMillis = probeTimeoutMillis - probe.elapsedMillis();
+    if(connectTimeoutMillis > 0) {
+      waitMillis = Math.min(waitMillis, connectTimeoutMillis);
+    }
+    try {
+      CompletableFuture.anyOf(probe.result, disconnected).get(
+              Math.max(waitMillis, 0), TimeUnit.MILLISECONDS);
+    } catch(TimeoutException e) {
+      // handled below
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for HTTP/2 probe");
+    } catch(ExecutionException e) {
+      // neither future is ever completed exceptionally
+      throw new IOException(e.getCause());
+    }
+    if(disconnected.isDone()) {
+      throw new InterruptedIOException("Request was cancelled");
+    }
+    if(!probe.result.isDone()) {
+      if(probe.elapsedMillis() >= probeTimeoutMillis) {
+        probe.abandon();
+      }
+      // don't hold this request up any longer
+      return httpClient;
+    }
+    return probe.result.join() ? h2Client : httpClient;
+  }
+
+  /**
+   * Send an <code>OPTIONS *</code> request to the given host over
+   * HTTP/2. Any response at all (whatever its status code) shows that
+   * the host speaks HTTP/2, whereas a protocol failure means it does
+   * not. If the host could not be reached at all then the result is not
+   * remembered, so the next request will probe again, and if the probe
+   * failed for any other reason then the host is probed again after
+   * {@link #PROBE_RETRY_MILLIS}.
+   */
+  private void probeHttp2(String host, BasicHttpRequest request, Probe probe) {
+    SimpleHttpRequest options =
+            SimpleRequestBuilder.options()
+                    .setHttpHost(new HttpHost(request.getScheme(),
+                            request.getAuthority()))
+                    .setPath("*").build();
+    probe.exchange =
+            h2Client.execute(SimpleRequestProducer.create(options),
+                    SimpleResponseConsumer.create(), HttpClientContext.create(),
+                    new FutureCallback<SimpleHttpResponse>() {
+                      @Override
+                      public void completed(SimpleHttpResponse response) {
+                        probe.result.complete(Boolean.TRUE);
+                      }
+
+                      @Override
+                      public void failed(Exception ex) {
+                        if(ex instanceof ConnectException
+                                || ex instanceof UnknownHostException) {
+                          h2Support.remove(host, probe);
+                          probe.result.complete(Boolean.FALSE);
+                        } else if(isProtocolFailure(ex)) {
+                          probe.result.complete(Boolean.FALSE);
+                        } else {
+                          probe.retryLater();
+                        }
+                      }
+
+                      @Override
+                      public void cancelled() {
+                        probe.retryLater();
+                      }
+                    });
+  }
+
+  /**
+   * Does this probe failure show that the host does not speak HTTP/2?
+   * An HTTP/1.1 server typically closes the connection when it receives
+   * the HTTP/2 preface, or replies with something that is not a valid
+   * HTTP/2 frame, and a TLS server that does not offer HTTP/2 fails
+   * the ALPN negotiation.
+   */
+  private static boolean isProtocolFailure(Exception ex) {
+    return ex instanceof HttpException
+            || ex instanceof ConnectionClosedException
+            || ex instanceof H2ConnectionException
+            || ex instanceof ProtocolNegotiationException;
+  }
+
+  /**
+   * The HTTP/2 probe of one host.
+   */
+  private static class Probe {
+    /**
+     * Completed with <code>true</code> if the host supports HTTP/2.
+     */
+    final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+    final long startNanos = System.nanoTime();
+
+    volatile Future<SimpleHttpResponse> exchange;
+
+    /**
+     * <code>System.nanoTime()</code> value after which a negative result
+     * should be checked again, only meaningful if
+     * <code>retry</code> is set.
+     */
+    private volatile long retryAtNanos;
+
+    private volatile boolean retry;
+
+    long elapsedMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Treat the host as HTTP/1.1 for now, but probe it again later.
+     */
+    void retryLater() {
+      retryAtNanos =
+              System.nanoTime()
+                      + TimeUnit.MILLISECONDS.toNanos(PROBE_RETRY_MILLIS);
+      retry = true;
+      result.complete(Boolean.FALSE);
+    }
+
+    /**
+     * Give up on a probe that has taken too long.
+     */
+    void abandon() {
+      retryLater();
+      Future<SimpleHttpResponse> f = exchange;
+      if(f != null) {
+        f.cancel(true);
+      }
+    }
+
+    boolean isStale() {
+      return retry && System.nanoTime() - retryAtNanos >= 0;
+    }
+  }
+
+  @Override
+  public TransportConnection open(URL url, String method) throws IOException {
+    try {
+      return new PooledConnection(new BasicHttpRequest(method, url.toURI()));
+    } catch(URISyntaxException e) {
+      throw new IOException("Invalid request URL " + url, e);
+    }
+  }
+
+  /**
+   * Shut down the I/O thread and close all pooled connections.
+   */
+  @Override
+  public void close() {
+    httpClient.close(CloseMode.GRACEFUL);
+    if(h2Client != null) {
+      h2Client.close(CloseMode.GRACEFUL);
+    }
+  }
+
+  /**
+   * A single exchange on the pooled client. The request is not sent
+   * until the body is opened or the response is requested, at which
+   * point the headers are committed. Body data passes through shared
+   * buffers to and from the client's I/O thread, blocking the caller
+   * when the buffers are full (or empty) so memory use is bounded.
+   */
+  private class PooledConnection implements TransportConnection {
+
+    private BasicHttpRequest request;
+
+    private Future<Void> exchange;
+
+    private SharedOutputBuffer outputBuffer;
+
+    private final SharedInputBuffer inputBuffer =
+            new SharedInputBuffer(BUFFER_SIZE);
+
+    private final CompletableFuture<Void> responseReceived =
+            new CompletableFuture<>();
+
+    private volatile int responseCode;
+
+    private volatile Map<String, List<String>> responseHeaders =
+            Collections.emptyMap();
+
+    private volatile FutureCallback<Void> resultCallback;
+
+    private long contentLength = -1;
+
+    private RequestConfig requestConfig;
+
+    private int connectTimeoutMillis;
+
+    /**
+     * Completed when this connection is disconnected, to stop a wait for
+     * the HTTP/2 probe.
+     */
+    private final CompletableFuture<Void> disconnected =
+            new CompletableFuture<>();
+
+    PooledConnection(BasicHttpRequest request) {
+      this.request = request;
+    }
+
+    @Override
+    public void setRequestProperty(String name, String value) {
+      if(exchange != null) {
+        throw new IllegalStateException("Request has already been sent");
+      }
+      request.setHeader(name, value);
+    }
+
+    /**
+     * The read timeout becomes the response timeout, which applies to
+     * each wait for data from the server once the request has been
+     * sent.
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setTimeouts(int connectTimeoutMillis, int readTimeoutMillis) {
+      if(exchange != null) {
+        throw new IllegalStateException("Request has already been sent");
+      }
+      this.connectTimeoutMillis = connectTimeoutMillis;
+      requestConfig =
+              RequestConfig.custom()
+                      .setConnectTimeout(timeout(connectTimeoutMillis))
+                      .setResponseTimeout(timeout(readTimeoutMillis))
+                      .build();
+    }
+
+    /**
+     * The client to send this request with.
+     */
+    private CloseableHttpAsyncClient client() throws IOException {
+      return clientFor(request, connectTimeoutMillis, disconnected);
+    }
+
+    private Timeout timeout(int millis) {
+      return millis > 0 ? Timeout.ofMilliseconds(millis) : Timeout.DISABLED;
+    }
+
+    @Override
+    public void setContentLength(long contentLength) {
+      this.contentLength = contentLength;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+      if(exchange != null) {
+        throw new IllegalStateException("Request has already been sent");
+      }
+      CloseableHttpAsyncClient client = client();
+      outputBuffer = new SharedOutputBuffer(BUFFER_SIZE);
+      send(client, new StreamingEntityProducer());
+      return new ContentOutputStream(outputBuffer);
+    }
+
+    private void send(CloseableHttpAsyncClient client,
+            AsyncEntityProducer entity) {
+      HttpClientContext context = HttpClientContext.create();
+      if(requestConfig != null) {
+        context.setRequestConfig(requestConfig);
+      }
+      exchange =
+              client.execute(new BasicRequestProducer(request, entity),
+                      new StreamingResponseConsumer(), null, context,
+                      new FutureCallback<Void>() {
+                        @Override
+                        public void completed(Void result) {
+                        }
+
+                        @Override
+                        public void failed(Exception ex) {
+                          inputBuffer.abort();
+                          responseReceived.completeExceptionally(ex);
+                        }
+
+                        @Override
+                        public void cancelled() {
+                          inputBuffer.abort();
+                          responseReceived.cancel(false);
+                        }
+                      });
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+      if(exchange == null) {
+        send(client(), null);
+      }
+      try {
+        responseReceived.get();
+      } catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        disconnect();
+        throw new InterruptedIOException("Interrupted waiting for response");
+      } catch(ExecutionException e) {
+        if(e.getCause() instanceof IOException) {
+          throw (IOException)e.getCause();
+        }
+        throw new IOException(e.getCause());
+      } catch(CancellationException e) {
+        throw new IOException("Request was cancelled", e);
+      }
+      return responseCode;
+    }
+
+    /**
+     * Completes on the I/O thread as soon as the response headers
+     * arrive, without holding any other thread while waiting.
+     */
+    @Override
+    public CompletableFuture<Integer> getResponseCodeAsync(Executor executor) {
+      if(exchange == null) {
+        try {
+          send(client(), null);
+        } catch(IOException e) {
+          CompletableFuture<Integer> failed = new CompletableFuture<>();
+          failed.completeExceptionally(e);
+          return failed;
+        }
+      }
+      return responseReceived.thenApply(v -> responseCode);
+    }
+
+    @Override
+    public String getHeaderField(String name) {
+      List<String> values = responseHeaders.get(name);
+      return (values == null || values.isEmpty()) ? null : values.get(0);
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaderFields() {
+      return responseHeaders;
+    }
+
+    @Override
+    public String getContentEncoding() {
+      return getHeaderField("Content-Encoding");
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+      int code = getResponseCode();
+      if(code >= 400) {
+        throw new IOException("Server returned HTTP response code: " + code
+                + " for URL: " + request.getRequestUri());
+      }
+      return new ContentInputStream(inputBuffer);
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+      if(responseReceived.isDone() && !responseReceived.isCompletedExceptionally()
+              && responseCode >= 400) {
+        return new ContentInputStream(inputBuffer);
+      }
+      return null;
+    }
+
+    @Override
+    public void disconnect() {
+      disconnected.complete(null);
+      if(exchange != null) {
+        exchange.cancel(true);
+      }
+      if(outputBuffer != null) {
+        outputBuffer.abort();
+      }
+      inputBuffer.abort();
+    }
+
+    /**
+     * Request entity whose content is written by the caller through a
+     * {@link ContentOutputStream}, and drained by the I/O thread. The
+     * entity is chunked unless the caller has specified its length.
+     */
+    private class StreamingEntityProducer implements AsyncEntityProducer {
+
+      @Override
+      public boolean isRepeatable() {
+        return false;
+      }
+
+      @Override
+      public void failed(Exception cause) {
+        outputBuffer.abort();
+      }
+
+      @Override
+      public long getContentLength() {
+        return contentLength;
+      }
+
+      @Override
+      public String getContentType() {
+        Header h = request.getFirstHeader("Content-Type");
+        return h == null ? null : h.getValue();
+      }
+
+      @Override
+      public String getContentEncoding() {
+        Header h = request.getFirstHeader("Content-Encoding");
+        return h == null ? null : h.getValue();
+      }
+
+      @Override
+      public boolean isChunked() {
+        return contentLength < 0;
+      }
+
+      @Override
+      public Set<String> getTrailerNames() {
+        return null;
+      }
+
+      @Override
+      public int available() {
+        return outputBuffer.length();
+      }
+
+      @Override
+      public void produce(DataStreamChannel channel) throws IOException {
+        outputBuffer.flush(channel);
+      }
+
+      @Override
+      public void releaseResources() {
+      }
+    }
+
+    /**
+     * Response consumer that records the status and headers as soon as
+     * they arrive, then feeds the body into the shared input buffer for
+     * the caller to read at its own pace.
+     */
+    private class StreamingResponseConsumer implements
+                                           AsyncResponseConsumer<Void> {
+
+      @Override
+      public void consumeResponse(HttpResponse response,
+              EntityDetails entityDetails,
+              HttpContext context,
+              FutureCallback<Void> callback) {
+        Map<String, List<String>> headers =
+                new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for(Header h : response.getHeaders()) {
+          List<String> values = headers.get(h.getName());
+          if(values == null) {
+            values = new ArrayList<>(1);
+            headers.put(h.getName(), values);
+          }
+          values.add(h.getValue());
+        }
+        responseHeaders = Collections.unmodifiableMap(headers);
+        responseCode = response.getCode();
+        if(entityDetails == null) {
+          inputBuffer.markEndStream();
+          callback.completed(null);
+        } else {
+          resultCallback = callback;
+        }
+        responseReceived.complete(null);
+      }
+
+      @Override
+      public void informationResponse(HttpResponse response,
+              HttpContext context) {
+      }
+
+      @Override
+      public void updateCapacity(CapacityChannel capacityChannel)
+              throws IOException {
+        inputBuffer.updateCapacity(capacityChannel);
+      }
+
+      @Override
+      public void consume(ByteBuffer src) throws IOException {
+        inputBuffer.fill(src);
+      }
+
+      @Override
+      public void streamEnd(List<? extends Header> trailers) {
+        inputBuffer.markEndStream();
+        if(resultCallback != null) {
+          resultCallback.completed(null);
+        }
+      }
+
+      @Override
+      public void failed(Exception cause) {
+        inputBuffer.abort();
+        responseReceived.completeExceptionally(cause);
+      }
+
+      @Override
+      public void releaseResources() {
+      }
+    }
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Token bucket rate limiter that paces the requests made by a
+ * {@link RestClient} (or to a particular
+ * {@link uk.ac.gate.cloud.online.ApiEndpoint}) to the rate the server
+ * allows. The limiter adapts itself from the headers of each response:
+ * <ul>
+ * <li><code>X-GATE-Rate-Limit-Calls</code> and
+ * <code>X-GATE-Rate-Limit-Reset</code> give the number of calls
+ * remaining in the current window and when the window ends, from which
+ * the limiter spreads the remaining calls evenly over the rest of the
+ * window. If no calls remain, callers wait until the window resets.</li>
+ * <li><code>X-GATE-Remaining-Quota</code> is recorded and made available
+ * through {@link #getRemainingQuota()}.</li>
+ * </ul>
+ * Until the first response has been seen, the limiter allows the
+ * initial rate given to the constructor (unlimited by default).
+ * <p>
+ * The limiter is lock-free: its state is held in a single immutable
+ * object that is replaced atomically, so it can be shared safely by any
+ * number of threads and clients. Waiting callers re-check the state
+ * when they wake, so a change in the permitted rate takes effect
+ * immediately rather than after calls already queued at the old rate.
+ */
+public class RateLimiter {
+
+  /**
+   * Snapshot of the limiter state.
+   */
+  private static final class State {
+    /**
+     * Theoretical arrival time of the next call at the current rate, in
+     * <code>System.nanoTime</code> terms.
+     */
+    final long nextFree;
+
+    /**
+     * Interval between calls in nanoseconds, 0 for unlimited.
+     */
+    final long interval;
+
+    /**
+     * No calls may be made before this time (the end of an exhausted
+     * window).
+     */
+    final long blockedUntil;
+
+    /**
+     * End of the current rate limit window in epoch milliseconds, or -1
+     * if not known.
+     */
+    final long windowEnd;
+
+    final long remainingCalls;
+
+    State(long nextFree, long interval, long blockedUntil, long windowEnd,
+            long remainingCalls) {
+      this.nextFree = nextFree;
+      this.interval = interval;
+      this.blockedUntil = blockedUntil;
+      this.windowEnd = windowEnd;
+      this.remainingCalls = remainingCalls;
+    }
+  }
+
+  /**
+   * Responses whose window end differs by less than this are taken to
+   * refer to the same window.
+   */
+  private static final long SAME_WINDOW_MILLIS = 1000;
+
+  private final AtomicReference<State> state;
+
+  /**
+   * Number of calls that may be made back-to-back after a quiet period.
+   */
+  private final int burst;
+
+  private volatile long remainingQuota = -1;
+
+  /**
+   * Create a limiter that does not restrict calls until it learns the
+   * server's limits from a response.
+   */
+  public RateLimiter() {
+    this(0, 1);
+  }
+
+  /**
+   * Create a limiter with the given initial rate.
+   * 
+   * @param callsPerSecond initial rate, or 0 for unlimited until the
+   *          server's limits are known.
+   * @param burst number of calls that may be made back-to-back after a
+   *          quiet period, must be at least 1.
+   */
+  public RateLimiter(double callsPerSecond, int burst) {
+    if(burst < 1) {
+      throw new IllegalArgumentException("burst must be at least 1");
+    }
+    this.burst = burst;
+    long now = System.nanoTime();
+    this.state = new AtomicReference<>(new State(now,
+            callsPerSecond > 0 ? (long)(1e9 / callsPerSecond) : 0L, now, -1,
+            -1));
+  }
+
+  /**
+   * Take a call slot if one is available now, otherwise return an
+   * estimate of how long the caller should wait before trying again.
+   * 
+   * @return 0 if a slot was taken and the call may proceed, otherwise
+   *         the time to wait in nanoseconds (no slot is taken)
+   */
+  public long tryReserve() {
+    while(true) {
+      long now = System.nanoTime();
+      State s = state.get();
+      // allow up to "burst" calls to accumulate while idle
+      long earliest =
+              Math.max(s.blockedUntil, s.nextFree - (burst - 1) * s.interval);
+      if(earliest - now > 0) {
+        return earliest - now;
+      }
+      State next = new State(Math.max(s.nextFree, now) + s.interval,
+              s.interval, s.blockedUntil, s.windowEnd, s.remainingCalls);
+      if(state.compareAndSet(s, next)) {
+        return 0;
+      }
+    }
+  }
+
+  /**
+   * Wait until the next call is permitted.
+   * 
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void acquire() throws InterruptedException {
+    long wait;
+    while((wait = tryReserve()) > 0) {
+      TimeUnit.NANOSECONDS.sleep(wait);
+    }
+  }
+
+  /**
+   * Take a call slot if one is available immediately.
+   * 
+   * @return true if the call may proceed, false if it would have to
+   *         wait (in which case no slot is taken)
+   */
+  public boolean tryAcquire() {
+    return tryReserve() == 0;
+  }
+
+  /**
+   * Update the limiter from the headers of a response.
+   * 
+   * @param headers the response headers
+   */
+  public void update(Map<String, List<String>> headers) {
+    long quota = parseLong(header(headers, "X-GATE-Remaining-Quota"));
+    if(quota >= 0) {
+      remainingQuota = quota;
+    }
+    long calls = parseLong(header(headers, "X-GATE-Rate-Limit-Calls"));
+    long resetMillis =
+            HeaderTimes.delayMillis(header(headers, "X-GATE-Rate-Limit-Reset"));
+    if(calls < 0 || resetMillis < 0) {
+      return;
+    }
+    long windowEnd = System.currentTimeMillis() + resetMillis;
+    while(true) {
+      long now = System.nanoTime();
+      State s = state.get();
+      if(s.windowEnd >= 0
+              && Math.abs(windowEnd - s.windowEnd) < SAME_WINDOW_MILLIS
+              && calls > s.remainingCalls) {
+        // an older response for the current window, that arrived after
+        // a newer one
+        return;
+      }
+      State next;
+      if(calls == 0) {
+        // window exhausted - nobody may call until it resets
+        next = new State(s.nextFree, s.interval,
+                now + TimeUnit.MILLISECONDS.toNanos(resetMillis), windowEnd,
+                calls);
+      } else {
+        long interval = TimeUnit.MILLISECONDS.toNanos(resetMillis) / calls;
+        // the server's count is authoritative, so do not carry over
+        // delay accumulated at a previous rate
+        next = new State(Math.min(s.nextFree, now + interval), interval,
+                Math.min(s.blockedUntil, now), windowEnd, calls);
+      }
+      if(state.compareAndSet(s, next)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * The current permitted rate in calls per second, or
+   * <code>Double.POSITIVE_INFINITY</code> if unlimited.
+   */
+  public double getRate() {
+    long interval = state.get().interval;
+    return interval == 0 ? Double.POSITIVE_INFINITY : 1e9 / interval;
+  }
+
+  /**
+   * Number of calls remaining in the current rate limit window, as
+   * reported by the most recent response, or -1 if not known.
+   */
+  public long getRemainingCalls() {
+    return state.get().remainingCalls;
+  }
+
+  /**
+   * Remaining daily quota as reported by the most recent response, or
+   * -1 if not known. Note that the limiter does not wait for an
+   * exhausted quota to reset, as this may be many hours away.
+   */
+  public long getRemainingQuota() {
+    return remainingQuota;
+  }
+
+  private static String header(Map<String, List<String>> headers, String name) {
+    if(headers == null) {
+      return null;
+    }
+    for(Map.Entry<String, List<String>> e : headers.entrySet()) {
+      if(name.equalsIgnoreCase(e.getKey()) && e.getValue() != null
+              && !e.getValue().isEmpty()) {
+        return e.getValue().get(0);
+      }
+    }
+    return null;
+  }
+
+  private static long parseLong(String value) {
+    if(value == null) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch(NumberFormatException e) {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of resolved redirect locations used by the {@link RestClient}.
+ * Many GATE Cloud resources, such as job reports, results and other
+ * {@link uk.ac.gate.cloud.common.Downloadable downloadable} files,
+ * respond to a GET request with a <code>303 See Other</code> pointing
+ * at the real (often time-limited) location of the data. Remembering
+ * that location for a short while lets repeated fetches of the same
+ * resource go straight to the target, saving a full request each time.
+ * <p>
+ * Only redirects from GET requests without a body are cached. Each
+ * entry expires after the cache's time-to-live, or sooner if the
+ * redirect response carries a shorter <code>Cache-Control:
+ * max-age</code>, and responses marked <code>no-store</code> or
+ * <code>no-cache</code> are not cached at all. If a cached target
+ * answers with <code>403 Forbidden</code> or <code>404 Not Found</code>
+ * (typically because a signed URL has expired) the client discards the
+ * entry and resolves the redirect again.
+ */
+public class RedirectCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+  public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 60 * 1000L;
+
+  private final int maxEntries;
+
+  private final long timeToLiveMillis;
+
+  private final Map<String, Entry> entries;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder stale = new LongAdder();
+
+  /**
+   * Create a cache with the default maximum size and time-to-live.
+   */
+  public RedirectCache() {
+    this(DEFAULT_MAX_ENTRIES, DEFAULT_TIME_TO_LIVE_MILLIS);
+  }
+
+  /**
+   * Create a cache with the given maximum size and time-to-live.
+   * 
+   * @param maxEntries maximum number of redirects to remember, 0
+   *          disables caching entirely so every redirect is resolved
+   *          by the server.
+   * @param timeToLiveMillis how long a resolved location may be reused,
+   *          in milliseconds. This should be shorter than the lifetime
+   *          of any signed URLs the server redirects to.
+   */
+  public RedirectCache(int maxEntries, long timeToLiveMillis) {
+    if(maxEntries < 0) {
+      throw new IllegalArgumentException("maxEntries must not be negative");
+    }
+    if(timeToLiveMillis < 0) {
+      throw new IllegalArgumentException(
+              "timeToLiveMillis must not be negative");
+    }
+    this.maxEntries = maxEntries;
+    this.timeToLiveMillis = timeToLiveMillis;
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, RedirectCache.Entry> eldest) {
+        return size() > RedirectCache.this.maxEntries;
+      }
+    };
+  }
+
+  /**
+   * A resolved location and the time after which it must not be used,
+   * in terms of <code>System.nanoTime()</code>.
+   */
+  private static class Entry {
+    final String location;
+
+    final long expiresAt;
+
+    Entry(String location, long expiresAt) {
+      this.location = location;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  /**
+   * Maximum number of redirects this cache will remember.
+   */
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /**
+   * Longest time for which a resolved location is reused, in
+   * milliseconds.
+   */
+  public long getTimeToLiveMillis() {
+    return timeToLiveMillis;
+  }
+
+  /**
+   * The unexpired location the given URL redirects to, or
+   * <code>null</code> if it is not cached. A non-null result counts as
+   * a hit.
+   */
+  String lookup(String url) {
+    if(maxEntries == 0) {
+      return null;
+    }
+    synchronized(entries) {
+      Entry entry = entries.get(url);
+      if(entry == null) {
+        return null;
+      }
+      if(System.nanoTime() - entry.expiresAt >= 0) {
+        entries.remove(url);
+        return null;
+      }
+      hits.increment();
+      return entry.location;
+    }
+  }
+
+  /**
+   * Remember the (absolute) location that the given URL redirected to,
+   * subject to any <code>Cache-Control</code> directives in the
+   * redirect response headers. Each call counts as a miss, as the
+   * redirect had to be fetched from the server.
+   */
+  void store(String url, String location, Map<String, List<String>> headers) {
+    misses.increment();
+    if(maxEntries == 0) {
+      return;
+    }
+    long ttl = timeToLive(headers);
+    synchronized(entries) {
+      if(ttl <= 0) {
+        entries.remove(url);
+      } else {
+        entries.put(url, new Entry(location,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttl)));
+      }
+    }
+  }
+
+  /**
+   * The time-to-live for a redirect with the given response headers,
+   * this cache's own time-to-live capped by any
+   * <code>Cache-Control</code> directives.
+   */
+  private long timeToLive(Map<String, List<String>> headers) {
+    long ttl = timeToLiveMillis;
+    for(Map.Entry<String, List<String>> h : headers.entrySet()) {
+      // header name case varies between transports
+      if(!"Cache-Control".equalsIgnoreCase(h.getKey())) {
+        continue;
+      }
+      for(String value : h.getValue()) {
+        for(String directive : value.split(",")) {
+          directive = directive.trim().toLowerCase();
+          if(directive.equals("no-store") || directive.equals("no-cache")) {
+            return 0;
+          } else if(directive.startsWith("max-age=")) {
+            try {
+              ttl = Math.min(ttl, Long.parseLong(directive.substring(8)
+                      .replace("\"", "")) * 1000L);
+            } catch(NumberFormatException e) {
+              // ignore a malformed directive
+            }
+          }
+        }
+      }
+    }
+    return ttl;
+  }
+
+  /**
+   * Forget the cached location for the given URL, because the server
+   * refused it. The next request for the URL will resolve the redirect
+   * again.
+   */
+  void stale(String url) {
+    stale.increment();
+    invalidate(url);
+  }
+
+  /**
+   * Forget any cached location for the given URL, so the next request
+   * for it resolves the redirect again.
+   * 
+   * @param url the absolute URL that redirects
+   */
+  public void invalidate(String url) {
+    synchronized(entries) {
+      entries.remove(url);
+    }
+  }
+
+  /**
+   * Number of requests that went straight to a cached location.
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Number of redirects that had to be fetched from the server.
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Number of cached locations that the server refused with a 403 or
+   * 404 response, so had to be resolved again.
+   */
+  public long getStaleCount() {
+    return stale.sum();
+  }
+
+  /**
+   * Proportion of redirects that were served from the cache, between 0
+   * and 1.
+   */
+  public double getHitRate() {
+    long h = hits.sum();
+    long total = h + misses.sum();
+    return total == 0 ? 0.0 : (double)h / total;
+  }
+
+  /**
+   * Number of redirects currently cached.
+   */
+  public int size() {
+    synchronized(entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Remove all entries and reset the counts.
+   */
+  public void clear() {
+    synchronized(entries) {
+      entries.clear();
+    }
+    hits.reset();
+    misses.reset();
+    stale.reset();
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * Input stream that records everything it reads from an underlying
+ * source so that the data can be read again after a {@link #rewind()}.
+ * Up to a threshold the data is kept in memory, beyond that it is
+ * spilled to a temporary file which is deleted when this stream is
+ * closed. This is used to replay request bodies when a request is
+ * retried. The source itself is not closed by this class.
+ */
+class ReplayableInputStream extends InputStream {
+
+  private InputStream source;
+
+  private int spillThreshold;
+
+  private byte[] memory = new byte[8192];
+
+  private File spillFile;
+
+  private RandomAccessFile spill;
+
+  /**
+   * Number of bytes recorded so far.
+   */
+  private long recorded;
+
+  /**
+   * Current read position.
+   */
+  private long position;
+
+  ReplayableInputStream(InputStream source, int spillThreshold) {
+    this.source = source;
+    this.spillThreshold = spillThreshold;
+  }
+
+  /**
+   * Go back to the start of the data.
+   */
+  void rewind() {
+    position = 0;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    return read(b, 0, 1) < 0 ? -1 : (b[0] & 0xff);
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if(len == 0) {
+      return 0;
+    }
+    if(position < recorded) {
+      // replaying previously recorded data
+      int n = (int)Math.min(len, recorded - position);
+      if(spill == null) {
+        System.arraycopy(memory, (int)position, b, off, n);
+      } else {
+        spill.seek(position);
+        spill.readFully(b, off, n);
+      }
+      position += n;
+      return n;
+    }
+    int n = source.read(b, off, len);
+    if(n > 0) {
+      record(b, off, n);
+      position += n;
+    }
+    return n;
+  }
+
+  private void record(byte[] b, int off, int len) throws IOException {
+    if(spill == null && recorded + len > spillThreshold) {
+      spillFile = File.createTempFile("gate-cloud-request", ".tmp");
+      spillFile.deleteOnExit();
+      spill = new RandomAccessFile(spillFile, "rw");
+      spill.write(memory, 0, (int)recorded);
+      memory = null;
+    }
+    if(spill == null) {
+      if(recorded + len > memory.length) {
+        byte[] newMemory =
+                new byte[(int)Math.min(spillThreshold,
+                        Math.max(memory.length * 2, recorded + len))];
+        System.arraycopy(memory, 0, newMemory, 0, (int)recorded);
+        memory = newMemory;
+      }
+      System.arraycopy(b, off, memory, (int)recorded, len);
+    } else {
+      spill.seek(recorded);
+      spill.write(b, off, len);
+    }
+    recorded += len;
+  }
+
+  /**
+   * Discard the recorded data, deleting any temporary file.
+   */
+  @Override
+  public void close() throws IOException {
+    memory = null;
+    if(spill != null) {
+      spill.close();
+      spill = null;
+      spillFile.delete();
+    }
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.util.zip.Deflater;
+
+/**
+ * Policy deciding whether and how strongly request bodies sent by a
+ * {@link RestClient} should be GZIP compressed. Bodies smaller than the
+ * {@link #getThreshold() threshold} are always sent as-is. For larger
+ * bodies the first {@link #getSampleSize() sample} of the data is
+ * compressed with the fastest deflate level to estimate how
+ * compressible the content is:
+ * <ul>
+ * <li>content that barely shrinks (for example data that is already
+ * compressed) is sent uncompressed, rather than burning CPU for no
+ * benefit</li>
+ * <li>content that compresses moderately well is sent using the fastest
+ * compression level, since a higher level would gain little</li>
+ * <li>highly compressible content (typically text, XML and JSON) is
+ * sent using the configured {@link #getLevel() level}</li>
+ * </ul>
+ * Content types that are known to be compressed already (images,
+ * audio, video and archive formats) are never compressed.
+ */
+public class RequestCompression {
+
+  /**
+   * Value returned by {@link #chooseLevel} when the content should not
+   * be compressed. This is distinct from all valid deflate levels,
+   * including <code>Deflater.DEFAULT_COMPRESSION</code>.
+   */
+  public static final int NO_COMPRESSION = Integer.MIN_VALUE;
+
+  /**
+   * Default minimum body size, in bytes, before compression is
+   * considered.
+   */
+  public static final int DEFAULT_THRESHOLD = 4096;
+
+  /**
+   * Default number of bytes sampled to estimate compressibility.
+   */
+  public static final int DEFAULT_SAMPLE_SIZE = 16384;
+
+  /**
+   * Default compressed/original size ratio above which content is
+   * considered incompressible.
+   */
+  public static final double DEFAULT_MAX_RATIO = 0.9;
+
+  /**
+   * Default compressed/original size ratio above which only the fastest
+   * compression level is used.
+   */
+  public static final double DEFAULT_FAST_RATIO = 0.5;
+
+  private int threshold = DEFAULT_THRESHOLD;
+
+  private int sampleSize = DEFAULT_SAMPLE_SIZE;
+
+  private double maxRatio = DEFAULT_MAX_RATIO;
+
+  private double fastRatio = DEFAULT_FAST_RATIO;
+
+  private int level = Deflater.DEFAULT_COMPRESSION;
+
+  /**
+   * Create a policy with the default settings.
+   */
+  public RequestCompression() {
+  }
+
+  /**
+   * Create a policy with the given threshold and sample size, and
+   * default ratios.
+   * 
+   * @param threshold minimum body size before compression is
+   *          considered, or a negative value to never compress.
+   * @param sampleSize number of bytes to sample
+   */
+  public RequestCompression(int threshold, int sampleSize) {
+    this.threshold = threshold;
+    this.sampleSize = sampleSize;
+  }
+
+  /**
+   * Minimum request body size in bytes before compression is
+   * considered. A negative value disables compression altogether.
+   */
+  public int getThreshold() {
+    return threshold;
+  }
+
+  public void setThreshold(int threshold) {
+    this.threshold = threshold;
+  }
+
+  /**
+   * Number of bytes from the start of the body that are buffered and
+   * test-compressed to estimate how compressible the body is.
+   */
+  public int getSampleSize() {
+    return sampleSize;
+  }
+
+  public void setSampleSize(int sampleSize) {
+    this.sampleSize = sampleSize;
+  }
+
+  /**
+   * Compressed to original size ratio of the sample above which the
+   * body is sent uncompressed.
+   */
+  public double getMaxRatio() {
+    return maxRatio;
+  }
+
+  public void setMaxRatio(double maxRatio) {
+    this.maxRatio = maxRatio;
+  }
+
+  /**
+   * Compressed to original size ratio of the sample above which the
+   * fastest compression level is used instead of the configured
+   * {@link #getLevel() level}.
+   */
+  public double getFastRatio() {
+    return fastRatio;
+  }
+
+  public void setFastRatio(double fastRatio) {
+    this.fastRatio = fastRatio;
+  }
+
+  /**
+   * Deflate level (1-9, or <code>Deflater.DEFAULT_COMPRESSION</code>)
+   * used for highly compressible content.
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  public void setLevel(int level) {
+    this.level = level;
+  }
+
+  /**
+   * Decide how to compress a request body.
+   * 
+   * @param contentType the MIME type of the body, may be
+   *          <code>null</code>
+   * @param sample the start of the body
+   * @param offset offset of the sample in the array
+   * @param length length of the sample
+   * @return the deflate level to use, or {@link #NO_COMPRESSION}.
+   */
+  public int chooseLevel(String contentType, byte[] sample, int offset,
+          int length) {
+    if(threshold < 0 || isPrecompressed(contentType)) {
+      return NO_COMPRESSION;
+    }
+    double ratio = estimateRatio(sample, offset, length);
+    if(ratio > maxRatio) {
+      return NO_COMPRESSION;
+    } else if(ratio > fastRatio) {
+      return Deflater.BEST_SPEED;
+    } else {
+      return level;
+    }
+  }
+
+  /**
+   * Compress the sample at the fastest level (discarding the output)
+   * and return the ratio of compressed to original size.
+   */
+  protected double estimateRatio(byte[] sample, int offset, int length) {
+    if(length == 0) {
+      return 1.0;
+    }
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+    try {
+      deflater.setInput(sample, offset, length);
+      deflater.finish();
+      byte[] scratch = new byte[4096];
+      while(!deflater.finished()) {
+        deflater.deflate(scratch);
+      }
+      return (double)deflater.getBytesWritten() / length;
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Is the given content type one that is already compressed?
+   */
+  protected boolean isPrecompressed(String contentType) {
+    if(contentType == null) {
+      return false;
+    }
+    String type = contentType.toLowerCase();
+    return type.startsWith("image/") || type.startsWith("audio/")
+            || type.startsWith("video/")
+            || type.startsWith("application/zip")
+            || type.startsWith("application/gzip")
+            || type.startsWith("application/x-gzip")
+            || type.startsWith("application/x-bzip2")
+            || type.startsWith("application/x-xz")
+            || type.startsWith("application/x-7z-compressed");
+  }
+}
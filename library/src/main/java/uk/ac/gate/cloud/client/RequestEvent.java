@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+/**
+ * Details of a single HTTP request made by a {@link RestClient}, passed
+ * to each {@link RestClientListener}. Fields describing the outcome of
+ * the request are only filled in by the time the request has completed.
+ */
+public class RequestEvent {
+
+  private final String method;
+
+  private final String url;
+
+  private final int attempt;
+
+  volatile int statusCode;
+
+  volatile long bytesSent;
+
+  volatile long bytesReceived;
+
+  volatile long headersNanos = -1;
+
+  volatile long durationNanos = -1;
+
+  volatile Throwable error;
+
+  RequestEvent(String method, String url, int attempt) {
+    this.method = method;
+    this.url = url;
+    this.attempt = attempt;
+  }
+
+  /**
+   * The HTTP request method.
+   */
+  public String getMethod() {
+    return method;
+  }
+
+  /**
+   * The absolute URL of the request.
+   */
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * The attempt number of this request, 1 for the first attempt and
+   * greater than 1 for a retry (or a hedge, see {@link HedgingPolicy}).
+   */
+  public int getAttempt() {
+    return attempt;
+  }
+
+  /**
+   * The HTTP status code of the response, or 0 if no response was
+   * received.
+   */
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  /**
+   * Number of bytes of request body sent, after any compression.
+   */
+  public long getBytesSent() {
+    return bytesSent;
+  }
+
+  /**
+   * Number of bytes of response body received, before any
+   * decompression.
+   */
+  public long getBytesReceived() {
+    return bytesReceived;
+  }
+
+  /**
+   * Time in nanoseconds from opening the connection until the response
+   * status and headers were received, or -1 if no response was
+   * received.
+   */
+  public long getHeadersNanos() {
+    return headersNanos;
+  }
+
+  /**
+   * Time in nanoseconds from opening the connection until the request
+   * completed, or -1 if it has not yet completed.
+   */
+  public long getDurationNanos() {
+    return durationNanos;
+  }
+
+  /**
+   * The exception that caused the request to fail, or <code>null</code>
+   * if it did not fail with an exception. Note that an error response
+   * from the server is a response like any other, and is reported via
+   * the {@link #getStatusCode() status code}.
+   */
+  public Throwable getError() {
+    return error;
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Bounded in-memory cache for slow-changing API resources such as the
+ * shop catalogue, online API metadata and machine lists. Entries expire
+ * after a time-to-live, which can be set per URL prefix with
+ * {@link RestClient#setCacheTimeToLive(String, long)}, and the least
+ * recently used entries are evicted once the cache is full.
+ * <p>
+ * Loading is single-flight: if several threads miss on the same
+ * resource at the same time only one of them makes the request, and
+ * the others wait for and share its result (or its exception).
+ * <p>
+ * Caching is opt-in, a cache is only used once it has been set on a
+ * client with {@link RestClient#setResourceCache(ResourceCache)}.
+ * The cache holds the parsed JSON of each resource rather than the
+ * objects created from it, and the client deserializes a new object for
+ * every call, so callers never share an instance.
+ */
+public class ResourceCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 500;
+
+  public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 5 * 60 * 1000L;
+
+  private final int maxEntries;
+
+  private final long defaultTimeToLiveMillis;
+
+  private final Map<String, Entry> entries;
+
+  /**
+   * Loads in progress, keyed in the same way as the entries.
+   */
+  private final ConcurrentMap<String, CompletableFuture<JsonNode>> loading =
+          new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder coalesced = new LongAdder();
+
+  private final LongAdder evictions = new LongAdder();
+
+  private static class Entry {
+    final JsonNode value;
+
+    final long expiresAt;
+
+    Entry(JsonNode value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  /**
+   * Create a cache with the default size and time-to-live.
+   */
+  public ResourceCache() {
+    this(DEFAULT_MAX_ENTRIES, DEFAULT_TIME_TO_LIVE_MILLIS);
+  }
+
+  /**
+   * Create a cache with the given size and default time-to-live.
+   * 
+   * @param maxEntries maximum number of resources to hold
+   * @param defaultTimeToLiveMillis time for which a resource is cached
+   *          if no time-to-live has been set for its URL prefix, 0 to
+   *          cache only those resources that have their own
+   *          time-to-live.
+   */
+  public ResourceCache(int maxEntries, long defaultTimeToLiveMillis) {
+    if(maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries must be positive");
+    }
+    if(defaultTimeToLiveMillis < 0) {
+      throw new IllegalArgumentException(
+              "defaultTimeToLiveMillis must not be negative");
+    }
+    this.maxEntries = maxEntries;
+    this.defaultTimeToLiveMillis = defaultTimeToLiveMillis;
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, ResourceCache.Entry> eldest) {
+        if(size() > ResourceCache.this.maxEntries) {
+          evictions.increment();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  public long getDefaultTimeToLiveMillis() {
+    return defaultTimeToLiveMillis;
+  }
+
+  /**
+   * Get the cached JSON for the given URL, or load it with the given
+   * loader if there is no live entry. Concurrent calls for the same URL
+   * share a single load. The returned tree is shared and must not be
+   * modified.
+   * 
+   * @param url absolute URL of the resource
+   * @param timeToLiveMillis how long to cache a newly loaded value, 0
+   *          not to cache it at all
+   * @param loader function to fetch the resource
+   */
+  JsonNode get(String url, long timeToLiveMillis,
+          Supplier<JsonNode> loader) {
+    if(timeToLiveMillis > 0) {
+      synchronized(entries) {
+        Entry entry = entries.get(url);
+        if(entry != null) {
+          if(System.nanoTime() - entry.expiresAt < 0) {
+            hits.increment();
+            return entry.value;
+          }
+          entries.remove(url);
+        }
+      }
+    }
+    CompletableFuture<JsonNode> load = new CompletableFuture<>();
+    CompletableFuture<JsonNode> existing = loading.putIfAbsent(url, load);
+    if(existing != null) {
+      coalesced.increment();
+      try {
+        return existing.join();
+      } catch(CompletionException e) {
+        if(e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException)e.getCause();
+        }
+        if(e.getCause() instanceof Error) {
+          throw (Error)e.getCause();
+        }
+        throw e;
+      }
+    }
+    misses.increment();
+    try {
+      JsonNode value = loader.get();
+      if(timeToLiveMillis > 0) {
+        long expiresAt =
+                System.nanoTime() + timeToLiveMillis * 1000000L;
+        synchronized(entries) {
+          entries.put(url, new Entry(value, expiresAt));
+        }
+      }
+      load.complete(value);
+      return value;
+    } catch(RuntimeException | Error e) {
+      load.completeExceptionally(e);
+      throw e;
+    } finally {
+      loading.remove(url, load);
+    }
+  }
+
+  /**
+   * Remove all cached resources whose absolute URL starts with the
+   * given prefix, so the next request for them goes to the server.
+   */
+  public void invalidate(String urlPrefix) {
+    synchronized(entries) {
+      Iterator<String> it = entries.keySet().iterator();
+      while(it.hasNext()) {
+        String key = it.next();
+        if(key.startsWith(urlPrefix)) {
+          it.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Remove all cached resources.
+   */
+  public void clear() {
+    synchronized(entries) {
+      entries.clear();
+    }
+  }
+
+  /**
+   * Number of resources currently cached, including any that have
+   * expired but not yet been removed.
+   */
+  public int size() {
+    synchronized(entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Number of requests served from the cache.
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Number of requests that loaded the resource from the server.
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Number of requests that missed but shared a load already in
+   * progress in another thread rather than making their own request.
+   */
+  public long getCoalescedCount() {
+    return coalesced.sum();
+  }
+
+  /**
+   * Number of entries evicted to keep the cache within its maximum
+   * size.
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * Proportion of requests that did not need their own call to the
+   * server, between 0 and 1.
+   */
+  public double getHitRate() {
+    long saved = hits.sum() + coalesced.sum();
+    long total = saved + misses.sum();
+    return total == 0 ? 0.0 : (double)saved / total;
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The complete result of a single call made with
+ * {@link RestClient#exchange(String, String, com.fasterxml.jackson.core.type.TypeReference, Object, CallOptions, String...)
+ * RestClient.exchange}: the response body along with the status code,
+ * headers, the GATE Cloud quota and rate limit information parsed from
+ * the headers, and a breakdown of how long the call took. Unlike
+ * {@link RestClient#getLastHeaders()} each response carries its own
+ * metadata, so it is safe to use from asynchronous code and thread
+ * pools.
+ * 
+ * @param <T> the type of the response body
+ */
+public class Response<T> {
+
+  private final T body;
+
+  private final int statusCode;
+
+  private final Map<String, List<String>> headers;
+
+  private final long receivedAt;
+
+  private final long headersNanos;
+
+  private final long totalNanos;
+
+  private final int requestCount;
+
+  Response(T body, int statusCode, Map<String, List<String>> headers,
+          CallContext call, long headersNanos) {
+    this.body = body;
+    this.statusCode = statusCode;
+    Map<String, List<String>> copy =
+            new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    for(Map.Entry<String, List<String>> h : headers.entrySet()) {
+      // HttpURLConnection reports the status line under a null key
+      if(h.getKey() != null) {
+        copy.put(h.getKey(), h.getValue());
+      }
+    }
+    this.headers = Collections.unmodifiableMap(copy);
+    this.receivedAt = System.currentTimeMillis();
+    this.headersNanos = headersNanos;
+    this.totalNanos = System.nanoTime() - call.startNanos;
+    this.requestCount = call.requestCount();
+  }
+
+  /**
+   * The deserialized response body, or <code>null</code> for a 204
+   * response.
+   */
+  public T getBody() {
+    return body;
+  }
+
+  /**
+   * The HTTP status code of the final response (after following any
+   * redirects).
+   */
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  /**
+   * The headers of the final response. Header names are
+   * case-insensitive.
+   */
+  public Map<String, List<String>> getHeaders() {
+    return headers;
+  }
+
+  /**
+   * The first value of the given response header, or <code>null</code>
+   * if it is not present.
+   */
+  public String getHeader(String name) {
+    List<String> values = headers.get(name);
+    return (values == null || values.isEmpty()) ? null : values.get(0);
+  }
+
+  /**
+   * The quota cost of this request, from the
+   * <code>X-GATE-Request-Cost</code> header, or -1 if not present.
+   */
+  public long getRequestCost() {
+    return longHeader("X-GATE-Request-Cost");
+  }
+
+  /**
+   * The remaining daily quota, from the
+   * <code>X-GATE-Remaining-Quota</code> header, or -1 if not present.
+   */
+  public long getRemainingQuota() {
+    return longHeader("X-GATE-Remaining-Quota");
+  }
+
+  /**
+   * The time at which the quota will reset, in milliseconds since the
+   * epoch, from the <code>X-GATE-Quota-Reset</code> header, or -1 if
+   * not present.
+   */
+  public long getQuotaResetTime() {
+    return timeHeader("X-GATE-Quota-Reset");
+  }
+
+  /**
+   * The number of calls remaining in the current rate limit window,
+   * from the <code>X-GATE-Rate-Limit-Calls</code> header, or -1 if not
+   * present.
+   */
+  public long getRateLimitCalls() {
+    return longHeader("X-GATE-Rate-Limit-Calls");
+  }
+
+  /**
+   * The time at which the current rate limit window ends, in
+   * milliseconds since the epoch, from the
+   * <code>X-GATE-Rate-Limit-Reset</code> header, or -1 if not present.
+   */
+  public long getRateLimitResetTime() {
+    return timeHeader("X-GATE-Rate-Limit-Reset");
+  }
+
+  /**
+   * Time in nanoseconds from the start of the call until the final
+   * response's status and headers were received, including any rate
+   * limit waits, retries and redirects.
+   */
+  public long getHeadersNanos() {
+    return headersNanos;
+  }
+
+  /**
+   * Time in nanoseconds spent reading and deserializing the response
+   * body. For a streamed response this is 0, as the body is read by the
+   * caller.
+   */
+  public long getBodyNanos() {
+    return totalNanos - headersNanos;
+  }
+
+  /**
+   * Total time of the call in nanoseconds.
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  /**
+   * Number of HTTP requests made for this call, 1 unless it was
+   * retried, hedged or redirected.
+   */
+  public int getRequestCount() {
+    return requestCount;
+  }
+
+  private long longHeader(String name) {
+    String value = getHeader(name);
+    if(value == null) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch(NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private long timeHeader(String name) {
+    long delay = HeaderTimes.delayMillis(getHeader(name));
+    return (delay < 0) ? -1 : receivedAt + delay;
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.io.IOException;
+
+/**
+ * Persistent store for JSON responses to GET requests, which lets
+ * separate runs of a program (such as separate invocations of the
+ * command line client) share responses that are still fresh. When a
+ * store is set on a {@link RestClient} with
+ * {@link RestClient#setResponseStore(ResponseStore)}, each plain GET
+ * request is served from a stored response younger than the maximum
+ * age without contacting the server; an older stored response is
+ * revalidated with a conditional request and reused if the server
+ * responds <code>304 Not Modified</code>.
+ * <p>
+ * Errors from the store are ignored, a request whose response cannot
+ * be loaded or stored simply goes to the server as usual.
+ */
+public interface ResponseStore {
+
+  /**
+   * Load the stored response for the given URL.
+   * 
+   * @param url the absolute URL of the request
+   * @return the stored response, or <code>null</code> if there is none
+   */
+  StoredResponse load(String url) throws IOException;
+
+  /**
+   * Store a response for the given URL, replacing any existing one.
+   * 
+   * @param url the absolute URL of the request
+   * @param response the response
+   */
+  void store(String url, StoredResponse response) throws IOException;
+
+  /**
+   * Time for which a stored response can be used without revalidating
+   * it with the server, unless overridden for a URL prefix by
+   * {@link RestClient#setCacheTimeToLive(String, long)}.
+   */
+  long getMaxAgeMillis();
+}
@@ -16,16 +16,50 @@
  */
 package uk.ac.gate.cloud.client;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.zip.GZIPInputStream;
 
 import javax.xml.bind.DatatypeConverter;
@@ -34,7 +68,10 @@ import com.fasterxml.jackson.annotation.JsonIgnoreType;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.NullOutputStream;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.InjectableValues;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -81,6 +118,155 @@ public class RestClient {
    */
   private URL baseUrl;
 
+  /**
+   * The transport used to make HTTP connections.
+   */
+  private HttpTransport transport = new UrlConnectionTransport();
+
+  /**
+   * Executor for the blocking parts of asynchronous requests.
+   */
+  private Executor asyncExecutor = DEFAULT_ASYNC_EXECUTOR;
+
+  /**
+   * Policy for retrying failed requests.
+   */
+  private RetryPolicy retryPolicy = new RetryPolicy();
+
+  /**
+   * Policy for compressing request bodies.
+   */
+  private RequestCompression requestCompression = new RequestCompression();
+
+  /**
+   * Default time to wait for a connection to be established.
+   */
+  public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 30000;
+
+  /**
+   * Default time to wait for data from the server. This is generous as
+   * the online API may take some time to process a large document
+   * before it sends any response.
+   */
+  public static final int DEFAULT_READ_TIMEOUT_MILLIS = 300000;
+
+  private int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+
+  private int readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+
+  private long deadlineMillis = 0;
+
+  /**
+   * Default number of requests that {@link #getAll(List, TypeReference)}
+   * keeps in flight at once.
+   */
+  public static final int DEFAULT_FAN_OUT_PARALLELISM = 8;
+
+  private int fanOutParallelism = DEFAULT_FAN_OUT_PARALLELISM;
+
+  /**
+   * Validators and cached objects for the conditional GET methods.
+   */
+  private volatile ValidatorCache validatorCache = new ValidatorCache();
+
+  /**
+   * Resolved locations of plain GET requests that redirect.
+   */
+  private volatile RedirectCache redirectCache = new RedirectCache();
+
+  /**
+   * Bandwidth limits for bulk uploads and downloads, <code>null</code>
+   * for unlimited.
+   */
+  private volatile BandwidthLimiter uploadBandwidthLimiter;
+
+  private volatile BandwidthLimiter downloadBandwidthLimiter;
+
+  /**
+   * Cache for {@link #getCached(String, TypeReference)}, or
+   * <code>null</code> if caching is disabled.
+   */
+  private volatile ResourceCache resourceCache;
+
+  /**
+   * Persistent store for GET responses, or <code>null</code> for none.
+   */
+  private volatile ResponseStore responseStore;
+
+  /**
+   * Resource cache time-to-live for particular URL prefixes.
+   */
+  private final ConcurrentMap<String, Long> cacheTimesToLive =
+          new ConcurrentHashMap<>();
+
+  /**
+   * Rate limiter applied to all requests that do not match a more
+   * specific limiter, or <code>null</code> for no limit.
+   */
+  private volatile RateLimiter rateLimiter;
+
+  /**
+   * Rate limiters for particular URL prefixes, such as the endpoint URL
+   * of an online API.
+   */
+  private final ConcurrentMap<String, RateLimiter> prefixRateLimiters =
+          new ConcurrentHashMap<>();
+
+  /**
+   * Circuit breakers for particular URL prefixes.
+   */
+  private final ConcurrentMap<String, CircuitBreaker> circuitBreakers =
+          new ConcurrentHashMap<>();
+
+  /**
+   * Hedging policies for particular URL prefixes.
+   */
+  private final ConcurrentMap<String, HedgingPolicy> hedgingPolicies =
+          new ConcurrentHashMap<>();
+
+  /**
+   * Listeners notified around every request.
+   */
+  private final List<RestClientListener> listeners =
+          new CopyOnWriteArrayList<>();
+
+  /**
+   * Size of the buffer used to transfer response data to a channel.
+   */
+  private static final int TRANSFER_BUFFER_SIZE = 65536;
+
+  /**
+   * Timer used to schedule asynchronous retries after their backoff
+   * delay.
+   */
+  private static final ScheduledExecutorService RETRY_SCHEDULER = Executors
+          .newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "gate-cloud-client-retry");
+            t.setDaemon(true);
+            return t;
+          });
+
+  /**
+   * Shared default executor for asynchronous requests. On Java 21 and
+   * later this runs each task on its own virtual thread, otherwise it is
+   * a pool of daemon threads so it does not prevent the JVM from
+   * exiting.
+   */
+  private static final Executor DEFAULT_ASYNC_EXECUTOR =
+          VirtualThreads.isEnabled()
+                  ? VirtualThreads.newExecutor("gate-cloud-client-async-")
+                  : Executors.newCachedThreadPool(new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                      Thread t = new Thread(r, "gate-cloud-client-async-"
+                              + count.incrementAndGet());
+                      t.setDaemon(true);
+                      return t;
+                    }
+                  });
+
   /**
    * Allow access to the response headers from the most recent call.
    */
@@ -126,10 +312,145 @@ public class RestClient {
     }
   }
 
+  /**
+   * Create a client using a specified base URL and HTTP transport.
+   * 
+   * @param url API base URL
+   * @param apiKeyId API key identifier for authentication
+   * @param apiPassword API key password
+   * @param transport the transport used to make HTTP connections, for
+   *          example a {@link PooledHttpTransport}
+   */
+  public RestClient(URL url, String apiKeyId, String apiPassword,
+          HttpTransport transport) {
+    this(url, apiKeyId, apiPassword);
+    setTransport(transport);
+  }
+
   public URL getBaseUrl() {
     return baseUrl;
   }
 
+  /**
+   * Get the transport this client uses to make HTTP connections.
+   */
+  public HttpTransport getTransport() {
+    return transport;
+  }
+
+  /**
+   * Set the transport this client uses to make HTTP connections. The
+   * default is a {@link UrlConnectionTransport}. The previous transport
+   * is <em>not</em> closed by this method.
+   * 
+   * @param transport the new transport, must not be <code>null</code>
+   */
+  public void setTransport(HttpTransport transport) {
+    if(transport == null) {
+      throw new IllegalArgumentException("transport must not be null");
+    }
+    this.transport = transport;
+  }
+
+  /**
+   * Open connections to the API server ahead of the first real request,
+   * so that it does not pay for the DNS lookup, TCP connect and TLS
+   * handshake. This is equivalent to
+   * <code>warmUp(getBaseUrl(), connections)</code>.
+   * 
+   * @param connections the number of connections to open
+   * @return the number of connections that were successfully opened
+   */
+  public int warmUp(int connections) {
+    return warmUp(baseUrl, connections);
+  }
+
+  /**
+   * Open connections to the host of the given URL ahead of the first
+   * real request. This sends the given number of concurrent
+   * <code>HEAD</code> requests to the URL, without credentials, and
+   * discards the responses (whatever their status) so that the
+   * connections are left open for reuse by the transport. With the
+   * default {@link UrlConnectionTransport} they are held in the JVM's
+   * keep-alive cache, which keeps up to <code>http.maxConnections</code>
+   * (default 5) idle connections per host; a {@link PooledHttpTransport}
+   * keeps them in its pool. The TLS handshakes also populate the JVM's
+   * TLS session cache, so any further connections to the same host can
+   * resume a session with an abbreviated handshake.
+   * 
+   * @param target the URL to request, typically an online API endpoint
+   *          whose host differs from the base URL
+   * @param connections the number of connections to open
+   * @return the number of connections that were successfully opened
+   */
+  public int warmUp(URL target, int connections) {
+    return warmUpAsync(target, connections).join();
+  }
+
+  /**
+   * Asynchronous version of {@link #warmUp(URL, int)}. The returned
+   * future never completes exceptionally, connections that fail are
+   * simply not counted.
+   */
+  public CompletableFuture<Integer> warmUpAsync(URL target, int connections) {
+    if(connections < 1) {
+      throw new IllegalArgumentException("connections must be at least 1");
+    }
+    List<CompletableFuture<Boolean>> opened = new ArrayList<>(connections);
+    for(int i = 0; i < connections; i++) {
+      opened.add(warmUpConnection(target));
+    }
+    return CompletableFuture.allOf(opened.toArray(new CompletableFuture<?>[0]))
+            .thenApply(v -> {
+              int count = 0;
+              for(CompletableFuture<Boolean> f : opened) {
+                if(f.join()) {
+                  count++;
+                }
+              }
+              return count;
+            });
+  }
+
+  /**
+   * Send one warm-up <code>HEAD</code> request, completing with
+   * <code>true</code> if a response was received and its connection
+   * released for reuse.
+   */
+  private CompletableFuture<Boolean> warmUpConnection(URL target) {
+    TransportConnection connection;
+    try {
+      connection = transport.open(target, "HEAD");
+    } catch(IOException e) {
+      return CompletableFuture.completedFuture(false);
+    }
+    connection.setTimeouts(connectTimeoutMillis, connectTimeoutMillis);
+    return connection.getResponseCodeAsync(asyncExecutor).handle(
+            (responseCode, error) -> {
+              if(error != null) {
+                connection.disconnect();
+                return false;
+              }
+              InputStream stream;
+              try {
+                stream = connection.getInputStream();
+              } catch(IOException e) {
+                // error responses are just as good for warming up
+                stream = connection.getErrorStream();
+              }
+              if(stream != null) {
+                try {
+                  IOUtils.copy(stream, NullOutputStream.NULL_OUTPUT_STREAM);
+                } catch(IOException e) {
+                  return false;
+                } finally {
+                  IOUtils.closeQuietly(stream);
+                }
+              }
+              return true;
+            });
+  }
+
   /**
    * Make an API request and parse the JSON response into a new object.
    * 
@@ -157,149 +478,2154 @@ public class RestClient {
    *           response (in which case the response JSON message will be
    *           available as a {@link JsonNode} in the exception).
    */
-  public <T> T request(String target, String method,
-          TypeReference<T> responseType, Object requestBody,
-          String... extraHeaders) throws RestClientException {
-    try {
-      HttpURLConnection connection =
-              sendRequest(target, method, requestBody, -1, extraHeaders);
-      return readResponseOrError(connection, responseType);
-    } catch(IOException e) {
-      throw new RestClientException(e);
+  public <T> T request(String target, String method,
+          TypeReference<T> responseType, Object requestBody,
+          String... extraHeaders) throws RestClientException {
+    return request(target, method, responseType, requestBody, null,
+            extraHeaders);
+  }
+
+  /**
+   * Make an API request and parse the JSON response into a new object,
+   * as for {@link #request(String, String, TypeReference, Object, String...)},
+   * with the given per-call timeouts, deadline and cancellation handle.
+   * 
+   * @param options the options for this call, may be <code>null</code>
+   *          to use the client's settings
+   */
+  public <T> T request(String target, String method,
+          TypeReference<T> responseType, Object requestBody,
+          CallOptions options, String... extraHeaders)
+          throws RestClientException {
+    CallContext call = newCall(options);
+    try {
+      ResponseStore store = responseStore;
+      if(store != null && "GET".equals(method) && requestBody == null
+              && (extraHeaders == null || extraHeaders.length == 0)) {
+        String key = cacheKey(target);
+        if(key != null) {
+          return storedGet(call, store, key, target, responseType);
+        }
+      }
+      TransportConnection connection =
+              sendCached(call, false, target, method, requestBody,
+                      requestCompression.getThreshold(), extraHeaders);
+      return readResponseOrError(connection, responseType);
+    } catch(IOException e) {
+      throw new RestClientException(call.translate(e));
+    } finally {
+      call.finish();
+    }
+  }
+
+  /**
+   * Make an API request and parse the JSON response into a new object,
+   * as for {@link #request(String, String, TypeReference, Object, String...)},
+   * but return the result along with the response status, headers,
+   * quota and rate limit information and timings. Any 303 redirect is
+   * followed, and the details are those of the final response. The
+   * {@link #getResponseStore() response store} is never used, the
+   * request always goes to the server.
+   * 
+   * @return the response, whose body is the deserialized response body
+   *         (or <code>null</code> for a 204 response)
+   * @throws RestClientException if an exception occurs during
+   *           processing, or the server returns a 4xx or 5xx error
+   *           response (in which case the response JSON message will be
+   *           available as a {@link JsonNode} in the exception).
+   */
+  public <T> Response<T> exchange(String target, String method,
+          TypeReference<T> responseType, Object requestBody,
+          String... extraHeaders) throws RestClientException {
+    return exchange(target, method, responseType, requestBody, null,
+            extraHeaders);
+  }
+
+  /**
+   * Make an API request and return the parsed response along with its
+   * metadata, as for
+   * {@link #exchange(String, String, TypeReference, Object, String...)},
+   * with the given per-call timeouts, deadline and cancellation handle.
+   * 
+   * @param options the options for this call, may be <code>null</code>
+   *          to use the client's settings
+   */
+  public <T> Response<T> exchange(String target, String method,
+          TypeReference<T> responseType, Object requestBody,
+          CallOptions options, String... extraHeaders)
+          throws RestClientException {
+    CallContext call = newCall(options);
+    try {
+      TransportConnection connection =
+              sendCached(call, false, target, method, requestBody,
+                      requestCompression.getThreshold(), extraHeaders);
+      String location;
+      while((location = redirectLocation(connection)) != null) {
+        connection = sendCached(call, false, location, "GET", null, -1);
+      }
+      return readResponse(call, connection, responseType);
+    } catch(IOException e) {
+      throw new RestClientException(call.translate(e));
+    } finally {
+      call.finish();
+    }
+  }
+
+  /**
+   * Asynchronous version of
+   * {@link #exchange(String, String, TypeReference, Object, String...)}.
+   * 
+   * @return a future that completes with the response, or exceptionally
+   *         with a {@link RestClientException} under the same
+   *         conditions as the synchronous method.
+   */
+  public <T> CompletableFuture<Response<T>> exchangeAsync(String target,
+          String method, TypeReference<T> responseType, Object requestBody,
+          String... extraHeaders) {
+    CallContext call = newCall(null);
+    return finishAsync(call, followRedirectsAsync(call, target, method,
+            requestBody, requestCompression.getThreshold(), extraHeaders)
+            .thenApplyAsync(connection -> {
+              try {
+                return readResponse(call, connection, responseType);
+              } catch(IOException e) {
+                throw new RestClientException(call.translate(e));
+              }
+            }, asyncExecutor), true);
+  }
+
+  private CompletableFuture<TransportConnection> followRedirectsAsync(
+          CallContext call, String target, String method, Object requestBody,
+          int gzipThreshold, String... extraHeaders) {
+    return sendCachedAsync(call, target, method, requestBody, gzipThreshold,
+            extraHeaders).thenComposeAsync(connection -> {
+      String location = redirectLocation(connection);
+      if(location != null) {
+        // follow the redirect
+        return followRedirectsAsync(call, location, "GET", null, -1);
+      }
+      return CompletableFuture.completedFuture(connection);
+    }, asyncExecutor);
+  }
+
+  /**
+   * Read the JSON response or error from the given (non-redirect)
+   * connection into a {@link Response}.
+   */
+  private <T> Response<T> readResponse(CallContext call,
+          TransportConnection connection, TypeReference<T> responseType)
+          throws IOException {
+    int responseCode = connection.getResponseCode();
+    long headersNanos = System.nanoTime() - call.startNanos;
+    T body = readResponseOrError(connection, responseType, false);
+    return new Response<>(body, responseCode, connection.getHeaderFields(),
+            call, headersNanos);
+  }
+
+  /**
+   * Make a GET request via the given response store, serving a fresh
+   * stored response without contacting the server, revalidating a stale
+   * one, and storing any new successful response.
+   */
+  private <T> T storedGet(CallContext call, ResponseStore store, String key,
+          String target, TypeReference<T> responseType) throws IOException {
+    StoredResponse stored = null;
+    try {
+      stored = store.load(key);
+    } catch(IOException e) {
+      // treat as not stored
+    }
+    long now = System.currentTimeMillis();
+    if(stored != null
+            && now - stored.getStoredAt() < forPrefix(cacheTimesToLive,
+                    target, store.getMaxAgeMillis())) {
+      return MAPPER.readValue(stored.getBody(), responseType);
+    }
+    TransportConnection connection =
+            sendWithRetry(call, target, "GET", null, -1, stored == null
+                    ? new String[0]
+                    : stored.conditionalHeaders());
+    if(stored != null && notModified(connection)) {
+      storeQuietly(store, key, stored.revalidated(now));
+      return MAPPER.readValue(stored.getBody(), responseType);
+    }
+    if(connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+      // redirects, errors and empty responses are not stored
+      return readResponseOrError(connection, responseType);
+    }
+    byte[] body;
+    InputStream stream = connection.getInputStream();
+    if("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+      stream = new GZIPInputStream(stream);
+    }
+    try {
+      body = IOUtils.toByteArray(stream);
+    } finally {
+      storeHeaders(connection);
+      stream.close();
+    }
+    T value;
+    try {
+      value = MAPPER.readValue(body, responseType);
+    } catch(IOException e) {
+      throw new RestClientException("Error communicating with server", e);
+    }
+    storeQuietly(store, key, new StoredResponse(body,
+            connection.getHeaderField("ETag"),
+            connection.getHeaderField("Last-Modified"), now));
+    return value;
+  }
+
+  private static void storeQuietly(ResponseStore store, String key,
+          StoredResponse response) {
+    try {
+      store.store(key, response);
+    } catch(IOException e) {
+      // the response simply won't be reused
+    }
+  }
+
+  /**
+   * Make an API request and return the raw data from the response as an
+   * InputStream.
+   * 
+   * @param target the URL to request (relative URLs will resolve
+   *          against the {@link #getBaseUrl() base URL}).
+   * @param method the request method (GET, POST, DELETE, etc.)
+   * @param requestBody the value to send as the request body. If
+   *          <code>null</code>, no request body is sent. If an
+   *          <code>InputStream</code> or a <code>StreamWriteable</code>
+   *          then its content will be sent as-is and an appropriate
+   *          <code>Content-Type</code> should be given in the
+   *          <code>extraHeaders</code> (note that the input stream will
+   *          <em>not</em> be closed by this method, that is the
+   *          responsibility of the caller). Otherwise the provided
+   *          object will be serialized to JSON and sent with the
+   *          default <code>application/json</code> MIME type.
+   * @param gzipThreshold size threshold above which the request body
+   *          may be GZIP compressed, subject to the client's
+   *          {@link #getRequestCompression() compression policy}. If
+   *          negative, the request will never be compressed.
+   * @param extraHeaders any additional HTTP headers, specified as an
+   *          alternating sequence of header names and values
+   * @return for a successful response, the response stream, or
+   *         <code>null</code> for a 201 response
+   * @throws RestClientException if an exception occurs during
+   *           processing, or the server returns a 4xx or 5xx error
+   *           response (in which case the response JSON message will be
+   *           available as a {@link JsonNode} in the exception).
+   */
+  public InputStream requestForStream(String target, String method,
+          Object requestBody, int gzipThreshold, String... extraHeaders)
+          throws RestClientException {
+    return requestForStream(target, method, requestBody, gzipThreshold,
+            null, extraHeaders);
+  }
+
+  /**
+   * Make an API request and return the raw data from the response as an
+   * InputStream, as for
+   * {@link #requestForStream(String, String, Object, int, String...)},
+   * with the given per-call timeouts, deadline and cancellation handle.
+   * The deadline includes the time taken to read the stream, which is
+   * aborted if it is still open when the deadline passes.
+   * 
+   * @param options the options for this call, may be <code>null</code>
+   *          to use the client's settings
+   */
+  public InputStream requestForStream(String target, String method,
+          Object requestBody, int gzipThreshold, CallOptions options,
+          String... extraHeaders) throws RestClientException {
+    CallContext call = newCall(options);
+    try {
+      TransportConnection connection =
+              sendRequestForResponse(call, target, method, requestBody,
+                      gzipThreshold, extraHeaders);
+      if(connection == null) {
+        call.finish();
+        return null;
+      }
+      InputStream stream = callStream(call, connection.getInputStream());
+      if("gzip".equals(connection.getHeaderField("Content-Encoding"))) {
+        stream = new GZIPInputStream(stream);
+      }
+      return stream;
+    } catch(IOException e) {
+      call.finish();
+      throw new RestClientException(call.translate(e));
+    } catch(RuntimeException e) {
+      call.finish();
+      throw e;
+    }
+  }
+
+  /**
+   * Make an API request and return the raw data from the response as an
+   * InputStream, as for
+   * {@link #requestForStream(String, String, Object, int, CallOptions, String...)},
+   * along with the response status, headers, quota and rate limit
+   * information and timings. The body of the returned response is the
+   * stream (<code>null</code> for a 204 response), which must be closed
+   * by the caller.
+   * 
+   * @param options the options for this call, may be <code>null</code>
+   *          to use the client's settings
+   */
+  public Response<InputStream> exchangeForStream(String target,
+          String method, Object requestBody, int gzipThreshold,
+          CallOptions options, String... extraHeaders)
+          throws RestClientException {
+    CallContext call = newCall(options);
+    try {
+      TransportConnection connection =
+              sendFollowingRedirects(call, target, method, requestBody,
+                      gzipThreshold, extraHeaders);
+      int responseCode = connection.getResponseCode();
+      long headersNanos = System.nanoTime() - call.startNanos;
+      InputStream stream = null;
+      if(responseCode == HttpURLConnection.HTTP_NO_CONTENT) {
+        call.finish();
+      } else {
+        stream = callStream(call, connection.getInputStream());
+        if("gzip".equals(connection.getHeaderField("Content-Encoding"))) {
+          stream = new GZIPInputStream(stream);
+        }
+      }
+      return new Response<>(stream, responseCode,
+              connection.getHeaderFields(), call, headersNanos);
+    } catch(IOException e) {
+      call.finish();
+      throw new RestClientException(call.translate(e));
+    } catch(RuntimeException e) {
+      call.finish();
+      throw e;
+    }
+  }
+
+  /**
+   * Make an API request and write the raw data from the response to the
+   * given channel. GZIP-compressed responses are decompressed on the fly
+   * as they are written. When the target is a <code>FileChannel</code>
+   * an uncompressed response is transferred with
+   * <code>FileChannel.transferFrom</code>, otherwise the data passes
+   * through a single reusable direct buffer.
+   * 
+   * @param target the URL to request (relative URLs will resolve
+   *          against the {@link #getBaseUrl() base URL}).
+   * @param method the request method (GET, POST, DELETE, etc.)
+   * @param requestBody the value to send as the request body, as for
+   *          {@link #requestForStream(String, String, Object, int, String...)}
+   * @param gzipThreshold size threshold above which the request body
+   *          may be GZIP compressed, subject to the client's
+   *          {@link #getRequestCompression() compression policy}. If
+   *          negative, the request will never be compressed.
+   * @param channel the channel to which the response should be written.
+   *          The channel will <em>not</em> be closed by this method.
+   * @param extraHeaders any additional HTTP headers, specified as an
+   *          alternating sequence of header names and values
+   * @return the number of (decompressed) bytes written to the channel,
+   *         which will be 0 for a 204 response
+   * @throws RestClientException if an exception occurs during
+   *           processing, or the server returns a 4xx or 5xx error
+   *           response (in which case the response JSON message will be
+   *           available as a {@link JsonNode} in the exception).
+   */
+  public long requestToChannel(String target, String method,
+          Object requestBody, int gzipThreshold, WritableByteChannel channel,
+          String... extraHeaders) throws RestClientException {
+    return requestToChannel(target, method, requestBody, gzipThreshold,
+            channel, null, extraHeaders);
+  }
+
+  /**
+   * Make an API request and write the raw data from the response to the
+   * given channel, as for
+   * {@link #requestToChannel(String, String, Object, int, WritableByteChannel, String...)},
+   * with the given per-call timeouts, deadline and cancellation handle.
+   * 
+   * @param options the options for this call, may be <code>null</code>
+   *          to use the client's settings
+   */
+  public long requestToChannel(String target, String method,
+          Object requestBody, int gzipThreshold, WritableByteChannel channel,
+          CallOptions options, String... extraHeaders)
+          throws RestClientException {
+    CallContext call = newCall(options);
+    try {
+      TransportConnection connection =
+              sendRequestForResponse(call, target, method, requestBody,
+                      gzipThreshold, extraHeaders);
+      if(connection == null) {
+        return 0;
+      }
+      InputStream stream = callStream(call, connection.getInputStream());
+      if("gzip".equals(connection.getHeaderField("Content-Encoding"))) {
+        stream = new GZIPInputStream(stream, TRANSFER_BUFFER_SIZE);
+      }
+      try(ReadableByteChannel source = Channels.newChannel(stream)) {
+        return transfer(source, channel);
+      }
+    } catch(IOException e) {
+      throw new RestClientException(call.translate(e));
+    } finally {
+      call.finish();
+    }
+  }
+
+  /**
+   * Copy all the data from the source channel to the target.
+   * 
+   * @return the number of bytes copied
+   */
+  private static long transfer(ReadableByteChannel source,
+          WritableByteChannel target) throws IOException {
+    long total = 0;
+    if(target instanceof FileChannel) {
+      FileChannel file = (FileChannel)target;
+      long position = file.position();
+      long n;
+      while((n = file.transferFrom(source, position, TRANSFER_BUFFER_SIZE)) > 0) {
+        position += n;
+        total += n;
+      }
+      // transferFrom does not update the channel's own position
+      file.position(position);
+    } else {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(TRANSFER_BUFFER_SIZE);
+      while(source.read(buffer) >= 0 || buffer.position() > 0) {
+        buffer.flip();
+        total += target.write(buffer);
+        buffer.compact();
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Send a request, following any 303 redirects, and return the
+   * connection from which a successful response can be read, or
+   * <code>null</code> for a 204 response.
+   */
+  private TransportConnection sendRequestForResponse(CallContext call,
+          String target, String method, Object requestBody,
+          int gzipThreshold, String... extraHeaders) throws IOException {
+    TransportConnection connection =
+            sendFollowingRedirects(call, target, method, requestBody,
+                    gzipThreshold, extraHeaders);
+    return (connection.getResponseCode() == HttpURLConnection.HTTP_NO_CONTENT)
+            ? null
+            : connection;
+  }
+
+  /**
+   * Send a request, following any 303 redirects, and return the
+   * connection with the final successful (2xx) response.
+   */
+  private TransportConnection sendFollowingRedirects(CallContext call,
+          String target, String method, Object requestBody,
+          int gzipThreshold, String... extraHeaders) throws IOException {
+    TransportConnection connection =
+            sendCached(call, true, target, method, requestBody, gzipThreshold,
+                    extraHeaders);
+    int responseCode = connection.getResponseCode();
+    if(responseCode == HttpURLConnection.HTTP_NO_CONTENT) {
+      // successful response with no content
+      return connection;
+    } else if(responseCode >= 400) {
+      readError(connection);
+      return null; // not reachable, readError always throws exception
+    } else if(responseCode >= 300) {
+      // redirect - all redirects we care about from the GATE Cloud
+      // APIs are 303. We have to follow them manually to make
+      // authentication work properly.
+      String location = connection.getHeaderField("Location");
+      JfrSupport.redirect(responseCode, location);
+      // consume body
+      InputStream stream = connection.getInputStream();
+      IOUtils.copy(stream, NullOutputStream.NULL_OUTPUT_STREAM);
+      IOUtils.closeQuietly(stream);
+      // follow the redirect
+      return sendFollowingRedirects(call, location, method, requestBody,
+              gzipThreshold, extraHeaders);
+    } else {
+      storeHeaders(connection);
+      return connection;
+    }
+  }
+
+  /**
+   * Make an API request and parse the JSON response, using the response
+   * to update the state of an existing object.
+   * 
+   * @param target the URL to request (relative URLs will resolve
+   *          against the {@link #getBaseUrl() base URL}).
+   * @param method the request method (GET, POST, DELETE, etc.)
+   * @param responseObject the Java object to update from a successful
+   *          response message for this URL
+   * @param requestBody the value to send as the request body. If
+   *          <code>null</code>, no request body is sent. If an
+   *          <code>InputStream</code> or a <code>StreamWriteable</code>
+   *          then its content will be sent as-is and an appropriate
+   *          <code>Content-Type</code> should be given in the
+   *          <code>extraHeaders</code> (note that the input stream will
+   *          <em>not</em> be closed by this method, that is the
+   *          responsibility of the caller). Otherwise the provided
+   *          object will be serialized to JSON and sent with the
+   *          default <code>application/json</code> MIME type.
+   * @param extraHeaders any additional HTTP headers, specified as an
+   *          alternating sequence of header names and values
+   * @throws RestClientException if an exception occurs during
+   *           processing, or the server returns a 4xx or 5xx error
+   *           response (in which case the response JSON message will be
+   *           available as a {@link JsonNode} in the exception).
+   */
+  public void requestForUpdate(String target, String method,
+          Object responseObject, Object requestBody, String... extraHeaders)
+          throws RestClientException {
+    CallContext call = newCall(null);
+    try {
+      TransportConnection connection =
+              sendWithRetry(call, target, method, requestBody,
+                      requestCompression.getThreshold(), extraHeaders);
+      readResponseOrErrorForUpdate(connection, responseObject);
+    } catch(IOException e) {
+      throw new RestClientException(call.translate(e));
+    } finally {
+      call.finish();
+    }
+  }
+
+  /**
+   * Asynchronous version of
+   * {@link #request(String, String, TypeReference, Object, String...)}.
+   * The request is sent and the response parsed using this client's
+   * {@link #getAsyncExecutor() async executor}, and with a transport
+   * that supports non-blocking I/O (such as
+   * {@link PooledHttpTransport}) no thread is held while waiting for
+   * the server to respond. Any 303 redirect is followed asynchronously
+   * in the same way as for the synchronous method.
+   * 
+   * @return a future that completes with the deserialized response
+   *         body (or <code>null</code> for a 204 response), or
+   *         exceptionally with a {@link RestClientException} under the
+   *         same conditions as the synchronous method.
+   */
+  public <T> CompletableFuture<T> requestAsync(String target, String method,
+          TypeReference<T> responseType, Object requestBody,
+          String... extraHeaders) {
+    CallContext call = newCall(null);
+    // redirects are followed within the same call, so they share its
+    // deadline and cancellation
+    return finishAsync(call, followRedirectsAsync(call, target, method,
+            requestBody, requestCompression.getThreshold(), extraHeaders)
+            .thenApplyAsync(connection -> readResponseOrError(connection,
+                    responseType, false), asyncExecutor), true);
+  }
+
+  /**
+   * Asynchronous version of
+   * {@link #requestForStream(String, String, Object, int, String...)}.
+   * The future completes as soon as the response headers have been
+   * received, the body can then be read from the returned stream. Note
+   * that reading from the stream may block if the body has not yet
+   * arrived in full.
+   * 
+   * @return a future that completes with the response stream (or
+   *         <code>null</code> for a 204 response), or exceptionally
+   *         with a {@link RestClientException} under the same
+   *         conditions as the synchronous method.
+   */
+  public CompletableFuture<InputStream> requestForStreamAsync(String target,
+          String method, Object requestBody, int gzipThreshold,
+          String... extraHeaders) {
+    return requestForStreamAsync(target, method, requestBody, gzipThreshold,
+            null, extraHeaders);
+  }
+
+  /**
+   * Asynchronous version of
+   * {@link #requestForStream(String, String, Object, int, CallOptions, String...)},
+   * with the given per-call timeouts, deadline and cancellation handle.
+   * 
+   * @param options the options for this call, may be <code>null</code>
+   *          to use the client's settings
+   */
+  public CompletableFuture<InputStream> requestForStreamAsync(String target,
+          String method, Object requestBody, int gzipThreshold,
+          CallOptions options, String... extraHeaders) {
+    CallContext call = newCall(options);
+    // the call finishes when the caller closes the stream
+    return finishAsync(call, requestForStreamAsync(call, target, method,
+            requestBody, gzipThreshold, extraHeaders), false);
+  }
+
+  private CompletableFuture<InputStream> requestForStreamAsync(
+          CallContext call, String target, String method, Object requestBody,
+          int gzipThreshold, String... extraHeaders) {
+    return sendCachedAsync(call, target, method, requestBody, gzipThreshold,
+            extraHeaders).thenComposeAsync(connection -> {
+      String location = redirectLocation(connection);
+      if(location != null) {
+        // follow the redirect
+        return requestForStreamAsync(call, location, method, requestBody,
+                gzipThreshold, extraHeaders);
+      }
+      return CompletableFuture.completedFuture(readResponseStream(call,
+              connection));
+    }, asyncExecutor);
+  }
+
+  /**
+   * Asynchronous version of
+   * {@link #requestForUpdate(String, String, Object, Object, String...)}.
+   * 
+   * @return a future that completes once the response object has been
+   *         updated, or exceptionally with a {@link RestClientException}
+   *         under the same conditions as the synchronous method.
+   */
+  public CompletableFuture<Void> requestForUpdateAsync(String target,
+          String method, Object responseObject, Object requestBody,
+          String... extraHeaders) {
+    CallContext call = newCall(null);
+    return finishAsync(call, sendRequestAsync(call, target, method,
+            requestBody, requestCompression.getThreshold(), extraHeaders)
+            .thenAcceptAsync(connection -> readResponseOrErrorForUpdate(
+                    connection, responseObject), asyncExecutor), true);
+  }
+
+  /**
+   * Asynchronous version of {@link #get(String, TypeReference)}.
+   */
+  public <T> CompletableFuture<T> getAsync(String target,
+          TypeReference<T> responseType) {
+    return requestAsync(target, "GET", responseType, null);
+  }
+
+  /**
+   * Perform HTTP GET requests for several resources concurrently,
+   * parsing each JSON response to create a new object. At most
+   * {@link #getFanOutParallelism()} requests are in flight at once, and
+   * each is sent as for {@link #getAsync(String, TypeReference)}.
+   * 
+   * @param targets the URLs to request (relative URLs will resolve
+   *          against the {@link #getBaseUrl() base URL}).
+   * @param responseType the Java type corresponding to a successful
+   *          response message for these URLs
+   * @return the deserialized response bodies, in the same order as the
+   *         targets
+   * @throws RestClientException if an exception occurs during
+   *           processing of any of the requests, or the server returns
+   *           a 4xx or 5xx error response to any of them. No further
+   *           requests are started once one has failed.
+   */
+  public <T> List<T> getAll(List<String> targets,
+          TypeReference<T> responseType) throws RestClientException {
+    return getAll(targets, responseType, fanOutParallelism);
+  }
+
+  /**
+   * Perform HTTP GET requests for several resources concurrently, as
+   * for {@link #getAll(List, TypeReference)}, with the given maximum
+   * number of requests in flight.
+   * 
+   * @param parallelism the maximum number of concurrent requests
+   */
+  public <T> List<T> getAll(List<String> targets,
+          TypeReference<T> responseType, int parallelism)
+          throws RestClientException {
+    try {
+      return getAllAsync(targets, responseType, parallelism).join();
+    } catch(CompletionException e) {
+      throw unwrap(e);
+    }
+  }
+
+  /**
+   * Asynchronous version of {@link #getAll(List, TypeReference)}.
+   * 
+   * @return a future that completes with the deserialized response
+   *         bodies in the same order as the targets, or exceptionally
+   *         with the {@link RestClientException} from the first request
+   *         to fail.
+   */
+  public <T> CompletableFuture<List<T>> getAllAsync(List<String> targets,
+          TypeReference<T> responseType) {
+    return getAllAsync(targets, responseType, fanOutParallelism);
+  }
+
+  /**
+   * Asynchronous version of {@link #getAll(List, TypeReference, int)}.
+   * Cancelling the returned future stops any further requests from
+   * being started.
+   */
+  public <T> CompletableFuture<List<T>> getAllAsync(List<String> targets,
+          TypeReference<T> responseType, int parallelism) {
+    if(parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be at least 1");
+    }
+    CompletableFuture<List<T>> result = new CompletableFuture<>();
+    AtomicReferenceArray<T> values = new AtomicReferenceArray<>(targets.size());
+    AtomicInteger next = new AtomicInteger();
+    AtomicInteger remaining = new AtomicInteger(targets.size());
+    if(targets.isEmpty()) {
+      result.complete(new ArrayList<T>());
+    }
+    for(int i = 0; i < Math.min(parallelism, targets.size()); i++) {
+      fetchNext(targets, responseType, values, next, remaining, result);
+    }
+    return result;
+  }
+
+  /**
+   * Start the next request of a {@link #getAllAsync getAllAsync} fan-out,
+   * which on completion stores its value and starts the one after, until
+   * all the targets have been fetched or the result is done.
+   */
+  private <T> void fetchNext(List<String> targets,
+          TypeReference<T> responseType, AtomicReferenceArray<T> values,
+          AtomicInteger next, AtomicInteger remaining,
+          CompletableFuture<List<T>> result) {
+    int index = next.getAndIncrement();
+    if(index >= targets.size() || result.isDone()) {
+      return;
+    }
+    getAsync(targets.get(index), responseType).whenComplete((value, error) -> {
+      if(error != null) {
+        result.completeExceptionally(unwrap(error));
+        return;
+      }
+      values.set(index, value);
+      if(remaining.decrementAndGet() == 0) {
+        List<T> list = new ArrayList<>(values.length());
+        for(int i = 0; i < values.length(); i++) {
+          list.add(values.get(i));
+        }
+        result.complete(list);
+      } else {
+        fetchNext(targets, responseType, values, next, remaining, result);
+      }
+    });
+  }
+
+  /**
+   * Asynchronous version of {@link #getForUpdate(String, Object)}.
+   */
+  public CompletableFuture<Void> getForUpdateAsync(String target,
+          Object responseObject) {
+    return requestForUpdateAsync(target, "GET", responseObject, null);
+  }
+
+  /**
+   * Asynchronous version of
+   * {@link #getForUpdateConditional(String, Object)}.
+   */
+  public CompletableFuture<Void> getForUpdateConditionalAsync(String target,
+          Object responseObject) {
+    ValidatorCache cache = validatorCache;
+    String key = cacheKey(target);
+    ValidatorCache.Entry entry = updateEntry(cache, key, responseObject);
+    CallContext call = newCall(null);
+    return finishAsync(call, sendRequestAsync(call, target, "GET", null, -1,
+            entry == null ? new String[0] : entry.conditionalHeaders())
+            .thenAcceptAsync(connection -> {
+              try {
+                if(entry != null && notModified(connection)) {
+                  cache.hit();
+                  return;
+                }
+              } catch(IOException e) {
+                throw new RestClientException(call.translate(e));
+              }
+              cache.miss();
+              readResponseOrErrorForUpdate(connection, responseObject);
+              if(key != null) {
+                cache.store(key, connection.getHeaderFields(), null,
+                        responseObject);
+              }
+            }, asyncExecutor), true);
+  }
+
+  /**
+   * Asynchronous version of {@link #post(String, TypeReference, Object)}.
+   */
+  public <T> CompletableFuture<T> postAsync(String target,
+          TypeReference<T> responseType, Object requestBody) {
+    return requestAsync(target, "POST", responseType, requestBody);
+  }
+
+  /**
+   * Send a request on the async executor and return a future that
+   * completes with the connection once the response headers are
+   * available, retrying according to the {@link #getRetryPolicy() retry
+   * policy}. Retries are scheduled after the backoff delay without
+   * holding a thread.
+   */
+  private CompletableFuture<TransportConnection> sendRequestAsync(
+          CallContext call, String target, String method, Object requestBody,
+          int gzipThreshold, String... extraHeaders) {
+    RetryPolicy policy = retryPolicy;
+    if(!policy.isRetryable(method)) {
+      return attemptAsync(call, 1, null, true, target, method, requestBody,
+              gzipThreshold, extraHeaders);
+    }
+    ReplayableInputStream replayable = null;
+    Object body = requestBody;
+    if(requestBody instanceof InputStream) {
+      replayable =
+              new ReplayableInputStream((InputStream)requestBody,
+                      policy.getSpillThreshold());
+      body = replayable;
+    }
+    CompletableFuture<TransportConnection> result = new CompletableFuture<>();
+    retryAsync(call, 1, policy, replayable, target, method, body,
+            gzipThreshold, extraHeaders, result);
+    if(replayable != null) {
+      final ReplayableInputStream toClose = replayable;
+      result.whenComplete((c, e) -> IOUtils.closeQuietly(toClose));
+    }
+    return result;
+  }
+
+  /**
+   * Make one attempt at an asynchronous request, and either complete the
+   * result or schedule another attempt.
+   */
+  private void retryAsync(CallContext call, int attempt, RetryPolicy policy,
+          ReplayableInputStream replayable, String target, String method,
+          Object body, int gzipThreshold, String[] extraHeaders,
+          CompletableFuture<TransportConnection> result) {
+    if(replayable != null) {
+      replayable.rewind();
+    }
+    attemptAsync(call, attempt, null, true, target, method, body,
+            gzipThreshold, extraHeaders)
+            .whenCompleteAsync((connection, error) -> {
+              long delay;
+              if(error != null) {
+                if(attempt >= policy.getMaxAttempts() || call.isAborted()
+                        || unwrap(error) instanceof CallNotPermittedException) {
+                  result.completeExceptionally(unwrap(error));
+                  return;
+                }
+                delay = policy.backoffMillis(attempt);
+              } else {
+                try {
+                  int code = connection.getResponseCode();
+                  if(attempt >= policy.getMaxAttempts()
+                          || !policy.isRetryableStatus(code)
+                          || (delay = policy.delayMillis(attempt, connection)) < 0) {
+                    result.complete(connection);
+                    return;
+                  }
+                  discard(connection);
+                } catch(IOException e) {
+                  result.completeExceptionally(new RestClientException(e));
+                  return;
+                }
+              }
+              if(delay >= call.remainingMillis()) {
+                // the retry would be too late
+                call.abort(CallContext.DEADLINE_EXCEEDED);
+                result.completeExceptionally(new RestClientException(call
+                        .abortedException()));
+                return;
+              }
+              RETRY_SCHEDULER.schedule(() -> retryAsync(call, attempt + 1,
+                      policy, replayable, target, method, body, gzipThreshold,
+                      extraHeaders, result), delay, TimeUnit.MILLISECONDS);
+            }, asyncExecutor);
+  }
+
+  /**
+   * Send a single request attempt on the async executor and return a
+   * future that completes with the connection once the response headers
+   * are available.
+   * 
+   * @param attempt the attempt number, 1 for the first attempt
+   * @param tracker if not <code>null</code>, records the connection so
+   *          the attempt can be cancelled
+   * @param paced if false, the caller has already taken a slot from the
+   *          rate limiter
+   */
+  private CompletableFuture<TransportConnection> attemptAsync(
+          CallContext call, int attempt, Attempt tracker, boolean paced,
+          String target, String method, Object requestBody, int gzipThreshold,
+          String... extraHeaders) {
+    RateLimiter limiter = rateLimiterFor(target);
+    CircuitBreaker breaker = circuitBreakerFor(target);
+    if(breaker != null) {
+      try {
+        breaker.acquirePermission();
+      } catch(CallNotPermittedException e) {
+        CompletableFuture<TransportConnection> refused =
+                new CompletableFuture<>();
+        refused.completeExceptionally(e);
+        return refused;
+      }
+    }
+    long[] start = new long[1];
+    CompletableFuture<Void> permit = new CompletableFuture<>();
+    awaitPermit(paced ? limiter : null, target, null, permit);
+    return permit.thenApplyAsync(v -> {
+      start[0] = System.nanoTime();
+      try {
+        call.check();
+        TransportConnection connection =
+                sendRequest(call, attempt, target, method, requestBody,
+                        gzipThreshold, extraHeaders);
+        if(tracker != null) {
+          tracker.setConnection(connection);
+        }
+        return connection;
+      } catch(IOException e) {
+        throw new RestClientException(e);
+      }
+    }, asyncExecutor).thenCompose(connection -> connection
+            .getResponseCodeAsync(asyncExecutor).handle((code, error) -> {
+              if(error != null) {
+                throw unwrap(error);
+              }
+              if(limiter != null) {
+                limiter.update(connection.getHeaderFields());
+              }
+              if(breaker != null) {
+                breaker.onResult(code >= 500, System.nanoTime() - start[0]);
+              }
+              return connection;
+            })).whenComplete((connection, error) -> {
+              if(error != null && breaker != null) {
+                if((tracker != null && tracker.isCancelled())
+                        || call.isAborted()) {
+                  breaker.release();
+                } else {
+                  breaker.onResult(true,
+                          start[0] == 0 ? 0 : System.nanoTime() - start[0]);
+                }
+              }
+            });
+  }
+
+  /**
+   * Tracks the connection of an asynchronous attempt so that it can be
+   * cancelled from another thread.
+   */
+  private static class Attempt {
+    // a lock rather than the monitor, as disconnecting may block
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private TransportConnection connection;
+
+    private boolean cancelled;
+
+    void setConnection(TransportConnection connection) {
+      lock.lock();
+      try {
+        this.connection = connection;
+        if(cancelled) {
+          connection.disconnect();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    boolean isCancelled() {
+      lock.lock();
+      try {
+        return cancelled;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Cancel this attempt unless its connection is the given one.
+     */
+    void cancelUnless(TransportConnection keep) {
+      lock.lock();
+      try {
+        if(connection == null || connection != keep) {
+          cancelled = true;
+          if(connection != null) {
+            connection.disconnect();
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Send a request as for {@link #sendWithRetry sendWithRetry}, or
+   * {@link #hedgedExchange hedgedExchange} if <code>hedged</code> is
+   * true. If a plain GET of the same target has recently redirected, the
+   * request goes straight to the cached location instead, falling back
+   * to the original target if that location is refused. Any redirect
+   * response from the original target is cached.
+   */
+  private TransportConnection sendCached(CallContext call, boolean hedged,
+          String target, String method, Object requestBody, int gzipThreshold,
+          String... extraHeaders) throws IOException {
+    RedirectCache cache = redirectCache;
+    String key = redirectKey(target, method, requestBody);
+    String location = (key == null) ? null : cache.lookup(key);
+    if(location != null) {
+      TransportConnection connection =
+              hedged
+                      ? hedgedExchange(call, location, method, null,
+                              gzipThreshold, extraHeaders)
+                      : sendWithRetry(call, location, method, null,
+                              gzipThreshold, extraHeaders);
+      if(!staleRedirect(connection)) {
+        return connection;
+      }
+      cache.stale(key);
+    }
+    TransportConnection connection =
+            hedged
+                    ? hedgedExchange(call, target, method, requestBody,
+                            gzipThreshold, extraHeaders)
+                    : sendWithRetry(call, target, method, requestBody,
+                            gzipThreshold, extraHeaders);
+    rememberRedirect(cache, key, connection);
+    return connection;
+  }
+
+  /**
+   * Asynchronous version of {@link #sendCached sendCached}, sending
+   * each request with {@link #sendRequestAsync sendRequestAsync}.
+   */
+  private CompletableFuture<TransportConnection> sendCachedAsync(
+          CallContext call, String target, String method, Object requestBody,
+          int gzipThreshold, String... extraHeaders) {
+    RedirectCache cache = redirectCache;
+    String key = redirectKey(target, method, requestBody);
+    String location = (key == null) ? null : cache.lookup(key);
+    if(location == null) {
+      return sendRequestAsync(call, target, method, requestBody,
+              gzipThreshold, extraHeaders).thenApplyAsync(connection -> {
+        try {
+          rememberRedirect(cache, key, connection);
+          return connection;
+        } catch(IOException e) {
+          throw new RestClientException(call.translate(e));
+        }
+      }, asyncExecutor);
+    }
+    return sendRequestAsync(call, location, method, null, gzipThreshold,
+            extraHeaders).thenComposeAsync(connection -> {
+      try {
+        if(!staleRedirect(connection)) {
+          return CompletableFuture.completedFuture(connection);
+        }
+      } catch(IOException e) {
+        throw new RestClientException(call.translate(e));
+      }
+      cache.stale(key);
+      return sendCachedAsync(call, target, method, requestBody, gzipThreshold,
+              extraHeaders);
+    }, asyncExecutor);
+  }
+
+  /**
+   * The redirect cache key for a request, or <code>null</code> if its
+   * redirects are not cached because it is not a plain GET.
+   */
+  private String redirectKey(String target, String method,
+          Object requestBody) {
+    if(!"GET".equals(method) || requestBody != null) {
+      return null;
+    }
+    return cacheKey(target);
+  }
+
+  /**
+   * If the response on the given connection is a redirect, remember its
+   * absolute location in the redirect cache under the given key.
+   */
+  private void rememberRedirect(RedirectCache cache, String key,
+          TransportConnection connection) throws IOException {
+    int responseCode = connection.getResponseCode();
+    if(key == null || responseCode < 300 || responseCode >= 400) {
+      return;
+    }
+    String location = connection.getHeaderField("Location");
+    if(location != null) {
+      cache.store(key, new URL(new URL(key), location).toString(),
+              connection.getHeaderFields());
+    }
+  }
+
+  /**
+   * Check whether a request to a cached redirect location was refused
+   * with a 403 or 404 response, typically because a signed URL has
+   * expired, and if so discard the error body to release the
+   * connection.
+   */
+  private boolean staleRedirect(TransportConnection connection)
+          throws IOException {
+    int responseCode = connection.getResponseCode();
+    if(responseCode != HttpURLConnection.HTTP_FORBIDDEN
+            && responseCode != HttpURLConnection.HTTP_NOT_FOUND) {
+      return false;
+    }
+    InputStream stream = connection.getErrorStream();
+    if(stream != null) {
+      IOUtils.copy(stream, NullOutputStream.NULL_OUTPUT_STREAM);
+      IOUtils.closeQuietly(stream);
+    }
+    return true;
+  }
+
+  /**
+   * Send a request according to the {@link HedgingPolicy} registered
+   * for its URL, if any, otherwise as a normal {@link #sendWithRetry
+   * retrying send}. Each round of a hedged request is sent as for
+   * {@link #hedgedRound hedgedRound}, and the {@link #getRetryPolicy()
+   * retry policy} applies to the outcome of the round: if both attempts
+   * fail, or the round's response has a retryable status, the whole
+   * round is retried after the usual backoff, hedging again if the
+   * retry is slow. The hedge is not counted as a retry, so a hedged
+   * request makes at most the policy's maximum number of rounds.
+   */
+  private TransportConnection hedgedExchange(CallContext call, String target,
+          String method, Object requestBody, int gzipThreshold,
+          String... extraHeaders) throws IOException {
+    HedgingPolicy hedging = hedgingPolicyFor(target);
+    if(hedging == null || requestBody instanceof InputStream) {
+      // streams cannot be sent twice
+      return sendWithRetry(call, target, method, requestBody, gzipThreshold,
+              extraHeaders);
+    }
+    RetryPolicy policy = retryPolicy;
+    int maxRounds = policy.isRetryable(method) ? policy.getMaxAttempts() : 1;
+    AtomicInteger attempts = new AtomicInteger();
+    for(int round = 1;; round++) {
+      long delay;
+      try {
+        TransportConnection connection =
+                hedgedRound(call, hedging, attempts, target, method,
+                        requestBody, gzipThreshold, extraHeaders);
+        int code = connection.getResponseCode();
+        if(round >= maxRounds || !policy.isRetryableStatus(code)
+                || (delay = policy.delayMillis(round, connection)) < 0) {
+          return connection;
+        }
+        discard(connection);
+      } catch(IOException e) {
+        // timeouts are retried, but not interruption or cancellation
+        if(round >= maxRounds || isInterruption(call, e)) {
+          throw e;
+        }
+        delay = policy.backoffMillis(round);
+      }
+      call.sleep(delay);
+    }
+  }
+
+  /**
+   * Make one round of a hedged request. The request is sent
+   * asynchronously, and if it has not received a response within the
+   * policy's delay a duplicate is sent, budget and rate limit
+   * permitting. The first response whose status is not retryable is
+   * returned and the other attempt is disconnected. If neither attempt
+   * gets such a response, the round returns a retryable response if
+   * there was one, otherwise it fails with the first attempt's error.
+   * 
+   * @param attempts the number of attempts made so far in this call,
+   *          used to number the attempts reported to listeners
+   */
+  private TransportConnection hedgedRound(CallContext call,
+          HedgingPolicy hedging, AtomicInteger attempts, String target,
+          String method, Object requestBody, int gzipThreshold,
+          String... extraHeaders) throws IOException {
+    long start = System.nanoTime();
+    long delay = hedging.hedgeDelayNanos();
+    if(delay < 0) {
+      // not enough history yet to know what is slow
+      TransportConnection connection =
+              sendAttempt(call, attempts.incrementAndGet(), target, method,
+                      requestBody, gzipThreshold, extraHeaders);
+      hedging.recordResponse(System.nanoTime() - start, false);
+      return connection;
+    }
+    RetryPolicy policy = retryPolicy;
+    CompletableFuture<TransportConnection> winner = new CompletableFuture<>();
+    AtomicInteger outstanding = new AtomicInteger(1);
+    AtomicReference<Throwable> firstError = new AtomicReference<>();
+    AtomicReference<TransportConnection> retryable = new AtomicReference<>();
+    Attempt primary = new Attempt();
+    AtomicReference<Attempt> hedge = new AtomicReference<>();
+    // once every attempt has finished without a usable response, settle
+    // for a retryable response, or fail
+    Runnable attemptDone = () -> {
+      if(outstanding.decrementAndGet() == 0) {
+        TransportConnection c = retryable.getAndSet(null);
+        if(c != null) {
+          if(!winner.complete(c)) {
+            c.disconnect();
+          }
+        } else {
+          winner.completeExceptionally(firstError.get());
+        }
+      }
+    };
+    BiConsumer<Boolean, TransportConnection> onResponse = (isHedge, c) -> {
+      int code;
+      try {
+        code = c.getResponseCode();
+      } catch(IOException e) {
+        firstError.compareAndSet(null, e);
+        attemptDone.run();
+        return;
+      }
+      if(policy.isRetryableStatus(code)) {
+        // keep it in reserve in case the other attempt does no better
+        TransportConnection previous = retryable.getAndSet(c);
+        if(previous != null) {
+          previous.disconnect();
+        }
+        attemptDone.run();
+      } else if(winner.complete(c)) {
+        hedging.recordResponse(System.nanoTime() - start, isHedge);
+      } else {
+        // the other attempt got there first
+        c.disconnect();
+      }
+    };
+    attemptAsync(call, attempts.incrementAndGet(), primary, true, target,
+            method, requestBody, gzipThreshold, extraHeaders).whenComplete(
+            (c, error) -> {
+              if(error == null) {
+                onResponse.accept(false, c);
+              } else {
+                firstError.compareAndSet(null, error);
+                attemptDone.run();
+              }
+            });
+    ScheduledFuture<?> timer = RETRY_SCHEDULER.schedule(() -> {
+      if(winner.isDone() || !hedging.tryHedge()) {
+        return;
+      }
+      RateLimiter limiter = rateLimiterFor(target);
+      if(limiter != null && !limiter.tryAcquire()) {
+        return;
+      }
+      Attempt attempt = new Attempt();
+      hedge.set(attempt);
+      outstanding.incrementAndGet();
+      attemptAsync(call, attempts.incrementAndGet(), attempt, false, target,
+              method, requestBody, gzipThreshold, extraHeaders).whenComplete(
+              (c, error) -> {
+                if(error == null) {
+                  onResponse.accept(true, c);
+                } else {
+                  firstError.compareAndSet(null, error);
+                  attemptDone.run();
+                }
+              });
+    }, delay, TimeUnit.NANOSECONDS);
+    TransportConnection connection = null;
+    try {
+      connection = winner.get();
+      return connection;
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for response");
+    } catch(ExecutionException e) {
+      RestClientException error = failure(call, e.getCause());
+      if(error.getCause() instanceof IOException) {
+        // so that the caller can decide whether to retry
+        throw (IOException)error.getCause();
+      }
+      throw error;
+    } finally {
+      timer.cancel(false);
+      primary.cancelUnless(connection);
+      Attempt h = hedge.get();
+      if(h != null) {
+        h.cancelUnless(connection);
+      }
+    }
+  }
+
+  /**
+   * Complete the given future once the rate limiter (if any) permits
+   * another call, checking again after each suggested wait without
+   * holding a thread in the meantime.
+   */
+  private static void awaitPermit(RateLimiter limiter, String target,
+          Object waitEvent, CompletableFuture<Void> permit) {
+    long wait = (limiter == null) ? 0 : limiter.tryReserve();
+    if(wait > 0) {
+      Object event =
+              (waitEvent == null) ? JfrSupport.beginRateLimitWait() : waitEvent;
+      RETRY_SCHEDULER.schedule(
+              () -> awaitPermit(limiter, target, event, permit), wait,
+              TimeUnit.NANOSECONDS);
+    } else {
+      JfrSupport.endRateLimitWait(waitEvent, target);
+      permit.complete(null);
+    }
+  }
+
+  /**
+   * Unwrap the cause of a <code>CompletionException</code> and convert
+   * it to a {@link RestClientException}.
+   */
+  private static RestClientException unwrap(Throwable error) {
+    Throwable cause = (error instanceof CompletionException
+            && error.getCause() != null) ? error.getCause() : error;
+    return (cause instanceof RestClientException)
+            ? (RestClientException)cause
+            : new RestClientException(cause);
+  }
+
+  /**
+   * Convert the error that failed a call to a
+   * {@link RestClientException}, explaining why if the call was
+   * cancelled or passed its deadline.
+   */
+  private static RestClientException failure(CallContext call,
+          Throwable error) {
+    RestClientException e = unwrap(error);
+    if(call.isAborted() && !(e.getCause() instanceof InterruptedIOException)) {
+      InterruptedIOException aborted = call.abortedException();
+      aborted.initCause(e);
+      return new RestClientException(aborted);
+    }
+    return e;
+  }
+
+  /**
+   * Finish the given call when its future completes, or only if it fails
+   * when <code>always</code> is false (if the result is a stream that
+   * will finish the call when it is closed).
+   */
+  private static <T> CompletableFuture<T> finishAsync(CallContext call,
+          CompletableFuture<T> future, boolean always) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    future.whenComplete((value, error) -> {
+      if(error != null) {
+        RestClientException e = failure(call, error);
+        call.finish();
+        result.completeExceptionally(e);
+      } else {
+        if(always || value == null) {
+          call.finish();
+        }
+        result.complete(value);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Wrap a response stream so that the call finishes when the stream is
+   * closed, and errors caused by aborting the call are reported as such
+   * rather than as a truncated or broken stream.
+   */
+  private static InputStream callStream(CallContext call, InputStream stream) {
+    if(!call.isAbortable()) {
+      return stream;
+    }
+    return new FilterInputStream(stream) {
+      @Override
+      public int read() throws IOException {
+        try {
+          int b = in.read();
+          if(b < 0) {
+            call.checkAborted();
+          }
+          return b;
+        } catch(IOException e) {
+          throw call.translate(e);
+        }
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        try {
+          int n = in.read(b, off, len);
+          if(n < 0) {
+            call.checkAborted();
+          }
+          return n;
+        } catch(IOException e) {
+          throw call.translate(e);
+        }
+      }
+
+      @Override
+      public void close() throws IOException {
+        try {
+          in.close();
+        } finally {
+          call.finish();
+        }
+      }
+    };
+  }
+
+  /**
+   * If the response on the given connection is a 3xx redirect, consume
+   * and discard its body and return the target location, otherwise
+   * return <code>null</code>.
+   */
+  private String redirectLocation(TransportConnection connection) {
+    try {
+      int responseCode = connection.getResponseCode();
+      if(responseCode < 300 || responseCode >= 400) {
+        return null;
+      }
+      // redirect - all redirects we care about from the GATE Cloud
+      // APIs are 303. We have to follow them manually to make
+      // authentication work properly.
+      String location = connection.getHeaderField("Location");
+      JfrSupport.redirect(responseCode, location);
+      // consume body
+      InputStream stream = connection.getInputStream();
+      IOUtils.copy(stream, NullOutputStream.NULL_OUTPUT_STREAM);
+      IOUtils.closeQuietly(stream);
+      return location;
+    } catch(IOException e) {
+      throw new RestClientException(e);
+    }
+  }
+
+  /**
+   * Return the response stream for a non-redirect response, or throw a
+   * suitable exception for an error response.
+   */
+  private InputStream readResponseStream(CallContext call,
+          TransportConnection connection) {
+    try {
+      int responseCode = connection.getResponseCode();
+      if(responseCode == HttpURLConnection.HTTP_NO_CONTENT) {
+        // successful response with no content
+        return null;
+      } else if(responseCode >= 400) {
+        readError(connection);
+        return null; // not reachable, readError always throws exception
+      }
+      storeHeaders(connection);
+      InputStream stream = callStream(call, connection.getInputStream());
+      if("gzip".equals(connection.getHeaderField("Content-Encoding"))) {
+        stream = new GZIPInputStream(stream);
+      }
+      return stream;
+    } catch(IOException e) {
+      throw new RestClientException(call.translate(e));
+    }
+  }
+
+  /**
+   * Add a listener to be notified around every HTTP request made by
+   * this client, for example a {@link MetricsCollector}.
+   */
+  public void addListener(RestClientListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Remove a listener previously added with
+   * {@link #addListener(RestClientListener)}.
+   */
+  public void removeListener(RestClientListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Get the policy used to retry requests that fail with a transient
+   * error.
+   */
+  public RetryPolicy getRetryPolicy() {
+    return retryPolicy;
+  }
+
+  /**
+   * Set the policy used to retry requests that fail with a transient
+   * error. Use {@link RetryPolicy#none()} to disable retries.
+   * 
+   * @param retryPolicy the policy, must not be <code>null</code>
+   */
+  public void setRetryPolicy(RetryPolicy retryPolicy) {
+    if(retryPolicy == null) {
+      throw new IllegalArgumentException("retryPolicy must not be null");
+    }
+    this.retryPolicy = retryPolicy;
+  }
+
+  /**
+   * Get the policy used to decide whether request bodies should be
+   * compressed.
+   */
+  public RequestCompression getRequestCompression() {
+    return requestCompression;
+  }
+
+  /**
+   * Set the policy used to decide whether request bodies should be
+   * compressed. To disable compression of JSON request bodies, set a
+   * policy with a negative threshold.
+   * 
+   * @param requestCompression the policy, must not be <code>null</code>
+   */
+  public void setRequestCompression(RequestCompression requestCompression) {
+    if(requestCompression == null) {
+      throw new IllegalArgumentException(
+              "requestCompression must not be null");
+    }
+    this.requestCompression = requestCompression;
+  }
+
+  /**
+   * Get the executor used to run the blocking parts of asynchronous
+   * requests (writing request bodies and parsing responses).
+   */
+  public Executor getAsyncExecutor() {
+    return asyncExecutor;
+  }
+
+  /**
+   * Set the executor used to run the blocking parts of asynchronous
+   * requests. By default a shared executor is used that runs each task
+   * on a new virtual thread on Java 21 and later, or on a pool of
+   * daemon threads on earlier versions (see {@link VirtualThreads}).
+   * 
+   * @param asyncExecutor the executor, must not be <code>null</code>
+   */
+  public void setAsyncExecutor(Executor asyncExecutor) {
+    if(asyncExecutor == null) {
+      throw new IllegalArgumentException("asyncExecutor must not be null");
+    }
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  /**
+   * Maximum time to wait for a connection to be established, in
+   * milliseconds, 0 for no limit. Individual calls can override this
+   * with {@link CallOptions}.
+   */
+  public int getConnectTimeoutMillis() {
+    return connectTimeoutMillis;
+  }
+
+  public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+    if(connectTimeoutMillis < 0) {
+      throw new IllegalArgumentException(
+              "connectTimeoutMillis must not be negative");
+    }
+    this.connectTimeoutMillis = connectTimeoutMillis;
+  }
+
+  /**
+   * Maximum number of requests that {@link #getAll(List, TypeReference)}
+   * and {@link #getAllAsync(List, TypeReference)} keep in flight at
+   * once.
+   */
+  public int getFanOutParallelism() {
+    return fanOutParallelism;
+  }
+
+  public void setFanOutParallelism(int fanOutParallelism) {
+    if(fanOutParallelism < 1) {
+      throw new IllegalArgumentException(
+              "fanOutParallelism must be at least 1");
+    }
+    this.fanOutParallelism = fanOutParallelism;
+  }
+
+  /**
+   * Maximum time to wait for data from the server, in milliseconds -
+   * either the response headers or the next part of the response body -
+   * 0 for no limit. A request that times out is retried in the same way
+   * as one that fails with an I/O error. Individual calls can override
+   * this with {@link CallOptions}.
+   */
+  public int getReadTimeoutMillis() {
+    return readTimeoutMillis;
+  }
+
+  public void setReadTimeoutMillis(int readTimeoutMillis) {
+    if(readTimeoutMillis < 0) {
+      throw new IllegalArgumentException(
+              "readTimeoutMillis must not be negative");
+    }
+    this.readTimeoutMillis = readTimeoutMillis;
+  }
+
+  /**
+   * Maximum total time for a call, in milliseconds, including any
+   * retries and the reading of a streamed response. A call that is
+   * still in progress at its deadline is aborted and fails with a
+   * <code>SocketTimeoutException</code>. The default is 0, meaning no
+   * deadline. Individual calls can override this with
+   * {@link CallOptions}.
+   */
+  public long getDeadlineMillis() {
+    return deadlineMillis;
+  }
+
+  public void setDeadlineMillis(long deadlineMillis) {
+    if(deadlineMillis < 0) {
+      throw new IllegalArgumentException("deadlineMillis must not be negative");
+    }
+    this.deadlineMillis = deadlineMillis;
+  }
+
+  /**
+   * The cache of HTTP validators used by
+   * {@link #getConditional(String, TypeReference)} and
+   * {@link #getForUpdateConditional(String, Object)}. The hit and miss
+   * counts of this cache show how often the server confirmed that a
+   * resource was unchanged. To disable conditional requests, set a
+   * cache with a maximum size of 0.
+   */
+  public ValidatorCache getValidatorCache() {
+    return validatorCache;
+  }
+
+  public void setValidatorCache(ValidatorCache validatorCache) {
+    if(validatorCache == null) {
+      throw new IllegalArgumentException("validatorCache must not be null");
+    }
+    this.validatorCache = validatorCache;
+  }
+
+  /**
+   * The cache of resolved redirect locations, used to send repeated GET
+   * requests for resources that redirect (such as job reports and
+   * {@link uk.ac.gate.cloud.common.Downloadable downloadable} files)
+   * straight to their target. To disable it, set a cache with a maximum
+   * size of 0.
+   */
+  public RedirectCache getRedirectCache() {
+    return redirectCache;
+  }
+
+  public void setRedirectCache(RedirectCache redirectCache) {
+    if(redirectCache == null) {
+      throw new IllegalArgumentException("redirectCache must not be null");
+    }
+    this.redirectCache = redirectCache;
+  }
+
+  /**
+   * The limiter for bulk uploads, such as files added to a
+   * {@link uk.ac.gate.cloud.data.DataBundle}, or <code>null</code> (the
+   * default) if uploads are not limited.
+   */
+  public BandwidthLimiter getUploadBandwidthLimiter() {
+    return uploadBandwidthLimiter;
+  }
+
+  /**
+   * Limit the combined rate of all bulk uploads made through this
+   * client.
+   * 
+   * @param uploadBandwidthLimiter the limiter, which may be shared with
+   *          other clients, or <code>null</code> for no limit
+   */
+  public void setUploadBandwidthLimiter(
+          BandwidthLimiter uploadBandwidthLimiter) {
+    this.uploadBandwidthLimiter = uploadBandwidthLimiter;
+  }
+
+  /**
+   * The limiter for file downloads made with
+   * {@link #download(URL, Path, CallOptions)}, or <code>null</code> (the
+   * default) if downloads are not limited.
+   */
+  public BandwidthLimiter getDownloadBandwidthLimiter() {
+    return downloadBandwidthLimiter;
+  }
+
+  /**
+   * Limit the combined rate of all file downloads made through this
+   * client.
+   * 
+   * @param downloadBandwidthLimiter the limiter, which may be shared with
+   *          other clients, or <code>null</code> for no limit
+   */
+  public void setDownloadBandwidthLimiter(
+          BandwidthLimiter downloadBandwidthLimiter) {
+    this.downloadBandwidthLimiter = downloadBandwidthLimiter;
+  }
+
+  /**
+   * The cache used by {@link #getCached(String, TypeReference)} for
+   * slow-changing resources such as the shop catalogue and online API
+   * metadata, or <code>null</code> (the default) if these are fetched
+   * from the server every time.
+   */
+  public ResourceCache getResourceCache() {
+    return resourceCache;
+  }
+
+  /**
+   * Enable or disable caching of slow-changing resources. The same cache
+   * may be shared between several clients that use the same API key.
+   * 
+   * @param resourceCache the cache, or <code>null</code> to disable
+   *          caching
+   */
+  public void setResourceCache(ResourceCache resourceCache) {
+    this.resourceCache = resourceCache;
+  }
+
+  /**
+   * The persistent store from which plain GET requests are served while
+   * their stored responses are fresh, or <code>null</code> (the default)
+   * if responses are not stored.
+   */
+  public ResponseStore getResponseStore() {
+    return responseStore;
+  }
+
+  /**
+   * Set a persistent store for the responses to GET requests made with
+   * {@link #get(String, TypeReference)} and the other methods that
+   * parse a JSON response into a new object. Stored objects are
+   * deserialized afresh each time, so they are not shared between
+   * callers.
+   * 
+   * @param responseStore the store, or <code>null</code> to stop
+   *          storing responses
+   */
+  public void setResponseStore(ResponseStore responseStore) {
+    this.responseStore = responseStore;
+  }
+
+  /**
+   * Set how long resources whose URL starts with the given prefix are
+   * held in the {@link #getResourceCache() resource cache}, or used from
+   * the {@link #getResponseStore() response store} without revalidation,
+   * in place of the cache or store's default time-to-live.
+   * 
+   * @param urlPrefix the URL prefix (relative URLs will resolve against
+   *          the {@link #getBaseUrl() base URL})
+   * @param timeToLiveMillis the time-to-live, 0 to never cache these
+   *          resources, or -1 to remove the setting for this prefix
+   */
+  public void setCacheTimeToLive(String urlPrefix, long timeToLiveMillis) {
+    if(timeToLiveMillis < -1) {
+      throw new IllegalArgumentException(
+              "timeToLiveMillis must be -1 or more");
+    }
+    String prefix = resolvePrefix(urlPrefix);
+    if(timeToLiveMillis == -1) {
+      cacheTimesToLive.remove(prefix);
+    } else {
+      cacheTimesToLive.put(prefix, timeToLiveMillis);
+    }
+  }
+
+  /**
+   * Start a new call using this client's settings, overridden by the
+   * given options if not <code>null</code>.
+   */
+  private CallContext newCall(CallOptions options) {
+    return new CallContext(connectTimeoutMillis, readTimeoutMillis,
+            deadlineMillis, options).start(RETRY_SCHEDULER);
+  }
+
+  /**
+   * Send a request and wait for the response status, retrying according
+   * to the {@link #getRetryPolicy() retry policy} if the request fails
+   * with an I/O error or a retryable status code. If the request cannot
+   * be retried, or the retries are exhausted, the last response is
+   * returned for the caller to handle in the usual way.
+   */
+  private TransportConnection sendWithRetry(CallContext call,
+          String target, String method, Object requestBody, int gzipThreshold,
+          String... extraHeaders) throws IOException {
+    RetryPolicy policy = retryPolicy;
+    if(!policy.isRetryable(method)) {
+      return sendAttempt(call, 1, target, method, requestBody, gzipThreshold,
+              extraHeaders);
+    }
+    ReplayableInputStream replayable = null;
+    Object body = requestBody;
+    if(requestBody instanceof InputStream) {
+      // record the stream as it is sent so it can be replayed
+      replayable =
+              new ReplayableInputStream((InputStream)requestBody,
+                      policy.getSpillThreshold());
+      body = replayable;
+    }
+    try {
+      for(int attempt = 1;; attempt++) {
+        if(replayable != null) {
+          replayable.rewind();
+        }
+        long delay;
+        try {
+          TransportConnection connection =
+                  sendAttempt(call, attempt, target, method, body,
+                          gzipThreshold, extraHeaders);
+          int code = connection.getResponseCode();
+          if(attempt >= policy.getMaxAttempts()
+                  || !policy.isRetryableStatus(code)
+                  || (delay = policy.delayMillis(attempt, connection)) < 0) {
+            return connection;
+          }
+          discard(connection);
+        } catch(IOException e) {
+          // timeouts are retried, but not interruption or cancellation
+          if(attempt >= policy.getMaxAttempts() || isInterruption(call, e)) {
+            throw e;
+          }
+          delay = policy.backoffMillis(attempt);
+        }
+        call.sleep(delay);
+      }
+    } finally {
+      IOUtils.closeQuietly(replayable);
+    }
+  }
+
+  /**
+   * Send a single request attempt and wait for the response status.
+   * The attempt must first be permitted by the circuit breaker (if any)
+   * and then waits for the rate limiter (if any), both of which are
+   * updated from the response.
+   */
+  private TransportConnection sendAttempt(CallContext call, int attempt,
+          String target, String method, Object requestBody,
+          int gzipThreshold, String... extraHeaders) throws IOException {
+    call.check();
+    RateLimiter limiter = rateLimiterFor(target);
+    CircuitBreaker breaker = circuitBreakerFor(target);
+    if(breaker != null) {
+      breaker.acquirePermission();
+    }
+    long start = 0;
+    try {
+      pace(limiter, target);
+      call.check();
+      start = System.nanoTime();
+      TransportConnection connection =
+              sendRequest(call, attempt, target, method, requestBody,
+                      gzipThreshold, extraHeaders);
+      int code = connection.getResponseCode();
+      if(limiter != null) {
+        limiter.update(connection.getHeaderFields());
+      }
+      if(breaker != null) {
+        breaker.onResult(code >= 500, System.nanoTime() - start);
+      }
+      return connection;
+    } catch(IOException e) {
+      if(breaker != null) {
+        if(isInterruption(call, e)) {
+          breaker.release();
+        } else {
+          breaker.onResult(true, System.nanoTime() - start);
+        }
+      }
+      throw call.translate(e);
+    } catch(RuntimeException e) {
+      if(breaker != null) {
+        breaker.onResult(true, System.nanoTime() - start);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Was the given exception caused by the thread being interrupted or
+   * the call being aborted, rather than a problem with the server?
+   * Timeouts are considered problems with the server.
+   */
+  private static boolean isInterruption(CallContext call, IOException e) {
+    return call.isAborted() || (e instanceof InterruptedIOException
+            && Thread.currentThread().isInterrupted());
+  }
+
+  /**
+   * Wait until the given rate limiter (if any) permits a call to the
+   * given target.
+   */
+  private static void pace(RateLimiter limiter, String target)
+          throws IOException {
+    if(limiter != null && limiter.tryReserve() > 0) {
+      // only calls that actually have to wait are recorded
+      Object event = JfrSupport.beginRateLimitWait();
+      try {
+        limiter.acquire();
+      } catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException(
+                "Interrupted waiting for rate limiter");
+      } finally {
+        JfrSupport.endRateLimitWait(event, target);
+      }
+    }
+  }
+
+  /**
+   * Find the rate limiter that applies to the given target URL - the
+   * limiter registered for the longest matching prefix, or the
+   * client-wide limiter if no prefix matches.
+   */
+  private RateLimiter rateLimiterFor(String target) {
+    return forPrefix(prefixRateLimiters, target, rateLimiter);
+  }
+
+  /**
+   * Find the circuit breaker registered for the longest prefix of the
+   * given target URL, or <code>null</code> if there is none.
+   */
+  private CircuitBreaker circuitBreakerFor(String target) {
+    return forPrefix(circuitBreakers, target, null);
+  }
+
+  /**
+   * Find the hedging policy registered for the longest prefix of the
+   * given target URL, or <code>null</code> if there is none.
+   */
+  private HedgingPolicy hedgingPolicyFor(String target) {
+    return forPrefix(hedgingPolicies, target, null);
+  }
+
+  /**
+   * Find the value registered in the given map for the longest prefix
+   * of the target URL, or the default value if no prefix matches.
+   */
+  private <T> T forPrefix(Map<String, T> byPrefix, String target,
+          T defaultValue) {
+    if(byPrefix.isEmpty()) {
+      return defaultValue;
+    }
+    String url;
+    try {
+      url = new URL(baseUrl, target).toString();
+    } catch(MalformedURLException e) {
+      // sendRequest will report this
+      return defaultValue;
+    }
+    T best = defaultValue;
+    int bestLength = -1;
+    for(Map.Entry<String, T> e : byPrefix.entrySet()) {
+      if(url.startsWith(e.getKey()) && e.getKey().length() > bestLength) {
+        best = e.getValue();
+        bestLength = e.getKey().length();
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Resolve a URL prefix against the base URL.
+   */
+  private String resolvePrefix(String urlPrefix) {
+    try {
+      return new URL(baseUrl, urlPrefix).toString();
+    } catch(MalformedURLException e) {
+      throw new IllegalArgumentException("Invalid URL prefix " + urlPrefix, e);
+    }
+  }
+
+  /**
+   * Get the circuit breaker protecting requests whose URL starts with
+   * the given prefix.
+   * 
+   * @param urlPrefix the URL prefix (relative URLs will resolve against
+   *          the {@link #getBaseUrl() base URL})
+   * @return the breaker, or <code>null</code> if none is registered for
+   *         exactly this prefix
+   */
+  public CircuitBreaker getCircuitBreaker(String urlPrefix) {
+    return circuitBreakers.get(resolvePrefix(urlPrefix));
+  }
+
+  /**
+   * Protect requests whose URL starts with the given prefix with a
+   * circuit breaker. Every request attempt (including retries) must be
+   * permitted by the breaker, and its outcome is recorded by the
+   * breaker. A request refused by the breaker fails immediately with a
+   * {@link CallNotPermittedException} and is not retried. This is used by
+   * {@link uk.ac.gate.cloud.online.ApiEndpoint#setCircuitBreaker(CircuitBreaker)}
+   * to protect a particular endpoint.
+   * 
+   * @param urlPrefix the URL prefix (relative URLs will resolve against
+   *          the {@link #getBaseUrl() base URL})
+   * @param circuitBreaker the breaker, or <code>null</code> to remove the
+   *          breaker for this prefix
+   */
+  public void setCircuitBreaker(String urlPrefix,
+          CircuitBreaker circuitBreaker) {
+    String prefix = resolvePrefix(urlPrefix);
+    if(circuitBreaker == null) {
+      circuitBreakers.remove(prefix);
+    } else {
+      circuitBreakers.put(prefix, circuitBreaker);
+    }
+  }
+
+  /**
+   * Get the rate limiter applied to requests made by this client that
+   * do not match a more specific
+   * {@link #setRateLimiter(String, RateLimiter) per-prefix limiter}.
+   * 
+   * @return the limiter, or <code>null</code> if requests are not rate
+   *         limited
+   */
+  public RateLimiter getRateLimiter() {
+    return rateLimiter;
+  }
+
+  /**
+   * Set the rate limiter applied to requests made by this client. Every
+   * request attempt (including retries) waits for the limiter before it
+   * is sent, and the limiter is updated from the rate limit headers of
+   * every response. The same limiter may be shared between several
+   * clients that use the same API key.
+   * 
+   * @param rateLimiter the limiter, or <code>null</code> to remove any
+   *          rate limit
+   */
+  public void setRateLimiter(RateLimiter rateLimiter) {
+    this.rateLimiter = rateLimiter;
+  }
+
+  /**
+   * Get the hedging policy for requests whose URL starts with the given
+   * prefix.
+   * 
+   * @param urlPrefix the URL prefix (relative URLs will resolve against
+   *          the {@link #getBaseUrl() base URL})
+   * @return the policy, or <code>null</code> if none is registered for
+   *         exactly this prefix
+   */
+  public HedgingPolicy getHedgingPolicy(String urlPrefix) {
+    return hedgingPolicies.get(resolvePrefix(urlPrefix));
+  }
+
+  /**
+   * Hedge requests whose URL starts with the given prefix according to
+   * the given policy. Hedging applies to the methods that return the
+   * raw response ({@link #requestForStream requestForStream} and
+   * {@link #requestToChannel requestToChannel}), which are used by
+   * {@link uk.ac.gate.cloud.online.ApiEndpoint#setHedgingPolicy(HedgingPolicy)}
+   * to hedge calls to a particular endpoint.
+   * 
+   * @param urlPrefix the URL prefix (relative URLs will resolve against
+   *          the {@link #getBaseUrl() base URL})
+   * @param hedgingPolicy the policy, or <code>null</code> to stop
+   *          hedging requests with this prefix
+   */
+  public void setHedgingPolicy(String urlPrefix, HedgingPolicy hedgingPolicy) {
+    String prefix = resolvePrefix(urlPrefix);
+    if(hedgingPolicy == null) {
+      hedgingPolicies.remove(prefix);
+    } else {
+      hedgingPolicies.put(prefix, hedgingPolicy);
     }
   }
 
   /**
-   * Make an API request and return the raw data from the response as an
-   * InputStream.
+   * Get the rate limiter for requests whose URL starts with the given
+   * prefix.
    * 
-   * @param target the URL to request (relative URLs will resolve
-   *          against the {@link #getBaseUrl() base URL}).
-   * @param method the request method (GET, POST, DELETE, etc.)
-   * @param requestBody the value to send as the request body. If
-   *          <code>null</code>, no request body is sent. If an
-   *          <code>InputStream</code> or a <code>StreamWriteable</code>
-   *          then its content will be sent as-is and an appropriate
-   *          <code>Content-Type</code> should be given in the
-   *          <code>extraHeaders</code> (note that the input stream will
-   *          <em>not</em> be closed by this method, that is the
-   *          responsibility of the caller). Otherwise the provided
-   *          object will be serialized to JSON and sent with the
-   *          default <code>application/json</code> MIME type.
-   * @param gzipThreshold size threshold above which the request body
-   *          should be GZIP compressed. If negative, the request will
-   *          never be compressed.
-   * @param extraHeaders any additional HTTP headers, specified as an
-   *          alternating sequence of header names and values
-   * @return for a successful response, the response stream, or
-   *         <code>null</code> for a 201 response
-   * @throws RestClientException if an exception occurs during
-   *           processing, or the server returns a 4xx or 5xx error
-   *           response (in which case the response JSON message will be
-   *           available as a {@link JsonNode} in the exception).
+   * @param urlPrefix the URL prefix (relative URLs will resolve against
+   *          the {@link #getBaseUrl() base URL})
+   * @return the limiter, or <code>null</code> if none is registered for
+   *         exactly this prefix
    */
-  public InputStream requestForStream(String target, String method,
-          Object requestBody, int gzipThreshold, String... extraHeaders)
-          throws RestClientException {
+  public RateLimiter getRateLimiter(String urlPrefix) {
+    return prefixRateLimiters.get(resolvePrefix(urlPrefix));
+  }
+
+  /**
+   * Set the rate limiter applied to requests whose URL starts with the
+   * given prefix, in place of the client-wide limiter. This is used by
+   * {@link uk.ac.gate.cloud.online.ApiEndpoint#setRateLimiter(RateLimiter)}
+   * to limit calls to a particular endpoint.
+   * 
+   * @param urlPrefix the URL prefix (relative URLs will resolve against
+   *          the {@link #getBaseUrl() base URL})
+   * @param rateLimiter the limiter, or <code>null</code> to remove the
+   *          limiter for this prefix
+   */
+  public void setRateLimiter(String urlPrefix, RateLimiter rateLimiter) {
+    String prefix = resolvePrefix(urlPrefix);
+    if(rateLimiter == null) {
+      prefixRateLimiters.remove(prefix);
+    } else {
+      prefixRateLimiters.put(prefix, rateLimiter);
+    }
+  }
+
+  /**
+   * Read and discard the response from a connection that is going to be
+   * retried, so the underlying network connection can be reused.
+   */
+  private void discard(TransportConnection connection) {
     try {
-      HttpURLConnection connection =
-              sendRequest(target, method, requestBody, gzipThreshold,
-                      extraHeaders);
-      int responseCode = connection.getResponseCode();
-      if(responseCode == HttpURLConnection.HTTP_NO_CONTENT) {
-        // successful response with no content
-        return null;
-      } else if(responseCode >= 400) {
-        readError(connection);
-        return null; // not reachable, readError always throws exception
-      } else if(responseCode >= 300) {
-        // redirect - all redirects we care about from the GATE Cloud
-        // APIs are 303. We have to follow them manually to make
-        // authentication work properly.
-        String location = connection.getHeaderField("Location");
-        // consume body
-        InputStream stream = connection.getInputStream();
-        IOUtils.copy(stream, NullOutputStream.NULL_OUTPUT_STREAM);
-        IOUtils.closeQuietly(stream);
-        // follow the redirect
-        return requestForStream(location, method, requestBody, gzipThreshold,
-                extraHeaders);
-      } else {
-        storeHeaders(connection);
-        if("gzip".equals(connection.getHeaderField("Content-Encoding"))) {
-          return new GZIPInputStream(connection.getInputStream());
-        } else {
-          return connection.getInputStream();
+      InputStream stream =
+              connection.getResponseCode() >= 400
+                      ? connection.getErrorStream()
+                      : connection.getInputStream();
+      if(stream != null) {
+        try {
+          IOUtils.copy(stream, NullOutputStream.NULL_OUTPUT_STREAM);
+        } finally {
+          IOUtils.closeQuietly(stream);
         }
       }
     } catch(IOException e) {
-      throw new RestClientException(e);
+      connection.disconnect();
     }
-
   }
 
   /**
-   * Make an API request and parse the JSON response, using the response
-   * to update the state of an existing object.
-   * 
-   * @param target the URL to request (relative URLs will resolve
-   *          against the {@link #getBaseUrl() base URL}).
-   * @param method the request method (GET, POST, DELETE, etc.)
-   * @param responseObject the Java object to update from a successful
-   *          response message for this URL
-   * @param requestBody the value to send as the request body. If
-   *          <code>null</code>, no request body is sent. If an
-   *          <code>InputStream</code> or a <code>StreamWriteable</code>
-   *          then its content will be sent as-is and an appropriate
-   *          <code>Content-Type</code> should be given in the
-   *          <code>extraHeaders</code> (note that the input stream will
-   *          <em>not</em> be closed by this method, that is the
-   *          responsibility of the caller). Otherwise the provided
-   *          object will be serialized to JSON and sent with the
-   *          default <code>application/json</code> MIME type.
-   * @param extraHeaders any additional HTTP headers, specified as an
-   *          alternating sequence of header names and values
-   * @throws RestClientException if an exception occurs during
-   *           processing, or the server returns a 4xx or 5xx error
-   *           response (in which case the response JSON message will be
-   *           available as a {@link JsonNode} in the exception).
+   * Handles the sending side of an HTTP request, returning a connection
+   * from which the response (or error) can be read.
    */
-  public void requestForUpdate(String target, String method,
-          Object responseObject, Object requestBody, String... extraHeaders)
-          throws RestClientException {
+  private TransportConnection sendRequest(CallContext call, int attempt,
+          String target, String method, Object requestBody,
+          int gzipThreshold, String... extraHeaders) throws IOException {
+    TransportConnection connection =
+            openConnection(call, new URL(baseUrl, target), method, attempt,
+                    true);
     try {
-      HttpURLConnection connection =
-              sendRequest(target, method, requestBody, -1, extraHeaders);
-      readResponseOrErrorForUpdate(connection, responseObject);
-    } catch(IOException e) {
-      throw new RestClientException(e);
+      writeRequest(connection, requestBody, gzipThreshold, extraHeaders);
+    } catch(IOException | RuntimeException e) {
+      if(connection instanceof MeteredConnection) {
+        ((MeteredConnection)connection).failed(e);
+      }
+      throw e;
     }
+    return connection;
   }
 
   /**
-   * Handles the sending side of an HTTP request, returning a connection
-   * from which the response (or error) can be read.
+   * Set the request headers and write the request body (if any) to the
+   * given connection.
    */
-  private HttpURLConnection sendRequest(String target, String method,
+  private void writeRequest(TransportConnection connection,
           Object requestBody, int gzipThreshold, String... extraHeaders)
           throws IOException {
-    URL requestUrl = new URL(baseUrl, target);
-    HttpURLConnection connection =
-            (HttpURLConnection)requestUrl.openConnection();
-    connection.setRequestMethod(method);
-    connection.setInstanceFollowRedirects(false);
-    if(authorizationHeader != null) {
-      connection.setRequestProperty("Authorization", authorizationHeader);
-    }
     boolean sentAccept = false;
-    boolean sentContentType = false;
+    boolean sentAcceptEncoding = false;
+    boolean sentContentEncoding = false;
+    String contentType = null;
     if(extraHeaders != null) {
       for(int i = 0; i < extraHeaders.length; i++) {
         if("Accept".equalsIgnoreCase(extraHeaders[i])) {
           sentAccept = true;
         }
+        if("Accept-Encoding".equalsIgnoreCase(extraHeaders[i])) {
+          sentAcceptEncoding = true;
+        }
+        if("Content-Encoding".equalsIgnoreCase(extraHeaders[i])) {
+          sentContentEncoding = true;
+        }
         if("Content-Type".equalsIgnoreCase(extraHeaders[i])) {
-          sentContentType = true;
+          contentType = extraHeaders[i + 1];
         }
         connection.setRequestProperty(extraHeaders[i], extraHeaders[++i]);
       }
@@ -307,15 +2633,32 @@ public class RestClient {
     if(!sentAccept) {
       connection.setRequestProperty("Accept", "application/json");
     }
+    if(!sentAcceptEncoding) {
+      connection.setRequestProperty("Accept-Encoding", "gzip");
+    }
     if(requestBody != null) {
-      connection.setDoOutput(true);
-      if(!sentContentType) {
-        connection.setRequestProperty("Content-Type", "application/json");
+      if(contentType == null) {
+        contentType = "application/json";
+        connection.setRequestProperty("Content-Type", contentType);
+      }
+      // the body is always streamed - fixed length if we know the
+      // length up front, otherwise chunked
+      long contentLength = -1;
+      if(requestBody instanceof SizedStreamWritable) {
+        contentLength = ((SizedStreamWritable)requestBody).getContentLength();
+      } else if(!(requestBody instanceof InputStream)
+              && !(requestBody instanceof StreamWritable)) {
+        // JSON bodies are small, serialize them first to find the length
+        requestBody = MAPPER.writeValueAsBytes(requestBody);
+        contentLength = ((byte[])requestBody).length;
       }
       OutputStream out;
-      if(gzipThreshold >= 0) {
-        out = new GZIPThresholdOutputStream(connection, gzipThreshold);
+      if(gzipThreshold >= 0 && !sentContentEncoding
+              && (contentLength < 0 || contentLength >= gzipThreshold)) {
+        out = new CompressingOutputStream(connection, requestCompression,
+                gzipThreshold, contentType, contentLength);
       } else {
+        connection.setContentLength(contentLength);
         out = connection.getOutputStream();
       }
       try {
@@ -324,12 +2667,34 @@ public class RestClient {
         } else if(requestBody instanceof StreamWritable) {
           ((StreamWritable)requestBody).writeTo(out);
         } else {
-          MAPPER.writeValue(out, requestBody);
+          out.write((byte[])requestBody);
         }
       } finally {
         out.close();
       }
     }
+  }
+
+  /**
+   * Open a connection to the given URL through the current transport,
+   * applying the call's timeouts and adding the authorization header if
+   * requested and this client has credentials. If there are any
+   * listeners, or the request is being recorded by Java Flight Recorder,
+   * the connection is wrapped to report the request.
+   */
+  private TransportConnection openConnection(CallContext call, URL url,
+          String method, int attempt, boolean authorize) throws IOException {
+    TransportConnection connection = transport.open(url, method);
+    Object flightEvent = JfrSupport.beginRequest();
+    if(!listeners.isEmpty() || flightEvent != null) {
+      connection =
+              new MeteredConnection(connection, new RequestEvent(method,
+                      url.toString(), attempt), listeners, flightEvent);
+    }
+    call.opened(connection);
+    if(authorize && authorizationHeader != null) {
+      connection.setRequestProperty("Authorization", authorizationHeader);
+    }
     return connection;
   }
 
@@ -337,7 +2702,7 @@ public class RestClient {
    * Read a response or error message from the given connection,
    * handling any 303 redirect responses.
    */
-  private <T> T readResponseOrError(HttpURLConnection connection,
+  private <T> T readResponseOrError(TransportConnection connection,
           TypeReference<T> responseType) throws RestClientException {
     return readResponseOrError(connection, responseType, true);
   }
@@ -347,7 +2712,7 @@ public class RestClient {
    * handling any 303 redirect responses if <code>followRedirects</code>
    * is true.
    */
-  private <T> T readResponseOrError(HttpURLConnection connection,
+  private <T> T readResponseOrError(TransportConnection connection,
           TypeReference<T> responseType, boolean followRedirects)
           throws RestClientException {
     InputStream stream = null;
@@ -377,6 +2742,7 @@ public class RestClient {
         // APIs are 303. We have to follow them manually to make
         // authentication work properly.
         String location = connection.getHeaderField("Location");
+        JfrSupport.redirect(responseCode, location);
         // consume body
         IOUtils.copy(stream, NullOutputStream.NULL_OUTPUT_STREAM);
         IOUtils.closeQuietly(stream);
@@ -393,7 +2759,7 @@ public class RestClient {
    * Read a response or error message from the given connection, and
    * update the state of the given object.
    */
-  private void readResponseOrErrorForUpdate(HttpURLConnection connection,
+  private void readResponseOrErrorForUpdate(TransportConnection connection,
           Object responseObject) throws RestClientException {
     InputStream stream = null;
     try {
@@ -401,7 +2767,11 @@ public class RestClient {
         // successful response with no content
         return;
       }
-      stream = connection.getInputStream();
+      if("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+        stream = new GZIPInputStream(connection.getInputStream());
+      } else {
+        stream = connection.getInputStream();
+      }
       try {
         MAPPER.readerForUpdating(responseObject).readValue(stream);
       } finally {
@@ -417,7 +2787,7 @@ public class RestClient {
    * suitable {@link RestClientException}. This method always throws an
    * exception, it will never return normally.
    */
-  private void readError(HttpURLConnection connection)
+  private void readError(TransportConnection connection)
           throws RestClientException {
     InputStream stream;
     try {
@@ -468,6 +2838,79 @@ public class RestClient {
     return request(target, "GET", responseType, null);
   }
 
+  /**
+   * Perform an HTTP GET request for a URL that returns a JSON array, and
+   * return a lazy stream over the array elements. The response is read
+   * incrementally by a Jackson <code>JsonParser</code>, with each
+   * element bound to a Java object only when the stream reaches it, so
+   * the full list is never held in memory. The returned stream holds
+   * the HTTP connection open and must be closed once it is no longer
+   * required, preferably using a try-with-resources block.
+   * 
+   * @param target the URL to request (relative URLs will resolve
+   *          against the {@link #getBaseUrl() base URL}).
+   * @param elementType the Java type corresponding to each element of
+   *          the response array
+   * @return a stream of the deserialized array elements. Any error
+   *         reading the remainder of the response while the stream is
+   *         being consumed is thrown as a {@link RestClientException}.
+   * @throws RestClientException if an exception occurs making the
+   *           request, or the server returns a 4xx or 5xx error
+   *           response.
+   */
+  public <T> Stream<T> getStream(String target, TypeReference<T> elementType)
+          throws RestClientException {
+    InputStream stream = requestForStream(target, "GET", null, -1);
+    if(stream == null) {
+      return Stream.empty();
+    }
+    MappingIterator<T> values;
+    try {
+      JsonParser parser = MAPPER.getFactory().createParser(stream);
+      if(parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new IOException("Expected a JSON array but found "
+                + parser.currentToken());
+      }
+      // step inside the array, the iterator will then bind its
+      // elements one at a time and stop at the closing bracket
+      parser.clearCurrentToken();
+      values = MAPPER.readerFor(elementType).readValues(parser);
+    } catch(IOException e) {
+      IOUtils.closeQuietly(stream);
+      throw new RestClientException(e);
+    }
+    Iterator<T> iterator = new Iterator<T>() {
+      @Override
+      public boolean hasNext() {
+        try {
+          return values.hasNextValue();
+        } catch(IOException e) {
+          throw new RestClientException(e);
+        }
+      }
+
+      @Override
+      public T next() {
+        try {
+          return values.nextValue();
+        } catch(IOException e) {
+          throw new RestClientException(e);
+        }
+      }
+    };
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED
+                    | Spliterator.NONNULL), false).onClose(() -> {
+      try {
+        values.close();
+      } catch(IOException e) {
+        // ignore
+      } finally {
+        IOUtils.closeQuietly(stream);
+      }
+    });
+  }
+
   /**
    * Perform an HTTP GET request, parsing the JSON response to update
    * the state of an existing object.
@@ -486,6 +2929,214 @@ public class RestClient {
     requestForUpdate(target, "GET", responseObject, null);
   }
 
+  /**
+   * Perform an HTTP GET request for a slow-changing resource, parsing
+   * the JSON response to create a new object, using this client's
+   * {@link #getResourceCache() resource cache} if one has been set. A
+   * cached object is returned until its time-to-live expires, and
+   * concurrent requests for the same resource share a single call to
+   * the server. The cache keeps the JSON of the response, and every call
+   * returns a new object deserialized from it. Without a cache this is
+   * equivalent to {@link #get(String, TypeReference)}.
+   * 
+   * @param target the URL to request (relative URLs will resolve
+   *          against the {@link #getBaseUrl() base URL}).
+   * @param responseType the Java type corresponding to a successful
+   *          response message for this URL
+   * @return for a successful response, the deserialized response body,
+   *         or <code>null</code> for a 204 response
+   * @throws RestClientException if an exception occurs during
+   *           processing, or the server returns a 4xx or 5xx error
+   *           response (in which case the response JSON message will be
+   *           available as a {@link JsonNode} in the exception).
+   */
+  public <T> T getCached(String target, TypeReference<T> responseType)
+          throws RestClientException {
+    ResourceCache cache = resourceCache;
+    String key = (cache == null) ? null : cacheKey(target);
+    if(key == null) {
+      return get(target, responseType);
+    }
+    long timeToLive =
+            forPrefix(cacheTimesToLive, target,
+                    cache.getDefaultTimeToLiveMillis());
+    JsonNode tree =
+            cache.get(key, timeToLive,
+                    () -> get(target, new TypeReference<JsonNode>() {
+                    }));
+    if(tree == null || tree.isNull()) {
+      return null;
+    }
+    try {
+      return MAPPER.readerFor(responseType).readValue(tree);
+    } catch(IOException e) {
+      throw new RestClientException(e);
+    }
+  }
+
+  /**
+   * Perform a conditional HTTP GET request, parsing the JSON response to
+   * create a new object. If an earlier response from the same URL
+   * carried an <code>ETag</code> or <code>Last-Modified</code> header
+   * then the request is sent with the matching
+   * <code>If-None-Match</code>/<code>If-Modified-Since</code> headers,
+   * and if the server responds <code>304 Not Modified</code> the result
+   * is rebuilt from the JSON of the earlier response without
+   * downloading it again. Every call returns a new object, so callers
+   * are free to modify it.
+   * 
+   * @param target the URL to request (relative URLs will resolve
+   *          against the {@link #getBaseUrl() base URL}).
+   * @param responseType the Java type corresponding to a successful
+   *          response message for this URL
+   * @return for a successful response, the deserialized response body,
+   *         or <code>null</code> for a 204 response
+   * @throws RestClientException if an exception occurs during
+   *           processing, or the server returns a 4xx or 5xx error
+   *           response (in which case the response JSON message will be
+   *           available as a {@link JsonNode} in the exception).
+   * @see #getValidatorCache()
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T getConditional(String target, TypeReference<T> responseType)
+          throws RestClientException {
+    if(responseStore != null) {
+      // the store does its own revalidation
+      return get(target, responseType);
+    }
+    ValidatorCache cache = validatorCache;
+    String key = cacheKey(target);
+    ValidatorCache.Entry entry =
+            (key == null) ? null : cache.lookup(key, responseType.getType());
+    CallContext call = newCall(null);
+    try {
+      TransportConnection connection =
+              sendWithRetry(call, target, "GET", null, -1,
+                      entry == null ? new String[0] : entry
+                              .conditionalHeaders());
+      if(entry != null && notModified(connection)) {
+        Object tree = entry.value();
+        if(tree != null) {
+          cache.hit();
+          return MAPPER.readerFor(responseType).readValue((JsonNode)tree);
+        }
+        // collected since the lookup, fall back to a full request
+        return get(target, responseType);
+      }
+      cache.miss();
+      // keep the JSON rather than the object so each hit can return a
+      // fresh copy
+      JsonNode tree =
+              readResponseOrError(connection, new TypeReference<JsonNode>() {
+              });
+      if(tree == null || tree.isNull()) {
+        tree = null;
+      }
+      if(key != null) {
+        cache.store(key, connection.getHeaderFields(),
+                responseType.getType(), tree);
+      }
+      return tree == null ? null : (T)MAPPER.readerFor(responseType)
+              .readValue(tree);
+    } catch(IOException e) {
+      throw new RestClientException(call.translate(e));
+    } finally {
+      call.finish();
+    }
+  }
+
+  /**
+   * Perform a conditional HTTP GET request, and update the state of the
+   * given object from the JSON response. If this object was last
+   * updated from the same URL and that response carried an
+   * <code>ETag</code> or <code>Last-Modified</code> header then the
+   * request is made conditional on those validators, and if the server
+   * responds <code>304 Not Modified</code> the object is left untouched.
+   * Note that this means any local changes made to the object since it
+   * was last updated are not reverted.
+   * 
+   * @param target the URL to request (relative URLs will resolve
+   *          against the {@link #getBaseUrl() base URL}).
+   * @param responseObject the Java object to update from a successful
+   *          response message for this URL
+   * @throws RestClientException if an exception occurs during
+   *           processing, or the server returns a 4xx or 5xx error
+   *           response (in which case the response JSON message will be
+   *           available as a {@link JsonNode} in the exception).
+   * @see #getValidatorCache()
+   */
+  public void getForUpdateConditional(String target, Object responseObject)
+          throws RestClientException {
+    ValidatorCache cache = validatorCache;
+    String key = cacheKey(target);
+    ValidatorCache.Entry entry = updateEntry(cache, key, responseObject);
+    CallContext call = newCall(null);
+    try {
+      TransportConnection connection =
+              sendWithRetry(call, target, "GET", null, -1,
+                      entry == null ? new String[0] : entry
+                              .conditionalHeaders());
+      if(entry != null && notModified(connection)) {
+        cache.hit();
+        return;
+      }
+      cache.miss();
+      readResponseOrErrorForUpdate(connection, responseObject);
+      if(key != null) {
+        cache.store(key, connection.getHeaderFields(), null, responseObject);
+      }
+    } catch(IOException e) {
+      throw new RestClientException(call.translate(e));
+    } finally {
+      call.finish();
+    }
+  }
+
+  /**
+   * Find the cache entry recording the validators with which the given
+   * object was last updated from the given URL, if any.
+   */
+  private ValidatorCache.Entry updateEntry(ValidatorCache cache, String key,
+          Object responseObject) {
+    if(key == null) {
+      return null;
+    }
+    ValidatorCache.Entry entry = cache.lookup(key, null);
+    // only valid if it is the same object we are now updating
+    return (entry != null && entry.value() == responseObject) ? entry : null;
+  }
+
+  /**
+   * The absolute form of the given target URL, used as the validator
+   * cache key, or <code>null</code> if it is malformed (in which case
+   * the request itself will report the error).
+   */
+  private String cacheKey(String target) {
+    try {
+      return new URL(baseUrl, target).toString();
+    } catch(MalformedURLException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Check whether the given connection has a
+   * <code>304 Not Modified</code> response, and if so discard the
+   * (empty) body to release the connection.
+   */
+  private boolean notModified(TransportConnection connection)
+          throws IOException {
+    if(connection.getResponseCode() != HttpURLConnection.HTTP_NOT_MODIFIED) {
+      return false;
+    }
+    storeHeaders(connection);
+    InputStream stream = connection.getInputStream();
+    if(stream != null) {
+      IOUtils.closeQuietly(stream);
+    }
+    return true;
+  }
+
   /**
    * Perform an HTTP POST request, parsing the JSON response to create a
    * new object.
@@ -561,7 +3212,10 @@ public class RestClient {
 
   /**
    * Perform an HTTP GET request on a URL whose response is expected to
-   * be a 3xx redirection, and return the target redirection URL.
+   * be a 3xx redirection, and return the target redirection URL. A
+   * location resolved recently is returned from the
+   * {@link #getRedirectCache() redirect cache} without contacting the
+   * server.
    * 
    * @param source the URL to request (relative URLs will resolve
    *          against the {@link #getBaseUrl() base URL}).
@@ -574,32 +3228,109 @@ public class RestClient {
    *           the response was not a 3xx redirection.
    */
   public URL getRedirect(URL source) throws RestClientException {
-    try {
-      HttpURLConnection connection = (HttpURLConnection)source.openConnection();
-      connection.setRequestMethod("GET");
-      if(authorizationHeader != null) {
-        connection.setRequestProperty("Authorization", authorizationHeader);
+    String cached = redirectCache.lookup(source.toString());
+    if(cached != null) {
+      try {
+        return new URL(cached);
+      } catch(MalformedURLException e) {
+        // not reachable, only absolute URLs are cached
       }
+    }
+    CallContext call = newCall(null);
+    try {
+      return getRedirect(call, source);
+    } finally {
+      call.finish();
+    }
+  }
+
+  private URL getRedirect(CallContext call, URL source)
+          throws RestClientException {
+    try {
+      RateLimiter limiter = rateLimiterFor(source.toString());
+      pace(limiter, source.toString());
+      call.check();
+      TransportConnection connection =
+              openConnection(call, source, "GET", 1, true);
       connection.setRequestProperty("Accept", "application/json");
-      connection.setInstanceFollowRedirects(false);
       int responseCode = connection.getResponseCode();
+      if(limiter != null) {
+        limiter.update(connection.getHeaderFields());
+      }
       // make sure we read any response content
       readResponseOrError(connection, new TypeReference<JsonNode>() {
       }, false);
       if(responseCode >= 300 && responseCode < 400) {
         // it was a redirect
+        rememberRedirect(redirectCache, source.toString(), connection);
         String redirectUrl = connection.getHeaderField("Location");
-        return new URL(redirectUrl);
+        return new URL(source, redirectUrl);
       } else {
         throw new RestClientException("Expected redirect but got "
                 + responseCode);
       }
     } catch(IOException e) {
-      throw new RestClientException(e);
+      throw new RestClientException(call.translate(e));
+    }
+  }
+
+  /**
+   * Download the file behind an API URL that redirects to its real,
+   * time-limited location (such as a {@link
+   * uk.ac.gate.cloud.common.Downloadable}), writing it to the given path.
+   * The download is made without this client's credentials, as the
+   * redirect target carries its own authorization. A recently resolved
+   * target is taken from the {@link #getRedirectCache() redirect cache},
+   * and resolved again if the server refuses it. The transfer is subject
+   * to the {@link #getDownloadBandwidthLimiter() download bandwidth
+   * limit}, if any.
+   * 
+   * @param source the API URL of the file
+   * @param file the file to write, any existing file will be replaced
+   * @param options timeouts, deadline and cancellation handle for the
+   *          download, may be <code>null</code> to use the client's
+   *          settings
+   * @return the number of bytes written
+   * @throws RestClientException if an exception occurs during
+   *           processing, the download is cancelled or times out, or
+   *           the server returns an error response.
+   */
+  public long download(URL source, Path file, CallOptions options)
+          throws RestClientException {
+    CallContext call = newCall(options);
+    try {
+      RedirectCache cache = redirectCache;
+      String cached = cache.lookup(source.toString());
+      TransportConnection connection =
+              openConnection(call, cached == null
+                      ? getRedirect(call, source)
+                      : new URL(cached), "GET", 1, false);
+      if(cached != null && staleRedirect(connection)) {
+        // the cached location has expired, resolve it again
+        cache.stale(source.toString());
+        connection =
+                openConnection(call, getRedirect(call, source), "GET", 1,
+                        false);
+      }
+      if(connection.getResponseCode() >= 400) {
+        readError(connection);
+      }
+      InputStream in = callStream(call, connection.getInputStream());
+      BandwidthLimiter limiter = downloadBandwidthLimiter;
+      if(limiter != null) {
+        in = limiter.limit(in);
+      }
+      try(InputStream stream = in) {
+        return Files.copy(stream, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch(IOException e) {
+      throw new RestClientException(call.translate(e));
+    } finally {
+      call.finish();
     }
   }
 
-  private void storeHeaders(HttpURLConnection connection) {
+  private void storeHeaders(TransportConnection connection) {
     lastResponseHeaders.set(connection.getHeaderFields());
   }
 
@@ -610,7 +3341,16 @@ public class RestClient {
    * @return the headers, as a map where the keys are HTTP header names
    *         and the values are the list (usually singleton) of values
    *         for that header.
+   * @deprecated the headers are held per thread, so are not reliable
+   *             with asynchronous calls or thread pools, and are not
+   *             recorded on every path. Use
+   *             {@link #exchange(String, String, TypeReference, Object, String...)}
+   *             or
+   *             {@link #exchangeForStream(String, String, Object, int, CallOptions, String...)},
+   *             whose {@link Response} carries the headers of that
+   *             particular call.
    */
+  @Deprecated
   public Map<String, List<String>> getLastHeaders() {
     return lastResponseHeaders.get();
   }
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+/**
+ * Listener notified around every HTTP request made by a
+ * {@link RestClient}, for example to collect metrics (see
+ * {@link MetricsCollector}). Each attempt at a request is reported
+ * separately - a retried request produces one pair of events per
+ * attempt, with increasing {@link RequestEvent#getAttempt() attempt
+ * numbers}, and following a redirect counts as a new request.
+ * <p>
+ * Listeners are called on whichever thread is making or completing the
+ * request, so must be thread safe and should return quickly. Any
+ * exception thrown by a listener is ignored.
+ */
+public interface RestClientListener {
+
+  /**
+   * Called just before a request is sent.
+   * 
+   * @param event the event describing the request. The same object is
+   *          passed to {@link #requestCompleted(RequestEvent)} once the
+   *          request has completed.
+   */
+  public default void requestStarted(RequestEvent event) {
+  }
+
+  /**
+   * Called once a request has completed - when its response body has
+   * been read in full or closed, when it has failed with an error, or
+   * when it has been abandoned.
+   * 
+   * @param event the event describing the request and its outcome
+   */
+  public default void requestCompleted(RequestEvent event) {
+  }
+}
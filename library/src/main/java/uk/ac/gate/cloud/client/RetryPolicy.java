@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Policy controlling how a {@link RestClient} retries requests that
+ * fail with a transient error - an I/O error talking to the server, or
+ * one of the {@link #getRetryableStatuses() retryable status codes}
+ * (by default 429, 502, 503 and 504).
+ * <p>
+ * Retries are spaced using exponential backoff with jitter: the
+ * <em>n</em>th retry waits a random time between half and all of
+ * <code>initialDelay * multiplier<sup>n-1</sup></code>, capped at the
+ * maximum delay. If the server sends a <code>Retry-After</code> header,
+ * or an <code>X-GATE-Rate-Limit-Reset</code> header with a 429 response,
+ * the client waits at least until the indicated time, unless that is
+ * further away than the maximum server-specified delay in which case
+ * the error is returned to the caller immediately.
+ * <p>
+ * Only idempotent requests (GET, HEAD, OPTIONS, PUT and DELETE) are
+ * retried by default, since retrying a POST may repeat its side
+ * effects. POST retries can be enabled with
+ * {@link #setRetryNonIdempotent(boolean)}. Request bodies supplied as an
+ * <code>InputStream</code> are recorded as they are sent (spilling to a
+ * temporary file beyond a size threshold) so they can be replayed.
+ */
+public class RetryPolicy {
+
+  public static final int DEFAULT_MAX_ATTEMPTS = 4;
+
+  public static final long DEFAULT_INITIAL_DELAY_MILLIS = 500L;
+
+  public static final long DEFAULT_MAX_DELAY_MILLIS = 30000L;
+
+  public static final double DEFAULT_MULTIPLIER = 2.0;
+
+  public static final long DEFAULT_MAX_SERVER_DELAY_MILLIS = 120000L;
+
+  public static final int DEFAULT_SPILL_THRESHOLD = 1024 * 1024;
+
+  private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(
+          Arrays.asList("GET", "HEAD", "OPTIONS", "PUT", "DELETE"));
+
+  private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+  private long initialDelayMillis = DEFAULT_INITIAL_DELAY_MILLIS;
+
+  private long maxDelayMillis = DEFAULT_MAX_DELAY_MILLIS;
+
+  private double multiplier = DEFAULT_MULTIPLIER;
+
+  private long maxServerDelayMillis = DEFAULT_MAX_SERVER_DELAY_MILLIS;
+
+  private boolean retryNonIdempotent = false;
+
+  private int spillThreshold = DEFAULT_SPILL_THRESHOLD;
+
+  private Set<Integer> retryableStatuses = new HashSet<>(Arrays.asList(429,
+          502, 503, 504));
+
+  /**
+   * Create a policy with the default settings.
+   */
+  public RetryPolicy() {
+  }
+
+  /**
+   * Create a policy with the given number of attempts and backoff
+   * settings.
+   * 
+   * @param maxAttempts total number of attempts, including the first
+   * @param initialDelayMillis base delay before the first retry
+   * @param maxDelayMillis maximum backoff delay between attempts
+   */
+  public RetryPolicy(int maxAttempts, long initialDelayMillis,
+          long maxDelayMillis) {
+    this.maxAttempts = maxAttempts;
+    this.initialDelayMillis = initialDelayMillis;
+    this.maxDelayMillis = maxDelayMillis;
+  }
+
+  /**
+   * Create a policy that never retries.
+   */
+  public static RetryPolicy none() {
+    return new RetryPolicy(1, 0L, 0L);
+  }
+
+  /**
+   * Total number of attempts made for a request, including the first.
+   * A value of 1 disables retries.
+   */
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public void setMaxAttempts(int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+  }
+
+  /**
+   * Base delay before the first retry.
+   */
+  public long getInitialDelayMillis() {
+    return initialDelayMillis;
+  }
+
+  public void setInitialDelayMillis(long initialDelayMillis) {
+    this.initialDelayMillis = initialDelayMillis;
+  }
+
+  /**
+   * Maximum backoff delay between attempts.
+   */
+  public long getMaxDelayMillis() {
+    return maxDelayMillis;
+  }
+
+  public void setMaxDelayMillis(long maxDelayMillis) {
+    this.maxDelayMillis = maxDelayMillis;
+  }
+
+  /**
+   * Factor by which the backoff delay grows with each retry.
+   */
+  public double getMultiplier() {
+    return multiplier;
+  }
+
+  public void setMultiplier(double multiplier) {
+    this.multiplier = multiplier;
+  }
+
+  /**
+   * Longest delay requested by the server (via <code>Retry-After</code>
+   * or <code>X-GATE-Rate-Limit-Reset</code>) that the client is prepared
+   * to wait. If the server asks for a longer wait the error is returned
+   * to the caller instead.
+   */
+  public long getMaxServerDelayMillis() {
+    return maxServerDelayMillis;
+  }
+
+  public void setMaxServerDelayMillis(long maxServerDelayMillis) {
+    this.maxServerDelayMillis = maxServerDelayMillis;
+  }
+
+  /**
+   * Should non-idempotent requests (i.e. POST) be retried? Defaults to
+   * false.
+   */
+  public boolean isRetryNonIdempotent() {
+    return retryNonIdempotent;
+  }
+
+  public void setRetryNonIdempotent(boolean retryNonIdempotent) {
+    this.retryNonIdempotent = retryNonIdempotent;
+  }
+
+  /**
+   * Size in bytes beyond which a recorded request body is spilled to a
+   * temporary file rather than held in memory.
+   */
+  public int getSpillThreshold() {
+    return spillThreshold;
+  }
+
+  public void setSpillThreshold(int spillThreshold) {
+    this.spillThreshold = spillThreshold;
+  }
+
+  /**
+   * HTTP status codes that are considered transient and will be
+   * retried.
+   */
+  public Set<Integer> getRetryableStatuses() {
+    return retryableStatuses;
+  }
+
+  public void setRetryableStatuses(Set<Integer> retryableStatuses) {
+    this.retryableStatuses = retryableStatuses;
+  }
+
+  /**
+   * May requests with the given method be retried under this policy?
+   */
+  public boolean isRetryable(String method) {
+    return maxAttempts > 1
+            && (retryNonIdempotent || IDEMPOTENT_METHODS.contains(method));
+  }
+
+  /**
+   * Is the given response status one that should be retried?
+   */
+  public boolean isRetryableStatus(int status) {
+    return retryableStatuses.contains(status);
+  }
+
+  /**
+   * Calculate the backoff delay before the given retry.
+   * 
+   * @param retry the retry number, starting at 1 for the first retry
+   * @return the delay in milliseconds, including random jitter
+   */
+  public long backoffMillis(int retry) {
+    double delay = initialDelayMillis * Math.pow(multiplier, retry - 1);
+    long capped = (long)Math.min(delay, maxDelayMillis);
+    // "equal jitter" - wait at least half the computed delay
+    return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+  }
+
+  /**
+   * Determine how long to wait before retrying a request that received
+   * the given retryable response.
+   * 
+   * @param retry the retry number, starting at 1 for the first retry
+   * @param connection the connection holding the response
+   * @return the delay in milliseconds, or -1 if the server has asked for
+   *         a delay longer than the {@link #getMaxServerDelayMillis()
+   *         maximum} and the request should not be retried.
+   */
+  public long delayMillis(int retry, TransportConnection connection)
+          throws IOException {
+    long serverDelay =
+            HeaderTimes.delayMillis(connection.getHeaderField("Retry-After"));
+    if(serverDelay < 0 && connection.getResponseCode() == 429) {
+      serverDelay =
+              HeaderTimes.delayMillis(connection
+                      .getHeaderField("X-GATE-Rate-Limit-Reset"));
+    }
+    if(serverDelay > maxServerDelayMillis) {
+      return -1;
+    }
+    return Math.max(serverDelay, backoffMillis(retry));
+  }
+}
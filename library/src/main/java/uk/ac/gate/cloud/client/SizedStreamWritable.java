@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+/**
+ * A {@link StreamWritable} that knows in advance exactly how many bytes
+ * it will write. This allows the {@link RestClient} to send the request
+ * body with a fixed <code>Content-Length</code> rather than using
+ * chunked transfer encoding.
+ */
+public interface SizedStreamWritable extends StreamWritable {
+
+  /**
+   * Get the number of bytes that {@link #writeTo} will write.
+   */
+  public long getContentLength();
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+/**
+ * A response held in a {@link ResponseStore}: the raw JSON body along
+ * with the validators needed to revalidate it and the time at which it
+ * was last received or revalidated.
+ */
+public class StoredResponse {
+
+  private final byte[] body;
+
+  private final String etag;
+
+  private final String lastModified;
+
+  private final long storedAt;
+
+  /**
+   * @param body the (uncompressed) response body
+   * @param etag value of the <code>ETag</code> response header, or
+   *          <code>null</code>
+   * @param lastModified value of the <code>Last-Modified</code> response
+   *          header, or <code>null</code>
+   * @param storedAt time at which the response was received or last
+   *          revalidated, in milliseconds since the epoch
+   */
+  public StoredResponse(byte[] body, String etag, String lastModified,
+          long storedAt) {
+    this.body = body;
+    this.etag = etag;
+    this.lastModified = lastModified;
+    this.storedAt = storedAt;
+  }
+
+  public byte[] getBody() {
+    return body;
+  }
+
+  public String getETag() {
+    return etag;
+  }
+
+  public String getLastModified() {
+    return lastModified;
+  }
+
+  public long getStoredAt() {
+    return storedAt;
+  }
+
+  /**
+   * Copy of this response with a new stored time, for a response that
+   * has been revalidated.
+   */
+  StoredResponse revalidated(long now) {
+    return new StoredResponse(body, etag, lastModified, now);
+  }
+
+  /**
+   * Request headers to make a request conditional on this response's
+   * validators, empty if it has none.
+   */
+  String[] conditionalHeaders() {
+    if(etag != null && lastModified != null) {
+      return new String[] {"If-None-Match", etag, "If-Modified-Since",
+          lastModified};
+    } else if(etag != null) {
+      return new String[] {"If-None-Match", etag};
+    } else if(lastModified != null) {
+      return new String[] {"If-Modified-Since", lastModified};
+    } else {
+      return new String[0];
+    }
+  }
+}
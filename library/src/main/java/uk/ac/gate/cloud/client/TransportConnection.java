@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * A single HTTP request/response exchange created by an
+ * {@link HttpTransport}. The methods mirror those of
+ * <code>HttpURLConnection</code> and are called in the same order -
+ * request headers are set first, then the request body (if any) is
+ * written to the {@link #getOutputStream() output stream} and the
+ * stream closed, and finally the response is read.
+ */
+public interface TransportConnection {
+
+  /**
+   * Set a request header. Must be called before the request body is
+   * opened or the response is requested.
+   */
+  public void setRequestProperty(String name, String value);
+
+  /**
+   * Set the timeouts for this exchange. Must be called before the
+   * request is sent. The default implementation ignores the timeouts,
+   * transports should override it if they can support them.
+   *
+   * @param connectTimeoutMillis maximum time to wait for a network
+   *          connection to be established, 0 for no limit
+   * @param readTimeoutMillis maximum time to wait for data from the
+   *          server, either the response headers or the next part of
+   *          the body, 0 for no limit. An exchange that times out fails
+   *          with a <code>SocketTimeoutException</code> or other
+   *          <code>InterruptedIOException</code>.
+   */
+  public default void setTimeouts(int connectTimeoutMillis,
+          int readTimeoutMillis) {
+  }
+
+  /**
+   * Specify how the request body will be sent. If the exact length of
+   * the body is known in advance it is sent with a fixed
+   * <code>Content-Length</code>, otherwise it is streamed using chunked
+   * transfer encoding. Either way the body is never buffered in full.
+   * Must be called before the body is opened, if it is not called then
+   * chunked encoding is used.
+   *
+   * @param contentLength the exact number of bytes that will be written
+   *          to the {@link #getOutputStream() output stream}, or -1 if
+   *          not known.
+   */
+  public void setContentLength(long contentLength);
+
+  /**
+   * Open the stream to which the request body should be written. This
+   * commits the request headers. The stream must be closed once the
+   * body is complete.
+   */
+  public OutputStream getOutputStream() throws IOException;
+
+  /**
+   * Get the HTTP response code, sending the request first if it has not
+   * already been sent.
+   */
+  public int getResponseCode() throws IOException;
+
+  /**
+   * Send the request if it has not already been sent, and return a
+   * future that completes with the HTTP response code once the response
+   * status and headers have been received. The default implementation
+   * simply calls {@link #getResponseCode()} on a thread from the given
+   * executor; transports with non-blocking I/O should override this so
+   * no thread is held while waiting for the server.
+   *
+   * @param executor executor to use for any blocking work
+   * @return a future that completes with the response code, or
+   *         exceptionally with an <code>IOException</code>
+   */
+  public default CompletableFuture<Integer> getResponseCodeAsync(
+          Executor executor) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return getResponseCode();
+      } catch(IOException e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+  }
+
+  /**
+   * Get the first value of the given response header, or
+   * <code>null</code> if the header was not present.
+   */
+  public String getHeaderField(String name);
+
+  /**
+   * Get all the response headers, as a map where the keys are HTTP
+   * header names and the values are the list (usually singleton) of
+   * values for that header.
+   */
+  public Map<String, List<String>> getHeaderFields();
+
+  /**
+   * Get the value of the <code>Content-Encoding</code> response header.
+   */
+  public String getContentEncoding();
+
+  /**
+   * Get the response body stream for a successful response.
+   *
+   * @throws IOException if the response code indicates an error (4xx
+   *           or 5xx), in which case the body is available from
+   *           {@link #getErrorStream()}.
+   */
+  public InputStream getInputStream() throws IOException;
+
+  /**
+   * Get the response body stream for an error response, or
+   * <code>null</code> if the response was not an error.
+   */
+  public InputStream getErrorStream();
+
+  /**
+   * Abort this exchange, releasing any resources it holds. After this
+   * call the underlying network connection will not be reused.
+   */
+  public void disconnect();
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The default {@link HttpTransport}, based on the standard
+ * <code>HttpURLConnection</code>. Connection reuse is left to the JDK's
+ * own keep-alive cache, which can be tuned globally using the
+ * <code>http.keepAlive</code> and <code>http.maxConnections</code>
+ * system properties.
+ */
+public class UrlConnectionTransport implements HttpTransport {
+
+  @Override
+  public TransportConnection open(URL url, String method) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+    connection.setRequestMethod(method);
+    connection.setInstanceFollowRedirects(false);
+    return new Connection(connection);
+  }
+
+  /**
+   * Nothing to release, as the JDK manages its own connection cache.
+   */
+  @Override
+  public void close() {
+  }
+
+  /**
+   * {@link TransportConnection} that delegates to an
+   * <code>HttpURLConnection</code>.
+   */
+  static class Connection implements TransportConnection {
+
+    private HttpURLConnection connection;
+
+    private long contentLength = -1;
+
+    Connection(HttpURLConnection connection) {
+      this.connection = connection;
+    }
+
+    @Override
+    public void setRequestProperty(String name, String value) {
+      connection.setRequestProperty(name, value);
+    }
+
+    @Override
+    public void setTimeouts(int connectTimeoutMillis, int readTimeoutMillis) {
+      connection.setConnectTimeout(connectTimeoutMillis);
+      connection.setReadTimeout(readTimeoutMillis);
+    }
+
+    @Override
+    public void setContentLength(long contentLength) {
+      this.contentLength = contentLength;
+    }
+
+    /**
+     * Opens the body in fixed-length or chunked streaming mode, so that
+     * <code>HttpURLConnection</code> does not buffer the whole body in
+     * memory to calculate its length.
+     */
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+      connection.setDoOutput(true);
+      if(contentLength >= 0) {
+        connection.setFixedLengthStreamingMode(contentLength);
+      } else {
+        connection.setChunkedStreamingMode(0);
+      }
+      return connection.getOutputStream();
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+      return connection.getResponseCode();
+    }
+
+    @Override
+    public String getHeaderField(String name) {
+      return connection.getHeaderField(name);
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaderFields() {
+      return connection.getHeaderFields();
+    }
+
+    @Override
+    public String getContentEncoding() {
+      return connection.getContentEncoding();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+      return connection.getInputStream();
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+      return connection.getErrorStream();
+    }
+
+    @Override
+    public void disconnect() {
+      connection.disconnect();
+    }
+  }
+}
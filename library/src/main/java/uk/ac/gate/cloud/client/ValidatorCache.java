@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of HTTP validators (<code>ETag</code> and
+ * <code>Last-Modified</code> response headers) used by the
+ * {@link RestClient}'s conditional GET methods. Each entry remembers the
+ * validators of the last response from a URL along with what was
+ * parsed from it, so when the server answers a conditional request with
+ * <code>304 Not Modified</code> the client can reuse that result without
+ * downloading the response again.
+ * <p>
+ * Objects that were updated in place (for example by
+ * <code>Job.refresh()</code>) are held weakly, and validators are only
+ * sent when the same object is refreshed again. For responses returned
+ * as new objects the cache holds the parsed JSON tree rather than the
+ * object itself, so each hit can build a fresh copy. These trees are
+ * held strongly, up to the maximum number of entries, beyond which the
+ * least recently used entries are evicted.
+ */
+public class ValidatorCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+  private final int maxEntries;
+
+  private final Map<String, Entry> entries;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Create a cache with the default maximum size.
+   */
+  public ValidatorCache() {
+    this(DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * Create a cache with the given maximum size.
+   * 
+   * @param maxEntries maximum number of URLs to remember, 0 disables
+   *          caching entirely so every request is unconditional.
+   */
+  public ValidatorCache(int maxEntries) {
+    if(maxEntries < 0) {
+      throw new IllegalArgumentException("maxEntries must not be negative");
+    }
+    this.maxEntries = maxEntries;
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, ValidatorCache.Entry> eldest) {
+        return size() > ValidatorCache.this.maxEntries;
+      }
+    };
+  }
+
+  /**
+   * The validators and cached object or JSON tree for one URL.
+   */
+  static class Entry {
+    final String etag;
+
+    final String lastModified;
+
+    /**
+     * Type the JSON tree held as the value is to be parsed as, or
+     * <code>null</code> if the value is an object that was updated in
+     * place.
+     */
+    final Type type;
+
+    private final Object value;
+
+    Entry(String etag, String lastModified, Type type, Object value) {
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.type = type;
+      this.value = (type == null) ? new WeakReference<>(value) : value;
+    }
+
+    /**
+     * The cached object or JSON tree, or <code>null</code> if it was held
+     * weakly and has been garbage collected.
+     */
+    Object value() {
+      return (type == null) ? ((WeakReference<?>)value).get() : value;
+    }
+
+    /**
+     * Request headers to make a request conditional on these
+     * validators.
+     */
+    String[] conditionalHeaders() {
+      if(etag != null && lastModified != null) {
+        return new String[] {"If-None-Match", etag, "If-Modified-Since",
+            lastModified};
+      } else if(etag != null) {
+        return new String[] {"If-None-Match", etag};
+      } else {
+        return new String[] {"If-Modified-Since", lastModified};
+      }
+    }
+  }
+
+  /**
+   * Maximum number of URLs this cache will remember.
+   */
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /**
+   * Find the entry for the given URL whose value is to be parsed as the
+   * given type (or updated in place, if the type is <code>null</code>) and is
+   * still available.
+   */
+  Entry lookup(String url, Type type) {
+    if(maxEntries == 0) {
+      return null;
+    }
+    Entry entry;
+    synchronized(entries) {
+      entry = entries.get(url);
+    }
+    if(entry == null || (type == null ? entry.type != null : !type.equals(entry.type))
+            || entry.value() == null) {
+      return null;
+    }
+    return entry;
+  }
+
+  /**
+   * Remember the validators from the given response headers along with
+   * the object or JSON tree parsed from the response. If the response has no
+   * validators any existing entry for the URL is removed.
+   */
+  void store(String url, Map<String, List<String>> headers, Type type,
+          Object value) {
+    if(maxEntries == 0) {
+      return;
+    }
+    String etag = first(headers, "ETag");
+    String lastModified = first(headers, "Last-Modified");
+    synchronized(entries) {
+      if(value == null || (etag == null && lastModified == null)) {
+        entries.remove(url);
+      } else {
+        entries.put(url, new Entry(etag, lastModified, type, value));
+      }
+    }
+  }
+
+  private static String first(Map<String, List<String>> headers, String name) {
+    for(Map.Entry<String, List<String>> h : headers.entrySet()) {
+      // header name case varies between transports
+      if(name.equalsIgnoreCase(h.getKey()) && !h.getValue().isEmpty()) {
+        return h.getValue().get(0);
+      }
+    }
+    return null;
+  }
+
+  void hit() {
+    hits.increment();
+  }
+
+  void miss() {
+    misses.increment();
+  }
+
+  /**
+   * Number of conditional requests answered with
+   * <code>304 Not Modified</code>, where the cached response was reused.
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Number of cacheable requests that had to download and parse a full
+   * response, either because there was no usable entry or because the
+   * resource had changed.
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Proportion of cacheable requests that were hits, between 0 and 1.
+   */
+  public double getHitRate() {
+    long h = hits.sum();
+    long total = h + misses.sum();
+    return total == 0 ? 0.0 : (double)h / total;
+  }
+
+  /**
+   * Number of URLs currently cached.
+   */
+  public int size() {
+    synchronized(entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Remove all entries and reset the hit and miss counts.
+   */
+  public void clear() {
+    synchronized(entries) {
+      entries.clear();
+    }
+    hits.reset();
+    misses.reset();
+  }
+}
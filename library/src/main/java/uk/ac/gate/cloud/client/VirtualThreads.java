@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to Java 21 virtual threads from code compiled for Java 8. The
+ * library blocks a thread for the duration of every request, which is
+ * cheap with virtual threads but not with platform threads, so where
+ * virtual threads are available the client's default
+ * {@link RestClient#getAsyncExecutor() async executor} and batch
+ * helpers run each request on its own virtual thread.
+ * <p>
+ * The relevant APIs are looked up reflectively, so on older Java
+ * versions {@link #isAvailable()} is simply <code>false</code> and
+ * callers fall back to platform threads. Virtual threads can be turned
+ * off on Java 21 by setting the system property
+ * <code>uk.ac.gate.cloud.client.virtualThreads</code> to
+ * <code>false</code>.
+ */
+public final class VirtualThreads {
+
+  public static final String DISABLE_PROPERTY =
+          "uk.ac.gate.cloud.client.virtualThreads";
+
+  private static final Method OF_VIRTUAL;
+
+  private static final Method NAME;
+
+  private static final Method FACTORY;
+
+  private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+  static {
+    Method ofVirtual = null, name = null, factory = null, executor = null;
+    try {
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      Class<?> builder = Class.forName("java.lang.Thread$Builder");
+      name = builder.getMethod("name", String.class, long.class);
+      factory = builder.getMethod("factory");
+      executor =
+              Executors.class.getMethod("newThreadPerTaskExecutor",
+                      ThreadFactory.class);
+      // fails on Java 19 and 20 unless preview features are enabled
+      ofVirtual.invoke(null);
+    } catch(ReflectiveOperationException | RuntimeException e) {
+      ofVirtual = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    NAME = name;
+    FACTORY = factory;
+    NEW_THREAD_PER_TASK_EXECUTOR = executor;
+  }
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * Does this JVM support virtual threads?
+   */
+  public static boolean isAvailable() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Are virtual threads available and not disabled by the
+   * {@link #DISABLE_PROPERTY system property}?
+   */
+  public static boolean isEnabled() {
+    return isAvailable()
+            && !"false".equalsIgnoreCase(System.getProperty(DISABLE_PROPERTY));
+  }
+
+  /**
+   * Create a factory for virtual threads named with the given prefix
+   * followed by a sequence number.
+   * 
+   * @return the factory, or <code>null</code> if virtual threads are not
+   *         available
+   */
+  public static ThreadFactory newThreadFactory(String namePrefix) {
+    if(OF_VIRTUAL == null) {
+      return null;
+    }
+    try {
+      Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 1L);
+      return (ThreadFactory)FACTORY.invoke(builder);
+    } catch(ReflectiveOperationException e) {
+      throw new IllegalStateException("Could not create virtual thread factory", e);
+    }
+  }
+
+  /**
+   * Create an executor that runs each task on a new virtual thread.
+   * 
+   * @return the executor, or <code>null</code> if virtual threads are
+   *         not available
+   */
+  public static ExecutorService newExecutor(String namePrefix) {
+    ThreadFactory factory = newThreadFactory(namePrefix);
+    if(factory == null) {
+      return null;
+    }
+    try {
+      return (ExecutorService)NEW_THREAD_PER_TASK_EXECUTOR.invoke(null,
+              factory);
+    } catch(ReflectiveOperationException e) {
+      throw new IllegalStateException("Could not create virtual thread executor", e);
+    }
+  }
+}
@@ -1,5 +1,7 @@
 /**
- * Generic REST client implementation based on <code>HttpURLConnection</code>.
+ * Generic REST client implementation. HTTP connections are made through a
+ * pluggable {@link uk.ac.gate.cloud.client.HttpTransport}, which by default
+ * uses <code>HttpURLConnection</code>.
  */
 package uk.ac.gate.cloud.client;
 
@@ -16,10 +16,13 @@
  */
 package uk.ac.gate.cloud.common;
 
+import java.io.File;
 import java.net.URL;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 
+import uk.ac.gate.cloud.client.CallOptions;
+
 /**
  * Represents a file that can be downloaded. Call {@link #urlToDownload()}
  * to get a (time-limited) URL from which the actual download can be
@@ -38,12 +41,56 @@ public class Downloadable extends ApiObject {
   /**
    * Generate a URL from which the file can be downloaded. This URL
    * should be accessed immediately as it is time-limited and will
-   * expire if not used. If the URL has expired, simply call this method
-   * again as a fresh URL is generated every time.
+   * expire if not used. A URL generated within the client's
+   * {@link uk.ac.gate.cloud.client.RedirectCache redirect cache}
+   * time-to-live is reused, if it has expired call
+   * {@link #urlToDownload(boolean) urlToDownload(true)} to generate a
+   * fresh one.
    * 
    * @return downloadable URL.
    */
   public URL urlToDownload() {
+    return urlToDownload(false);
+  }
+
+  /**
+   * Generate a URL from which the file can be downloaded, as for
+   * {@link #urlToDownload()}.
+   * 
+   * @param refresh if true, always generate a fresh URL rather than
+   *          reusing a cached one.
+   * @return downloadable URL.
+   */
+  public URL urlToDownload(boolean refresh) {
+    if(refresh) {
+      client.getRedirectCache().invalidate(url.toString());
+    }
     return client.getRedirect(url);
   }
+
+  /**
+   * Download the file to the given location, using the client's
+   * timeouts.
+   * 
+   * @param target the file to write, any existing file will be
+   *          replaced.
+   * @return the number of bytes downloaded.
+   */
+  public long download(File target) {
+    return download(target, null);
+  }
+
+  /**
+   * Download the file to the given location, with the given timeouts,
+   * deadline and cancellation handle.
+   * 
+   * @param target the file to write, any existing file will be
+   *          replaced.
+   * @param options the options for the download, may be
+   *          <code>null</code> to use the client's settings
+   * @return the number of bytes downloaded.
+   */
+  public long download(File target, CallOptions options) {
+    return client.download(url, target.toPath(), options);
+  }
 }
@@ -24,9 +24,11 @@ import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.io.IOUtils;
 
+import uk.ac.gate.cloud.client.BandwidthLimiter;
 import uk.ac.gate.cloud.client.RestClientException;
 import uk.ac.gate.cloud.common.Downloadable;
 import uk.ac.gate.cloud.common.InputType;
@@ -141,7 +143,9 @@ public class DataBundle extends DataBundleSummary {
   }
 
   /**
-   * Upload a file to an open bundle.
+   * Upload a file to an open bundle. The upload is subject to the
+   * client's {@link uk.ac.gate.cloud.client.RestClient#getUploadBandwidthLimiter()
+   * upload bandwidth limit}, if any.
    * 
    * @param fileName the name to use for the bundle entry
    * @param contentLength the number of bytes to upload
@@ -158,16 +162,57 @@ public class DataBundle extends DataBundleSummary {
     AddResult addRes =
             client.post(url + "/add", new TypeReference<AddResult>() {
             }, request);
+    upload(addRes.putUrl, contentLength, source);
+  }
+
+  /**
+   * Asynchronous version of {@link #addFile(File)}. The file is opened
+   * and uploaded using the client's
+   * {@link uk.ac.gate.cloud.client.RestClient#getAsyncExecutor() async
+   * executor}.
+   * 
+   * @param inputFile the file to upload. The last component of the
+   *          File's path will be used as the name of the file in the
+   *          bundle.
+   * @return a future that completes once the upload is finished, or
+   *         exceptionally with a {@link RestClientException}.
+   */
+  public CompletableFuture<Void> addFileAsync(File inputFile) {
+    ObjectNode request = JsonNodeFactory.instance.objectNode();
+    request.put("fileName", inputFile.getName());
+    return client.postAsync(url + "/add", new TypeReference<AddResult>() {
+    }, request).thenAcceptAsync(addRes -> {
+      InputStream source = null;
+      try {
+        source = new FileInputStream(inputFile);
+        upload(addRes.putUrl, (int)inputFile.length(), source);
+      } catch(IOException e) {
+        throw new RestClientException(e);
+      } finally {
+        IOUtils.closeQuietly(source);
+      }
+    }, client.getAsyncExecutor());
+  }
+
+  /**
+   * PUT the given content to the upload URL returned by the
+   * <code>add</code> call.
+   */
+  private void upload(URL putUrl, int contentLength, InputStream source) {
     try {
       // upload the file
       HttpURLConnection putConnection =
-              (HttpURLConnection)addRes.putUrl.openConnection();
+              (HttpURLConnection)putUrl.openConnection();
       putConnection.setDoOutput(true);
       putConnection.setRequestMethod("PUT");
       putConnection.setRequestProperty("Content-Type",
               "application/octet-stream");
       putConnection.setFixedLengthStreamingMode(contentLength);
       OutputStream out = putConnection.getOutputStream();
+      BandwidthLimiter limiter = client.getUploadBandwidthLimiter();
+      if(limiter != null) {
+        out = limiter.limit(out);
+      }
       try {
         IOUtils.copy(source, out);
       } finally {
@@ -18,6 +18,7 @@ package uk.ac.gate.cloud.data;
 
 import java.io.File;
 import java.util.List;
+import java.util.stream.Stream;
 
 import uk.ac.gate.cloud.client.RestClient;
 import uk.ac.gate.cloud.client.RestClientException;
@@ -71,14 +72,27 @@ public class DataManager {
             });
   }
 
+  /**
+   * Streaming version of {@link #listBundles()}, which binds each bundle
+   * summary only as the returned stream reaches it rather than loading
+   * the whole list into memory. The stream must be closed after use.
+   */
+  public Stream<DataBundleSummary> streamBundles() {
+    return client.getStream("data/bundle",
+            new TypeReference<DataBundleSummary>() {
+            });
+  }
+
   /**
    * Get details of a particular bundle given its ID.
    * 
    * @param id the ID of the required bundle
-   * @return the bundle details
+   * @return the bundle details. If the bundle has not changed since it
+   *         was last fetched it is not downloaded again, but a new object
+   *         is still returned.
    */
   public DataBundle getBundle(long id) {
-    return client.get("data/bundle/" + id, new TypeReference<DataBundle>() {
+    return client.getConditional("data/bundle/" + id, new TypeReference<DataBundle>() {
     });
   }
 
@@ -87,10 +101,12 @@ public class DataManager {
    * have been received from an earlier API call).
    * 
    * @param url the detail URL for the required bundle
-   * @return the bundle details
+   * @return the bundle details. If the bundle has not changed since it
+   *         was last fetched it is not downloaded again, but a new object
+   *         is still returned.
    */
   public DataBundle getBundle(String url) {
-    return client.get(url, new TypeReference<DataBundle>() {
+    return client.getConditional(url, new TypeReference<DataBundle>() {
     });
   }
 
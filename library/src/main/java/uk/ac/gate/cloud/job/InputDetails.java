@@ -60,10 +60,12 @@ public class InputDetails extends InputSummary {
   public String mimeTypes;
 
   /**
-   * Refresh this input's state from the server.
+   * Refresh this input's state from the server. The request is
+   * conditional, so if nothing has changed since the last refresh the
+   * server sends no data and this object is left as it is.
    */
   public void refresh() {
-    client.getForUpdate(url, this);
+    client.getForUpdateConditional(url, this);
   }
 
   /**
@@ -21,6 +21,8 @@ import java.net.URLEncoder;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import javax.xml.bind.DatatypeConverter;
 
@@ -185,6 +187,16 @@ public class Job extends JobSummary {
     });
   }
 
+  /**
+   * Streaming version of {@link #listInputs()}, which binds each input
+   * only as the returned stream reaches it. The stream must be closed
+   * after use.
+   */
+  public Stream<InputSummary> streamInputs() {
+    return client.getStream(url + "/input", new TypeReference<InputSummary>() {
+    });
+  }
+
   /**
    * Add an input specification to this job, taking input from a data
    * bundle. All configuration parameters for the input specification
@@ -212,6 +224,16 @@ public class Job extends JobSummary {
     });
   }
 
+  /**
+   * Streaming version of {@link #listOutputs()}, which binds each output
+   * only as the returned stream reaches it. The stream must be closed
+   * after use.
+   */
+  public Stream<Output> streamOutputs() {
+    return client.getStream(url + "/output", new TypeReference<Output>() {
+    });
+  }
+
   /**
    * Add an output specification for this job that pushes results into a
    * M&iacute;mir index.
@@ -389,10 +411,22 @@ public class Job extends JobSummary {
 
   /**
    * Refresh this job's data from the server to update things like the
-   * {@link #progress} counter.
+   * {@link #progress} counter. The request is conditional, so if
+   * nothing has changed since the last refresh the server sends no data
+   * and this object is left as it is.
    */
   public void refresh() {
-    client.getForUpdate(url, this);
+    client.getForUpdateConditional(url, this);
+  }
+
+  /**
+   * Asynchronous version of {@link #refresh()}. This object is updated
+   * in place on completion of the returned future.
+   * 
+   * @return a future that completes once this job has been refreshed.
+   */
+  public CompletableFuture<Void> refreshAsync() {
+    return client.getForUpdateConditionalAsync(url, this);
   }
 
   /**
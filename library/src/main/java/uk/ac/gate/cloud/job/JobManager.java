@@ -18,7 +18,10 @@ package uk.ac.gate.cloud.job;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import uk.ac.gate.cloud.client.RestClient;
 import uk.ac.gate.cloud.client.RestClientException;
@@ -67,6 +70,31 @@ public class JobManager {
    */
   public List<JobSummary> listJobs(JobState... states)
           throws RestClientException {
+    return client.get(listUrl(states),
+            new TypeReference<List<JobSummary>>() {
+            });
+  }
+
+  /**
+   * Streaming version of {@link #listJobs(JobState...)}, which binds
+   * each job summary only as the returned stream reaches it rather than
+   * loading the whole list into memory. The stream must be closed after
+   * use.
+   *
+   * @param states states of interest, as for
+   *          {@link #listJobs(JobState...)}
+   * @return a lazy stream of {@link JobSummary} objects.
+   */
+  public Stream<JobSummary> streamJobs(JobState... states)
+          throws RestClientException {
+    return client.getStream(listUrl(states), new TypeReference<JobSummary>() {
+    });
+  }
+
+  /**
+   * Build the URL to list jobs in the given states.
+   */
+  private String listUrl(JobState... states) {
     StringBuilder urlBuilder = new StringBuilder("job");
     if(states != null && states.length > 0) {
       try {
@@ -81,9 +109,30 @@ public class JobManager {
         throw new RuntimeException("JVM claims not to support UTF-8...", e);
       }
     }
-    return client.get(urlBuilder.toString(),
-            new TypeReference<List<JobSummary>>() {
-            });
+    return urlBuilder.toString();
+  }
+
+  /**
+   * Fetch the full details of each of the given jobs, making the
+   * requests concurrently with the client's
+   * {@link RestClient#getFanOutParallelism() fan-out parallelism}.
+   * 
+   * @param summaries job summaries, as returned by
+   *          {@link #listJobs(JobState...)}
+   * @return the details of each job, in the same order as the summaries.
+   */
+  public List<Job> getJobDetails(List<JobSummary> summaries)
+          throws RestClientException {
+    List<String> urls = new ArrayList<>(summaries.size());
+    for(JobSummary summary : summaries) {
+      urls.add(summary.url);
+    }
+    List<Job> jobs = client.getAll(urls, new TypeReference<Job>() {
+    });
+    for(int i = 0; i < jobs.size(); i++) {
+      jobs.get(i).url = urls.get(i);
+    }
+    return jobs;
   }
 
   /**
@@ -99,6 +148,21 @@ public class JobManager {
     return j;
   }
 
+  /**
+   * Asynchronous version of {@link #getJob(long)}.
+   * 
+   * @param id the ID of the job
+   * @return a future that completes with the details of the requested
+   *         job, or exceptionally with a {@link RestClientException}.
+   */
+  public CompletableFuture<Job> getJobAsync(long id) {
+    return client.getAsync("job/" + id, new TypeReference<Job>() {
+    }).thenApply(j -> {
+      j.url = client.getBaseUrl().toString() + "job/" + id;
+      return j;
+    });
+  }
+
   /**
    * Fetch details of a specific job input specification given its
    * detail URL.
@@ -82,10 +82,12 @@ public class Machine extends MachineSummary {
 
   /**
    * Refresh this machine's data from the server to update things like the
-   * {@link #state state}.
+   * {@link #state state}. The request is conditional, so if nothing
+   * has changed since the last refresh the server sends no data and this
+   * object is left as it is.
    */
   public void refresh() {
-    client.getForUpdate(url, this);
+    client.getForUpdateConditional(url, this);
   }
 
   /**
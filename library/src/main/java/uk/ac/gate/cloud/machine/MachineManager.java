@@ -22,7 +22,9 @@ import uk.ac.gate.cloud.client.RestClientException;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Main entry point for the machine management API, to start, stop and
@@ -61,10 +63,39 @@ public class MachineManager {
    *          to return inactive, pending, active and stopping machines.
    * @return list of {@link MachineSummary} objects representing the
    *         matching machines - call the <code>details</code> method to get
-   *         the full detail (which requires another API call).
+   *         the full detail (which requires another API call). If the
+   *         client has a resource cache this list may be served from
+   *         it, so set a short cache time-to-live for the
+   *         <code>machine</code> URL prefix if machine states are being
+   *         monitored.
    */
   public List<MachineSummary> listMachines(MachineState... states)
           throws RestClientException {
+    return client.getCached(listUrl(states),
+            new TypeReference<List<MachineSummary>>() {
+            });
+  }
+
+  /**
+   * Streaming version of {@link #listMachines(MachineState...)}, which
+   * binds each machine summary only as the returned stream reaches it
+   * rather than loading the whole list into memory. The stream must be
+   * closed after use.
+   *
+   * @param states states of interest, as for
+   *          {@link #listMachines(MachineState...)}
+   * @return a lazy stream of {@link MachineSummary} objects.
+   */
+  public Stream<MachineSummary> streamMachines(MachineState... states)
+          throws RestClientException {
+    return client.getStream(listUrl(states), new TypeReference<MachineSummary>() {
+    });
+  }
+
+  /**
+   * Build the URL to list machines in the given states.
+   */
+  private String listUrl(MachineState... states) {
     StringBuilder urlBuilder = new StringBuilder("machine");
     if(states != null && states.length > 0) {
       try {
@@ -79,9 +110,31 @@ public class MachineManager {
         throw new RuntimeException("JVM claims not to support UTF-8...", e);
       }
     }
-    return client.get(urlBuilder.toString(),
-            new TypeReference<List<MachineSummary>>() {
-            });
+    return urlBuilder.toString();
+  }
+
+  /**
+   * Fetch the full details of each of the given machines, making the
+   * requests concurrently with the client's
+   * {@link RestClient#getFanOutParallelism() fan-out parallelism}.
+   *
+   * @param summaries machine summaries, as returned by
+   *          {@link #listMachines(MachineState...)}
+   * @return the details of each machine, in the same order as the
+   *         summaries.
+   */
+  public List<Machine> getMachineDetails(List<MachineSummary> summaries)
+          throws RestClientException {
+    List<String> urls = new ArrayList<>(summaries.size());
+    for(MachineSummary summary : summaries) {
+      urls.add(summary.url);
+    }
+    List<Machine> machines = client.getAll(urls, new TypeReference<Machine>() {
+    });
+    for(int i = 0; i < machines.size(); i++) {
+      machines.get(i).url = urls.get(i);
+    }
+    return machines;
   }
 
   /**
@@ -16,13 +16,26 @@
  */
 package uk.ac.gate.cloud.online;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+import uk.ac.gate.cloud.client.CallOptions;
+import uk.ac.gate.cloud.client.CircuitBreaker;
+import uk.ac.gate.cloud.client.HedgingPolicy;
+import uk.ac.gate.cloud.client.RateLimiter;
+import uk.ac.gate.cloud.client.Response;
 import uk.ac.gate.cloud.client.StreamWritable;
 import uk.ac.gate.cloud.common.ApiObject;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.core.type.TypeReference;
 
 /**
@@ -79,7 +92,7 @@ public class ApiEndpoint extends ApiObject {
           ResponseType responseType, String annotationSelectors,
           boolean includeText, String... queryParameters) {
     return doCall(content, mimeType, responseType, annotationSelectors,
-            includeText, queryParameters);
+            includeText, null, queryParameters);
   }
 
   /**
@@ -128,12 +141,329 @@ public class ApiEndpoint extends ApiObject {
           ResponseType responseType, String annotationSelectors,
           boolean includeText, String... queryParameters) {
     return doCall(content, mimeType, responseType, annotationSelectors,
-            includeText, queryParameters);
+            includeText, null, queryParameters);
+  }
+
+  /**
+   * Asynchronous version of
+   * {@link #call(InputStream, String, ResponseType, String, boolean, String...)}.
+   * The returned future completes once the response headers have been
+   * received, the annotated results can then be read from the stream.
+   * The content stream must remain open until the future completes.
+   * 
+   * @return a future that completes with an open
+   *         <code>InputStream</code> containing the API response (which
+   *         must be closed by the caller once it has been read), or
+   *         exceptionally with a <code>RestClientException</code>.
+   */
+  public CompletableFuture<InputStream> callAsync(InputStream content,
+          String mimeType, ResponseType responseType,
+          String annotationSelectors, boolean includeText,
+          String... queryParameters) {
+    return doCallAsync(content, mimeType, responseType, annotationSelectors,
+            includeText, null, queryParameters);
+  }
+
+  /**
+   * Asynchronous version of
+   * {@link #call(StreamWritable, String, ResponseType, String, boolean, String...)}.
+   * The returned future completes once the response headers have been
+   * received, the annotated results can then be read from the stream.
+   * 
+   * @return a future that completes with an open
+   *         <code>InputStream</code> containing the API response (which
+   *         must be closed by the caller once it has been read), or
+   *         exceptionally with a <code>RestClientException</code>.
+   */
+  public CompletableFuture<InputStream> callAsync(StreamWritable content,
+          String mimeType, ResponseType responseType,
+          String annotationSelectors, boolean includeText,
+          String... queryParameters) {
+    return doCallAsync(content, mimeType, responseType, annotationSelectors,
+            includeText, null, queryParameters);
+  }
+
+  /**
+   * Pass a document to the endpoint and write the annotated results
+   * directly to a file, without passing them through an intermediate
+   * <code>InputStream</code>. Compressed responses are decompressed as
+   * they are written.
+   * 
+   * @param content an input stream from which the document content can
+   *          be read.
+   * @param mimeType the MIME type identifying the document format, see
+   *          the GATE documentation for a list of supported MIME types.
+   * @param responseType requested response format
+   * @param annotationSelectors annotation selector expressions
+   *          specifying which annotation types to return.
+   * @param includeText should the response include the document text or
+   *          just the annotations?
+   * @param outputFile the file to which the results should be written.
+   *          Any existing file will be overwritten.
+   * @param queryParameters additional query parameters to be appended
+   *          to the endpoint URL, specified as an alternating sequence
+   *          of keys and values.
+   * @return the number of bytes written to the file.
+   */
+  public long callToFile(InputStream content, String mimeType,
+          ResponseType responseType, String annotationSelectors,
+          boolean includeText, Path outputFile, String... queryParameters)
+          throws IOException {
+    return doCallToFile(content, mimeType, responseType, annotationSelectors,
+            includeText, outputFile, null, queryParameters);
+  }
+
+  /**
+   * Pass a document to the endpoint and write the annotated results
+   * directly to a file, as for
+   * {@link #callToFile(InputStream, String, ResponseType, String, boolean, Path, String...)}.
+   * 
+   * @param content a {@link StreamWritable} that can write the document
+   *          content to an output stream.
+   * @return the number of bytes written to the file.
+   */
+  public long callToFile(StreamWritable content, String mimeType,
+          ResponseType responseType, String annotationSelectors,
+          boolean includeText, Path outputFile, String... queryParameters)
+          throws IOException {
+    return doCallToFile(content, mimeType, responseType, annotationSelectors,
+            includeText, outputFile, null, queryParameters);
+  }
+
+  /**
+   * Pass a document to the endpoint and write the annotated results to
+   * the given channel, which will not be closed by this method.
+   * 
+   * @return the number of bytes written to the channel.
+   */
+  public long callToChannel(InputStream content, String mimeType,
+          ResponseType responseType, String annotationSelectors,
+          boolean includeText, WritableByteChannel channel,
+          String... queryParameters) {
+    return doCallToChannel(content, mimeType, responseType,
+            annotationSelectors, includeText, channel, null, queryParameters);
+  }
+
+  /**
+   * Pass a document to the endpoint and write the annotated results to
+   * the given channel, which will not be closed by this method.
+   * 
+   * @return the number of bytes written to the channel.
+   */
+  public long callToChannel(StreamWritable content, String mimeType,
+          ResponseType responseType, String annotationSelectors,
+          boolean includeText, WritableByteChannel channel,
+          String... queryParameters) {
+    return doCallToChannel(content, mimeType, responseType,
+            annotationSelectors, includeText, channel, null, queryParameters);
+  }
+
+  /**
+   * Pass a document to the endpoint and retrieve the annotated results,
+   * as for
+   * {@link #call(InputStream, String, ResponseType, String, boolean, String...)},
+   * with per-call timeouts, deadline and cancellation handle. If the
+   * call is cancelled, the returned stream fails when it is next read.
+   * 
+   * @param options the options for this call, may be <code>null</code>
+   *          to use the client's settings
+   */
+  public InputStream call(InputStream content, String mimeType,
+          ResponseType responseType, String annotationSelectors,
+          boolean includeText, CallOptions options, String... queryParameters) {
+    return doCall(content, mimeType, responseType, annotationSelectors,
+            includeText, options, queryParameters);
+  }
+
+  /**
+   * Pass a document to the endpoint and retrieve the annotated results,
+   * as for
+   * {@link #call(StreamWritable, String, ResponseType, String, boolean, String...)},
+   * with per-call timeouts, deadline and cancellation handle.
+   * 
+   * @param options the options for this call, may be <code>null</code>
+   *          to use the client's settings
+   */
+  public InputStream call(StreamWritable content, String mimeType,
+          ResponseType responseType, String annotationSelectors,
+          boolean includeText, CallOptions options, String... queryParameters) {
+    return doCall(content, mimeType, responseType, annotationSelectors,
+            includeText, options, queryParameters);
+  }
+
+  /**
+   * Pass a document to the endpoint and retrieve the annotated results
+   * along with the response headers, the quota and rate limit
+   * information that the server reports for this call, and timings.
+   * The body of the returned response is the result stream, which must
+   * be closed by the caller.
+   * 
+   * @param options the options for this call, may be <code>null</code>
+   *          to use the client's settings
+   */
+  public Response<InputStream> exchange(InputStream content,
+          String mimeType, ResponseType responseType,
+          String annotationSelectors, boolean includeText,
+          CallOptions options, String... queryParameters) {
+    return doExchange(content, mimeType, responseType, annotationSelectors,
+            includeText, options, queryParameters);
+  }
+
+  /**
+   * Pass a document to the endpoint and retrieve the annotated results
+   * along with the response metadata, as for
+   * {@link #exchange(InputStream, String, ResponseType, String, boolean, CallOptions, String...)}.
+   */
+  public Response<InputStream> exchange(StreamWritable content,
+          String mimeType, ResponseType responseType,
+          String annotationSelectors, boolean includeText,
+          CallOptions options, String... queryParameters) {
+    return doExchange(content, mimeType, responseType, annotationSelectors,
+            includeText, options, queryParameters);
+  }
+
+  /**
+   * Asynchronous version of
+   * {@link #call(InputStream, String, ResponseType, String, boolean, CallOptions, String...)}.
+   */
+  public CompletableFuture<InputStream> callAsync(InputStream content,
+          String mimeType, ResponseType responseType,
+          String annotationSelectors, boolean includeText,
+          CallOptions options, String... queryParameters) {
+    return doCallAsync(content, mimeType, responseType, annotationSelectors,
+            includeText, options, queryParameters);
+  }
+
+  /**
+   * Asynchronous version of
+   * {@link #call(StreamWritable, String, ResponseType, String, boolean, CallOptions, String...)}.
+   */
+  public CompletableFuture<InputStream> callAsync(StreamWritable content,
+          String mimeType, ResponseType responseType,
+          String annotationSelectors, boolean includeText,
+          CallOptions options, String... queryParameters) {
+    return doCallAsync(content, mimeType, responseType, annotationSelectors,
+            includeText, options, queryParameters);
+  }
+
+  /**
+   * Pass a document to the endpoint and write the annotated results
+   * directly to a file, as for
+   * {@link #callToFile(InputStream, String, ResponseType, String, boolean, Path, String...)},
+   * with per-call timeouts, deadline and cancellation handle.
+   */
+  public long callToFile(InputStream content, String mimeType,
+          ResponseType responseType, String annotationSelectors,
+          boolean includeText, Path outputFile, CallOptions options,
+          String... queryParameters) throws IOException {
+    return doCallToFile(content, mimeType, responseType, annotationSelectors,
+            includeText, outputFile, options, queryParameters);
+  }
+
+  /**
+   * Pass a document to the endpoint and write the annotated results
+   * directly to a file, as for
+   * {@link #callToFile(StreamWritable, String, ResponseType, String, boolean, Path, String...)},
+   * with per-call timeouts, deadline and cancellation handle.
+   */
+  public long callToFile(StreamWritable content, String mimeType,
+          ResponseType responseType, String annotationSelectors,
+          boolean includeText, Path outputFile, CallOptions options,
+          String... queryParameters) throws IOException {
+    return doCallToFile(content, mimeType, responseType, annotationSelectors,
+            includeText, outputFile, options, queryParameters);
+  }
+
+  /**
+   * Pass a document to the endpoint and write the annotated results to
+   * the given channel, with per-call timeouts, deadline and
+   * cancellation handle.
+   * 
+   * @return the number of bytes written to the channel.
+   */
+  public long callToChannel(InputStream content, String mimeType,
+          ResponseType responseType, String annotationSelectors,
+          boolean includeText, WritableByteChannel channel,
+          CallOptions options, String... queryParameters) {
+    return doCallToChannel(content, mimeType, responseType,
+            annotationSelectors, includeText, channel, options,
+            queryParameters);
+  }
+
+  /**
+   * Pass a document to the endpoint and write the annotated results to
+   * the given channel, with per-call timeouts, deadline and
+   * cancellation handle.
+   * 
+   * @return the number of bytes written to the channel.
+   */
+  public long callToChannel(StreamWritable content, String mimeType,
+          ResponseType responseType, String annotationSelectors,
+          boolean includeText, WritableByteChannel channel,
+          CallOptions options, String... queryParameters) {
+    return doCallToChannel(content, mimeType, responseType,
+            annotationSelectors, includeText, channel, options,
+            queryParameters);
+  }
+
+  private long doCallToChannel(Object content, String mimeType,
+          ResponseType responseType, String annotationSelectors,
+          boolean includeText, WritableByteChannel channel,
+          CallOptions options, String... queryParameters) {
+    return client.requestToChannel(
+            callUrl(annotationSelectors, queryParameters), "POST", content,
+            client.getRequestCompression().getThreshold(), channel, options,
+            callHeaders(mimeType, responseType, includeText));
+  }
+
+  private long doCallToFile(Object content, String mimeType,
+          ResponseType responseType, String annotationSelectors,
+          boolean includeText, Path outputFile, CallOptions options,
+          String... queryParameters) throws IOException {
+    try(FileChannel channel = FileChannel.open(outputFile,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      return doCallToChannel(content, mimeType, responseType,
+              annotationSelectors, includeText, channel, options,
+              queryParameters);
+    }
   }
 
   private InputStream doCall(Object content, String mimeType,
           ResponseType responseType, String annotationSelectors,
-          boolean includeText, String... queryParameters) {
+          boolean includeText, CallOptions options,
+          String... queryParameters) {
+    return client.requestForStream(
+            callUrl(annotationSelectors, queryParameters), "POST", content,
+            client.getRequestCompression().getThreshold(), options,
+            callHeaders(mimeType, responseType, includeText));
+  }
+
+  private Response<InputStream> doExchange(Object content, String mimeType,
+          ResponseType responseType, String annotationSelectors,
+          boolean includeText, CallOptions options,
+          String... queryParameters) {
+    return client.exchangeForStream(
+            callUrl(annotationSelectors, queryParameters), "POST", content,
+            client.getRequestCompression().getThreshold(), options,
+            callHeaders(mimeType, responseType, includeText));
+  }
+
+  private CompletableFuture<InputStream> doCallAsync(Object content,
+          String mimeType, ResponseType responseType,
+          String annotationSelectors, boolean includeText,
+          CallOptions options, String... queryParameters) {
+    return client.requestForStreamAsync(
+            callUrl(annotationSelectors, queryParameters), "POST", content,
+            client.getRequestCompression().getThreshold(), options,
+            callHeaders(mimeType, responseType, includeText));
+  }
+
+  /**
+   * Build the HTTP headers for a call to this endpoint.
+   */
+  private String[] callHeaders(String mimeType, ResponseType responseType,
+          boolean includeText) {
     if(responseType == null) {
       responseType = ResponseType.JSON;
     }
@@ -145,6 +475,15 @@ public class ApiEndpoint extends ApiObject {
     extraHeaders[offs++] = mimeType;
     extraHeaders[offs++] = "Accept-Encoding";
     extraHeaders[offs++] = "gzip";
+    return extraHeaders;
+  }
+
+  /**
+   * Build the URL for a call to this endpoint, including the annotation
+   * selectors and any additional query parameters.
+   */
+  private String callUrl(String annotationSelectors,
+          String... queryParameters) {
     String theUrl = endpointUrl;
     if(annotationSelectors != null || (queryParameters != null && queryParameters.length > 0)) {
       StringBuilder urlBuilder = new StringBuilder(theUrl);
@@ -173,12 +512,104 @@ public class ApiEndpoint extends ApiObject {
       }
       theUrl = urlBuilder.toString();
     }
-    return client.requestForStream(theUrl, "POST", content, 4096,
-            extraHeaders);
+    return theUrl;
   }
   
+  /**
+   * Get the rate limiter that applies to calls to this endpoint.
+   * 
+   * @return the limiter registered for this endpoint, or
+   *         <code>null</code> if calls are not limited at the endpoint
+   *         level (the client-wide limiter, if any, still applies)
+   */
+  @JsonIgnore
+  public RateLimiter getRateLimiter() {
+    return client.getRateLimiter(endpointUrl);
+  }
+
+  /**
+   * Pace calls to this endpoint using the given rate limiter, which
+   * will adapt itself to the rate limit headers returned by the
+   * endpoint. The limiter is registered with the client for this
+   * endpoint's URL, so it applies to every call made to the endpoint
+   * through the same client, from any thread and via any
+   * <code>ApiEndpoint</code> object.
+   * 
+   * @param rateLimiter the limiter, or <code>null</code> to remove it
+   */
+  @JsonIgnore
+  public void setRateLimiter(RateLimiter rateLimiter) {
+    client.setRateLimiter(endpointUrl, rateLimiter);
+  }
+
+  /**
+   * Get the circuit breaker protecting this endpoint.
+   * 
+   * @return the breaker, or <code>null</code> if none has been set
+   */
+  @JsonIgnore
+  public CircuitBreaker getCircuitBreaker() {
+    return client.getCircuitBreaker(endpointUrl);
+  }
+
+  /**
+   * Protect calls to this endpoint with a circuit breaker and
+   * concurrency bulkhead. While the breaker is open, or the maximum
+   * number of concurrent calls is in progress, calls fail immediately
+   * with a {@link uk.ac.gate.cloud.client.CallNotPermittedException}
+   * rather than waiting for a degraded service. As with the
+   * {@link #setRateLimiter(RateLimiter) rate limiter}, the breaker is
+   * registered with the client for this endpoint's URL.
+   * 
+   * @param circuitBreaker the breaker, or <code>null</code> to remove it
+   */
+  @JsonIgnore
+  public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+    client.setCircuitBreaker(endpointUrl, circuitBreaker);
+  }
+
+  /**
+   * Get the hedging policy for calls to this endpoint.
+   * 
+   * @return the policy, or <code>null</code> if calls are not hedged
+   */
+  @JsonIgnore
+  public HedgingPolicy getHedgingPolicy() {
+    return client.getHedgingPolicy(endpointUrl);
+  }
+
+  /**
+   * Hedge calls to this endpoint to reduce tail latency: if a call has
+   * not received a response within a percentile of recent response
+   * times, a duplicate call is sent and whichever responds first is
+   * used. Only calls whose content is supplied as a
+   * {@link StreamWritable} can be hedged, as an <code>InputStream</code>
+   * cannot be sent twice. Hedges count against any
+   * {@link #setRateLimiter(RateLimiter) rate limiter} for the endpoint.
+   * 
+   * @param hedgingPolicy the policy, or <code>null</code> to stop
+   *          hedging calls
+   */
+  @JsonIgnore
+  public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+    client.setHedgingPolicy(endpointUrl, hedgingPolicy);
+  }
+
+  /**
+   * The executor on which this endpoint's client runs asynchronous
+   * work, used by {@link BatchProcessor}.
+   */
+  Executor asyncExecutor() {
+    return client.getAsyncExecutor();
+  }
+
+  /**
+   * Fetch the metadata describing this endpoint's service, such as its
+   * default and additional annotation selectors. This is served from
+   * the client's resource cache if it has one.
+   */
   public ServiceMetadata metadata() {
-    return client.get(endpointUrl + "/metadata", new TypeReference<ServiceMetadata>() {
+    return client.getCached(endpointUrl + "/metadata", new TypeReference<ServiceMetadata>() {
     });
   }
 }
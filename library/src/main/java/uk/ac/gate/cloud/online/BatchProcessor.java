@@ -0,0 +1,511 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.online;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.IOUtils;
+
+import uk.ac.gate.cloud.client.RestClientException;
+import uk.ac.gate.cloud.client.SizedStreamWritable;
+
+/**
+ * Sends a large number of documents to an {@link ApiEndpoint}
+ * concurrently, passing each result (or failure) to a
+ * {@link ResultSink}. The documents are read from an
+ * <code>Iterator</code> or <code>Stream</code> only as fast as the
+ * service can process them, so the whole batch is never held in memory:
+ * <ul>
+ * <li>at most {@link #getParallelism() parallelism} calls to the
+ * service are in progress at once;</li>
+ * <li>at most {@link #getMaxInFlightRequests() maxInFlightRequests}
+ * documents have been taken from the source but not yet delivered to
+ * the sink;</li>
+ * <li>the total size of those documents is at most
+ * {@link #getMaxInFlightBytes() maxInFlightBytes} (a single document
+ * larger than this is sent on its own).</li>
+ * </ul>
+ * By default results are delivered as soon as they arrive, possibly
+ * from several threads at once, so the sink must be thread-safe. In
+ * {@link #setOrdered(boolean) ordered} mode each response is read into
+ * memory and held in a reorder buffer until all the documents before it
+ * have been delivered, and the sink is called from one thread at a time
+ * in input order.
+ * <p>
+ * A document that fails (including after the client's retries) is
+ * passed to {@link ResultSink#failure} and the batch carries on with
+ * the next one. The calls are made through the endpoint in the usual
+ * way, so its rate limiter, circuit breaker and hedging policy all
+ * apply, and they run on the client's
+ * {@link uk.ac.gate.cloud.client.RestClient#getAsyncExecutor() async
+ * executor}.
+ * 
+ * @param <T> the type of the documents, which must know their own size
+ */
+public class BatchProcessor<T extends SizedStreamWritable> {
+
+  /**
+   * Receives the outcome of each document in a batch.
+   */
+  public interface ResultSink<T> {
+    /**
+     * Handle the response for a document that was processed
+     * successfully. The stream is closed when this method returns. If
+     * it throws an exception, the document is passed to
+     * {@link #failure} instead.
+     */
+    public void result(T document, InputStream response) throws IOException;
+
+    /**
+     * Handle a document that could not be processed. This method should
+     * not throw exceptions, any that it does are ignored.
+     */
+    public void failure(T document, Exception error);
+  }
+
+  /**
+   * Counts of the documents processed by a batch.
+   */
+  public static class Summary {
+    private final long succeeded;
+
+    private final long failed;
+
+    Summary(long succeeded, long failed) {
+      this.succeeded = succeeded;
+      this.failed = failed;
+    }
+
+    public long getSucceeded() {
+      return succeeded;
+    }
+
+    public long getFailed() {
+      return failed;
+    }
+
+    @Override
+    public String toString() {
+      return succeeded + " succeeded, " + failed + " failed";
+    }
+  }
+
+  public static final int DEFAULT_PARALLELISM = 4;
+
+  public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 16;
+
+  public static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 64L * 1024 * 1024;
+
+  private final ApiEndpoint endpoint;
+
+  private final String mimeType;
+
+  private final ResponseType responseType;
+
+  private String annotationSelectors;
+
+  private boolean includeText = true;
+
+  private int parallelism = DEFAULT_PARALLELISM;
+
+  private int maxInFlightRequests = DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+
+  private long maxInFlightBytes = DEFAULT_MAX_IN_FLIGHT_BYTES;
+
+  private boolean ordered = false;
+
+  /**
+   * Create a processor that sends documents of the given type to the
+   * given endpoint.
+   * 
+   * @param endpoint the endpoint to call
+   * @param mimeType the MIME type identifying the document format, see
+   *          the GATE documentation for a list of supported MIME types.
+   * @param responseType requested response format
+   */
+  public BatchProcessor(ApiEndpoint endpoint, String mimeType,
+          ResponseType responseType) {
+    this.endpoint = endpoint;
+    this.mimeType = mimeType;
+    this.responseType = responseType;
+  }
+
+  public String getAnnotationSelectors() {
+    return annotationSelectors;
+  }
+
+  /**
+   * Annotation selector expressions specifying which annotation types
+   * to return, or <code>null</code> for the service's defaults.
+   */
+  public void setAnnotationSelectors(String annotationSelectors) {
+    this.annotationSelectors = annotationSelectors;
+  }
+
+  public boolean isIncludeText() {
+    return includeText;
+  }
+
+  /**
+   * Should the responses include the document text or just the
+   * annotations? Returning just annotations is only supported by the
+   * <code>GATE_XML</code> and <code>FINF</code> response types.
+   */
+  public void setIncludeText(boolean includeText) {
+    this.includeText = includeText;
+  }
+
+  /**
+   * Maximum number of calls to the service in progress at once.
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    if(parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be at least 1");
+    }
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Maximum number of documents taken from the source but not yet
+   * delivered to the sink, including those waiting in the reorder
+   * buffer in ordered mode. If this is less than the
+   * {@link #getParallelism() parallelism}, it limits the number of
+   * concurrent calls instead.
+   */
+  public int getMaxInFlightRequests() {
+    return maxInFlightRequests;
+  }
+
+  public void setMaxInFlightRequests(int maxInFlightRequests) {
+    if(maxInFlightRequests < 1) {
+      throw new IllegalArgumentException(
+              "maxInFlightRequests must be at least 1");
+    }
+    this.maxInFlightRequests = maxInFlightRequests;
+  }
+
+  /**
+   * Maximum total content length of the documents in flight. A document
+   * whose length is unknown (negative) counts as zero bytes.
+   */
+  public long getMaxInFlightBytes() {
+    return maxInFlightBytes;
+  }
+
+  public void setMaxInFlightBytes(long maxInFlightBytes) {
+    if(maxInFlightBytes < 1) {
+      throw new IllegalArgumentException("maxInFlightBytes must be positive");
+    }
+    this.maxInFlightBytes = maxInFlightBytes;
+  }
+
+  /**
+   * Are results delivered in input order?
+   */
+  public boolean isOrdered() {
+    return ordered;
+  }
+
+  public void setOrdered(boolean ordered) {
+    this.ordered = ordered;
+  }
+
+  /**
+   * Process all the documents in the given stream, as for
+   * {@link #process(Iterator, ResultSink)}. The stream is not closed.
+   */
+  public Summary process(Stream<? extends T> documents,
+          ResultSink<? super T> sink) throws RestClientException {
+    return process(documents.iterator(), sink);
+  }
+
+  /**
+   * Process all the documents from the given iterator, returning once
+   * every document has been delivered to the sink. Failures of
+   * individual documents are reported to the sink and do not stop the
+   * batch, but if the iterator itself throws an exception no more
+   * documents are started, and the exception is rethrown once those
+   * already in flight have been delivered.
+   * 
+   * @param documents the documents to process
+   * @param sink the destination for the results
+   * @return the number of documents that succeeded and failed
+   * @throws RestClientException if the calling thread is interrupted,
+   *           in which case no more documents are started but those in
+   *           flight are still delivered to the sink in the background.
+   */
+  public Summary process(Iterator<? extends T> documents,
+          ResultSink<? super T> sink) throws RestClientException {
+    return new Batch(sink).run(documents);
+  }
+
+  /**
+   * The state of one call to {@link BatchProcessor#process}.
+   */
+  private class Batch {
+    private final ResultSink<? super T> sink;
+
+    private final Executor executor = endpoint.asyncExecutor();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled whenever a call finishes or a document is delivered.
+     */
+    private final Condition released = lock.newCondition();
+
+    private int activeCalls;
+
+    private int inFlight;
+
+    private long inFlightBytes;
+
+    /**
+     * Completed documents waiting to be delivered in ordered mode, keyed
+     * by their position in the input.
+     */
+    private final TreeMap<Long, Completed> reorderBuffer = new TreeMap<>();
+
+    private long nextToDeliver;
+
+    private boolean delivering;
+
+    private final AtomicLong succeeded = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    Batch(ResultSink<? super T> sink) {
+      this.sink = sink;
+    }
+
+    Summary run(Iterator<? extends T> documents) {
+      long seq = 0;
+      try {
+        while(documents.hasNext()) {
+          T document = documents.next();
+          long size = Math.max(0, document.getContentLength());
+          lock.lock();
+          try {
+            while(activeCalls >= parallelism
+                    || inFlight >= maxInFlightRequests
+                    || (inFlight > 0 && inFlightBytes + size > maxInFlightBytes)) {
+              released.await();
+            }
+            activeCalls++;
+            inFlight++;
+            inFlightBytes += size;
+          } finally {
+            lock.unlock();
+          }
+          long position = seq++;
+          try {
+            executor.execute(() -> send(position, document, size));
+          } catch(RejectedExecutionException e) {
+            lock.lock();
+            try {
+              activeCalls--;
+              inFlight--;
+              inFlightBytes -= size;
+            } finally {
+              lock.unlock();
+            }
+            throw e;
+          }
+        }
+        // wait for the documents still in flight
+        lock.lock();
+        try {
+          while(inFlight > 0) {
+            released.await();
+          }
+        } finally {
+          lock.unlock();
+        }
+      } catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RestClientException(new InterruptedIOException(
+                "Interrupted while processing batch"));
+      } catch(RuntimeException e) {
+        awaitQuietly();
+        throw e;
+      }
+      return new Summary(succeeded.get(), failed.get());
+    }
+
+    /**
+     * Wait for the documents in flight after the source has failed,
+     * without losing an interrupt.
+     */
+    private void awaitQuietly() {
+      lock.lock();
+      try {
+        while(inFlight > 0) {
+          released.awaitUninterruptibly();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Call the service for one document, and deliver the result
+     * directly or via the reorder buffer.
+     */
+    private void send(long position, T document, long size) {
+      InputStream response = null;
+      Completed completed = new Completed(document, size);
+      try {
+        response =
+                endpoint.call(document, mimeType, responseType,
+                        annotationSelectors, includeText);
+        if(response == null) {
+          response = new ByteArrayInputStream(new byte[0]);
+        }
+        if(ordered) {
+          completed.body = IOUtils.toByteArray(response);
+        } else {
+          deliver(completed, response);
+        }
+      } catch(Exception e) {
+        completed.error = e;
+        if(!ordered) {
+          deliver(completed, null);
+        }
+      } finally {
+        IOUtils.closeQuietly(response);
+        lock.lock();
+        try {
+          activeCalls--;
+          released.signalAll();
+        } finally {
+          lock.unlock();
+        }
+      }
+      if(ordered) {
+        reorder(position, completed);
+      } else {
+        done(completed);
+      }
+    }
+
+    /**
+     * Add a completed document to the reorder buffer, then unless
+     * another thread is already doing so deliver every document that is
+     * next in line.
+     */
+    private void reorder(long position, Completed completed) {
+      lock.lock();
+      try {
+        reorderBuffer.put(position, completed);
+        if(delivering) {
+          return;
+        }
+        delivering = true;
+      } finally {
+        lock.unlock();
+      }
+      while(true) {
+        Completed next;
+        lock.lock();
+        try {
+          next = reorderBuffer.remove(nextToDeliver);
+          if(next == null) {
+            delivering = false;
+            return;
+          }
+          nextToDeliver++;
+        } finally {
+          lock.unlock();
+        }
+        deliver(next, (next.error == null)
+                ? new ByteArrayInputStream(next.body)
+                : null);
+        done(next);
+      }
+    }
+
+    /**
+     * Pass the outcome of a document to the sink.
+     */
+    private void deliver(Completed completed, InputStream response) {
+      Exception error = completed.error;
+      if(error == null) {
+        try {
+          sink.result(completed.document, response);
+          succeeded.incrementAndGet();
+          return;
+        } catch(Exception e) {
+          error = e;
+        }
+      }
+      failed.incrementAndGet();
+      try {
+        sink.failure(completed.document, error);
+      } catch(RuntimeException e) {
+        // nothing more we can do with this document
+      }
+    }
+
+    /**
+     * Release the in-flight allowance of a delivered document.
+     */
+    private void done(Completed completed) {
+      lock.lock();
+      try {
+        inFlight--;
+        inFlightBytes -= completed.size;
+        released.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * A document whose call has finished, with the response body (in
+   * ordered mode) or the error.
+   */
+  private class Completed {
+    final T document;
+
+    final long size;
+
+    byte[] body;
+
+    Exception error;
+
+    Completed(T document, long size) {
+      this.document = document;
+      this.size = size;
+    }
+  }
+}
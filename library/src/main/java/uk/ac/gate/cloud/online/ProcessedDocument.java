@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.online;
+
+/**
+ * The outcome of sending one document to an {@link ApiEndpoint} through
+ * a {@link ReactiveDocumentProcessor}: either the complete response
+ * body or the exception that caused the call to fail.
+ * 
+ * @param <T> the type of the document
+ */
+public class ProcessedDocument<T> {
+
+  private final T document;
+
+  private final byte[] response;
+
+  private final Exception error;
+
+  ProcessedDocument(T document, byte[] response, Exception error) {
+    this.document = document;
+    this.response = response;
+    this.error = error;
+  }
+
+  /**
+   * The document that was sent.
+   */
+  public T getDocument() {
+    return document;
+  }
+
+  /**
+   * The response body in the requested response format, or
+   * <code>null</code> if the call failed.
+   */
+  public byte[] getResponse() {
+    return response;
+  }
+
+  /**
+   * The exception that caused the call to fail, or <code>null</code> if
+   * it succeeded.
+   */
+  public Exception getError() {
+    return error;
+  }
+
+  public boolean isSuccess() {
+    return error == null;
+  }
+}
@@ -0,0 +1,490 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.online;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.io.IOUtils;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import uk.ac.gate.cloud.client.SizedStreamWritable;
+
+/**
+ * A Reactive Streams {@link Processor} that sends each document it
+ * receives to an {@link ApiEndpoint} and publishes the outcome as a
+ * {@link ProcessedDocument}. Documents are requested from upstream only
+ * when there is room for them, so at most
+ * {@link #getMaxInFlightRequests() maxInFlightRequests} documents are
+ * ever being processed or waiting to be published, and no more are
+ * requested than the downstream subscriber has asked for. A document
+ * that fails (including after the client's retries) is published as a
+ * <code>ProcessedDocument</code> carrying the exception rather than
+ * terminating the stream; an error from upstream is passed downstream
+ * once the documents already in flight have been published.
+ * <p>
+ * By default results are published as soon as they arrive; in
+ * {@link #setOrdered(boolean) ordered} mode they are published in input
+ * order. Each response is read fully into memory, so that the
+ * connection can be released without waiting for downstream demand.
+ * The calls run on the client's
+ * {@link uk.ac.gate.cloud.client.RestClient#getAsyncExecutor() async
+ * executor}.
+ * <p>
+ * A processor can be subscribed to one upstream publisher and can have
+ * one downstream subscriber. The configuration setters must be called
+ * before it is subscribed. The Reactive Streams API is an optional
+ * dependency of this library, add
+ * <code>org.reactivestreams:reactive-streams</code> to use this class.
+ * On Java 9 or later <code>FlowAdapters.toFlowProcessor</code> from
+ * that library turns it into a
+ * <code>java.util.concurrent.Flow.Processor</code>.
+ * 
+ * @param <T> the type of the documents
+ */
+public class ReactiveDocumentProcessor<T extends SizedStreamWritable>
+        implements Processor<T, ProcessedDocument<T>> {
+
+  public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 16;
+
+  private final ApiEndpoint endpoint;
+
+  private final String mimeType;
+
+  private final ResponseType responseType;
+
+  private String annotationSelectors;
+
+  private boolean includeText = true;
+
+  private int maxInFlightRequests = DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+
+  private boolean ordered = false;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private Subscription upstream;
+
+  private boolean subscribed;
+
+  private Subscriber<? super ProcessedDocument<T>> downstream;
+
+  /**
+   * Outstanding downstream demand.
+   */
+  private long demand;
+
+  /**
+   * Documents requested from upstream but not yet received.
+   */
+  private long requested;
+
+  /**
+   * Documents whose calls are still in progress.
+   */
+  private int activeCalls;
+
+  /**
+   * Completed documents waiting to be published, keyed by their
+   * position in the input.
+   */
+  private final TreeMap<Long, ProcessedDocument<T>> completed =
+          new TreeMap<>();
+
+  private long nextPosition;
+
+  private long nextToPublish;
+
+  private boolean upstreamDone;
+
+  private Throwable upstreamError;
+
+  private Throwable downstreamError;
+
+  private boolean cancelled;
+
+  private boolean terminated;
+
+  private boolean draining;
+
+  private boolean missed;
+
+  /**
+   * Create a processor that sends documents of the given type to the
+   * given endpoint.
+   * 
+   * @param endpoint the endpoint to call
+   * @param mimeType the MIME type identifying the document format, see
+   *          the GATE documentation for a list of supported MIME types.
+   * @param responseType requested response format
+   */
+  public ReactiveDocumentProcessor(ApiEndpoint endpoint, String mimeType,
+          ResponseType responseType) {
+    this.endpoint = endpoint;
+    this.mimeType = mimeType;
+    this.responseType = responseType;
+  }
+
+  public String getAnnotationSelectors() {
+    return annotationSelectors;
+  }
+
+  /**
+   * Annotation selector expressions specifying which annotation types
+   * to return, or <code>null</code> for the service's defaults.
+   */
+  public void setAnnotationSelectors(String annotationSelectors) {
+    this.annotationSelectors = annotationSelectors;
+  }
+
+  public boolean isIncludeText() {
+    return includeText;
+  }
+
+  /**
+   * Should the responses include the document text or just the
+   * annotations? Returning just annotations is only supported by the
+   * <code>GATE_XML</code> and <code>FINF</code> response types.
+   */
+  public void setIncludeText(boolean includeText) {
+    this.includeText = includeText;
+  }
+
+  /**
+   * Maximum number of documents received from upstream but not yet
+   * published, which is also the maximum number of concurrent calls to
+   * the service.
+   */
+  public int getMaxInFlightRequests() {
+    return maxInFlightRequests;
+  }
+
+  public void setMaxInFlightRequests(int maxInFlightRequests) {
+    if(maxInFlightRequests < 1) {
+      throw new IllegalArgumentException(
+              "maxInFlightRequests must be at least 1");
+    }
+    this.maxInFlightRequests = maxInFlightRequests;
+  }
+
+  /**
+   * Are results published in input order?
+   */
+  public boolean isOrdered() {
+    return ordered;
+  }
+
+  public void setOrdered(boolean ordered) {
+    this.ordered = ordered;
+  }
+
+  // ---------- Subscriber side ----------
+
+  @Override
+  public void onSubscribe(Subscription s) {
+    Objects.requireNonNull(s, "subscription");
+    boolean accept;
+    lock.lock();
+    try {
+      accept = upstream == null && !cancelled && !terminated;
+      if(accept) {
+        upstream = s;
+      }
+    } finally {
+      lock.unlock();
+    }
+    if(accept) {
+      drain();
+    } else {
+      s.cancel();
+    }
+  }
+
+  @Override
+  public void onNext(T document) {
+    Objects.requireNonNull(document, "document");
+    long position;
+    lock.lock();
+    try {
+      if(upstreamDone || cancelled) {
+        return;
+      }
+      requested--;
+      activeCalls++;
+      position = nextPosition++;
+    } finally {
+      lock.unlock();
+    }
+    try {
+      endpoint.asyncExecutor().execute(() -> send(position, document));
+    } catch(RejectedExecutionException e) {
+      completed(position, new ProcessedDocument<>(document, null, e));
+    }
+  }
+
+  @Override
+  public void onError(Throwable t) {
+    Objects.requireNonNull(t, "error");
+    lock.lock();
+    try {
+      if(upstreamDone) {
+        return;
+      }
+      upstreamDone = true;
+      upstreamError = t;
+    } finally {
+      lock.unlock();
+    }
+    drain();
+  }
+
+  @Override
+  public void onComplete() {
+    lock.lock();
+    try {
+      upstreamDone = true;
+    } finally {
+      lock.unlock();
+    }
+    drain();
+  }
+
+  // ---------- Publisher side ----------
+
+  @Override
+  public void subscribe(Subscriber<? super ProcessedDocument<T>> s) {
+    Objects.requireNonNull(s, "subscriber");
+    boolean accept;
+    lock.lock();
+    try {
+      accept = !subscribed;
+      subscribed = true;
+    } finally {
+      lock.unlock();
+    }
+    if(!accept) {
+      s.onSubscribe(new Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+      s.onError(new IllegalStateException(
+              "This processor already has a subscriber"));
+      return;
+    }
+    s.onSubscribe(new Subscription() {
+      @Override
+      public void request(long n) {
+        lock.lock();
+        try {
+          if(n <= 0) {
+            if(downstreamError == null) {
+              downstreamError =
+                      new IllegalArgumentException(
+                              "Requested a non-positive number of elements: "
+                                      + n);
+            }
+          } else {
+            demand += n;
+            if(demand < 0) {
+              demand = Long.MAX_VALUE;
+            }
+          }
+        } finally {
+          lock.unlock();
+        }
+        drain();
+      }
+
+      @Override
+      public void cancel() {
+        Subscription up;
+        lock.lock();
+        try {
+          cancelled = true;
+          completed.clear();
+          up = upstream;
+        } finally {
+          lock.unlock();
+        }
+        if(up != null) {
+          up.cancel();
+        }
+      }
+    });
+    lock.lock();
+    try {
+      downstream = s;
+    } finally {
+      lock.unlock();
+    }
+    drain();
+  }
+
+  // ---------- internals ----------
+
+  /**
+   * Call the service for one document and queue the outcome for
+   * publishing.
+   */
+  private void send(long position, T document) {
+    ProcessedDocument<T> result;
+    try(InputStream response =
+            endpoint.call(document, mimeType, responseType,
+                    annotationSelectors, includeText)) {
+      result =
+              new ProcessedDocument<>(document, response == null
+                      ? new byte[0]
+                      : IOUtils.toByteArray(response), null);
+    } catch(Exception e) {
+      result = new ProcessedDocument<>(document, null, e);
+    }
+    completed(position, result);
+  }
+
+  private void completed(long position, ProcessedDocument<T> result) {
+    lock.lock();
+    try {
+      activeCalls--;
+      if(!cancelled) {
+        completed.put(position, result);
+      }
+    } finally {
+      lock.unlock();
+    }
+    drain();
+  }
+
+  /**
+   * The next result that may be published, or <code>null</code> if
+   * there is none. Must be called with the lock held.
+   */
+  private ProcessedDocument<T> takeNext() {
+    if(ordered) {
+      ProcessedDocument<T> next = completed.remove(nextToPublish);
+      if(next != null) {
+        nextToPublish++;
+      }
+      return next;
+    }
+    Map.Entry<Long, ProcessedDocument<T>> first = completed.pollFirstEntry();
+    return first == null ? null : first.getValue();
+  }
+
+  /**
+   * Publish whatever results downstream demand allows, signal
+   * completion when everything has been published, and request more
+   * documents from upstream when there is room. Only one thread drains
+   * at a time, so downstream signals are never concurrent; a thread
+   * that finds another already draining just marks that it needs to go
+   * round again.
+   */
+  private void drain() {
+    lock.lock();
+    try {
+      if(draining) {
+        missed = true;
+        return;
+      }
+      draining = true;
+    } finally {
+      lock.unlock();
+    }
+    while(true) {
+      Subscriber<? super ProcessedDocument<T>> down;
+      ProcessedDocument<T> next = null;
+      Throwable error = null;
+      boolean complete = false;
+      Subscription cancelUpstream = null;
+      Subscription up = null;
+      long toRequest = 0;
+      boolean done = false;
+      lock.lock();
+      try {
+        missed = false;
+        down = downstream;
+        if(cancelled || terminated || down == null) {
+          draining = false;
+          return;
+        }
+        if(downstreamError != null) {
+          // rule 3.9, the subscriber asked for a non-positive amount
+          terminated = true;
+          error = downstreamError;
+          cancelUpstream = upstream;
+          completed.clear();
+        } else if(demand > 0 && (next = takeNext()) != null) {
+          if(demand != Long.MAX_VALUE) {
+            demand--;
+          }
+        } else if(upstreamDone && activeCalls == 0 && completed.isEmpty()) {
+          terminated = true;
+          error = upstreamError;
+          complete = error == null;
+        } else {
+          long outstanding = requested + activeCalls + completed.size();
+          long room =
+                  Math.min(maxInFlightRequests - outstanding, demand
+                          - outstanding);
+          if(room > 0 && upstream != null && !upstreamDone) {
+            requested += room;
+            toRequest = room;
+            up = upstream;
+          }
+          if(!missed) {
+            draining = false;
+            done = true;
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
+      if(next != null) {
+        down.onNext(next);
+        continue;
+      }
+      if(cancelUpstream != null) {
+        cancelUpstream.cancel();
+      }
+      if(error != null) {
+        down.onError(error);
+        return;
+      }
+      if(complete) {
+        down.onComplete();
+        return;
+      }
+      if(up != null) {
+        up.request(toRequest);
+      }
+      if(done) {
+        return;
+      }
+    }
+  }
+}
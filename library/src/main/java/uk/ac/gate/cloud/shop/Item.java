@@ -68,6 +68,8 @@ public class Item extends ApiObject {
    * Reserve a number of annotation jobs based on this pipeline, or
    * machines of this type, depending on the kind of item.
    * 
+   * The details of the reserved jobs are fetched concurrently.
+   * 
    * @param quantity the number of jobs/machines to reserve
    * @param allowPayment permit payment if the item has an upfront cost.
    * @return one {@link Job} object per reserved job - the list will be
@@ -82,12 +84,13 @@ public class Item extends ApiObject {
             client.request(detailUrl, "POST",
                     new TypeReference<ReserveResponse>() {
                     }, request, extraHeaders);
-    List<Job> jobs = new ArrayList<Job>();
-    for(String jobUrl : response.jobs) {
-      Job job = client.get(jobUrl, new TypeReference<Job>() {
-      });
-      job.url = jobUrl;
-      jobs.add(job);
+    if(response.jobs == null) {
+      return new ArrayList<Job>();
+    }
+    List<Job> jobs = client.getAll(response.jobs, new TypeReference<Job>() {
+    });
+    for(int i = 0; i < jobs.size(); i++) {
+      jobs.get(i).url = response.jobs.get(i);
     }
     return jobs;
   }
@@ -26,7 +26,10 @@ import com.fasterxml.jackson.core.type.TypeReference;
 
 /**
  * Main entry point to the "shop" API to browse the available pipelines
- * and servers or request a specific item by ID.
+ * and servers or request a specific item by ID. The catalogue changes
+ * rarely, so results are served from the client's
+ * {@link RestClient#setResourceCache(uk.ac.gate.cloud.client.ResourceCache)
+ * resource cache} if it has one.
  * 
  * @author Ian Roberts
  */
@@ -78,7 +81,7 @@ public class Shop {
         throw new RuntimeException("JVM claims not to support UTF-8...", e);
       }
     }
-    return client.get(urlBuilder.toString(), new TypeReference<List<Item>>() {
+    return client.getCached(urlBuilder.toString(), new TypeReference<List<Item>>() {
     });
   }
 
@@ -89,7 +92,7 @@ public class Shop {
    * @return the requested item
    */
   public Item getItem(long id) throws RestClientException {
-    return client.get("shop/item/" + id, new TypeReference<Item>() {
+    return client.getCached("shop/item/" + id, new TypeReference<Item>() {
     });
   }
 
@@ -100,7 +103,7 @@ public class Shop {
    * @return the requested item
    */
   public Item getItem(String url) throws RestClientException {
-    return client.get(url, new TypeReference<Item>() {
+    return client.getCached(url, new TypeReference<Item>() {
     });
   }
 
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events emitted by the client and by components
+ * built on it. This is the only class that refers to the
+ * <code>jdk.jfr</code> API directly. It is compiled separately from the
+ * rest of the library, and only loaded by {@link JfrSupport} once JFR is
+ * known to be available, so the client still builds against the Java 8
+ * API and runs on JVMs without JFR.
+ */
+final class JfrEvents implements FlightEvents {
+
+  JfrEvents() {
+  }
+
+  @Name("uk.ac.gate.cloud.HttpRequest")
+  @Label("HTTP Request")
+  @Category({"GATE Cloud", "REST Client"})
+  @Description("A single HTTP request to the GATE Cloud API, from "
+          + "opening the connection to the end of the response")
+  static class HttpRequest extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("URL")
+    String url;
+
+    @Label("Attempt")
+    int attempt;
+
+    @Label("Status Code")
+    int statusCode;
+
+    @Label("Bytes Sent")
+    @DataAmount
+    long bytesSent;
+
+    @Label("Bytes Received")
+    @DataAmount
+    long bytesReceived;
+
+    @Label("Error")
+    String error;
+  }
+
+  @Name("uk.ac.gate.cloud.Redirect")
+  @Label("Redirect")
+  @Category({"GATE Cloud", "REST Client"})
+  @Description("A redirect response followed by the client")
+  static class Redirect extends Event {
+    @Label("Status Code")
+    int statusCode;
+
+    @Label("Location")
+    String location;
+  }
+
+  @Name("uk.ac.gate.cloud.Compression")
+  @Label("Request Compression")
+  @Category({"GATE Cloud", "REST Client"})
+  @Description("Decision whether to GZIP compress a request body, and "
+          + "the time taken to make it")
+  static class Compression extends Event {
+    @Label("Content Type")
+    String contentType;
+
+    @Label("Compressed")
+    boolean compressed;
+
+    @Label("Level")
+    int level;
+
+    @Label("Sampled Bytes")
+    @DataAmount
+    long sampledBytes;
+  }
+
+  @Name("uk.ac.gate.cloud.RateLimitWait")
+  @Label("Rate Limit Wait")
+  @Category({"GATE Cloud", "REST Client"})
+  @Description("Time a request waited for the rate limiter")
+  static class RateLimitWait extends Event {
+    @Label("URL")
+    String url;
+  }
+
+  @Name("uk.ac.gate.cloud.pr.ServiceCall")
+  @Label("Service Call")
+  @Category({"GATE Cloud", "Processing Resource"})
+  @Description("Sending a document to a GATE Cloud API endpoint, "
+          + "including any rate limit wait, until the response starts")
+  static class ServiceCall extends Event {
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Document")
+    String document;
+
+    @Label("MIME Type")
+    String mimeType;
+
+    @Label("Succeeded")
+    boolean succeeded;
+  }
+
+  @Name("uk.ac.gate.cloud.pr.AnnotationParse")
+  @Label("Annotation Parse")
+  @Category({"GATE Cloud", "Processing Resource"})
+  @Description("Reading the annotations returned by the service into "
+          + "the document")
+  static class AnnotationParse extends Event {
+    @Label("Document")
+    String document;
+
+    @Label("Annotation Sets")
+    int annotationSets;
+
+    @Label("Document Length")
+    @DataAmount
+    long documentLength;
+  }
+
+  @Override
+  public Object beginRequest() {
+    HttpRequest event = new HttpRequest();
+    if(!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void endRequest(Object e, RequestEvent request) {
+    HttpRequest event = (HttpRequest)e;
+    event.end();
+    if(event.shouldCommit()) {
+      event.method = request.getMethod();
+      event.url = request.getUrl();
+      event.attempt = request.getAttempt();
+      event.statusCode = request.getStatusCode();
+      event.bytesSent = request.getBytesSent();
+      event.bytesReceived = request.getBytesReceived();
+      if(request.getError() != null) {
+        event.error = request.getError().toString();
+      }
+      event.commit();
+    }
+  }
+
+  @Override
+  public void redirect(int statusCode, String location) {
+    Redirect event = new Redirect();
+    if(event.shouldCommit()) {
+      event.statusCode = statusCode;
+      event.location = location;
+      event.commit();
+    }
+  }
+
+  @Override
+  public Object beginCompression() {
+    Compression event = new Compression();
+    if(!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void endCompression(Object e, String contentType, int level,
+          long sampledBytes) {
+    Compression event = (Compression)e;
+    event.end();
+    if(event.shouldCommit()) {
+      event.contentType = contentType;
+      event.compressed = level != RequestCompression.NO_COMPRESSION;
+      event.level = event.compressed ? level : 0;
+      event.sampledBytes = sampledBytes;
+      event.commit();
+    }
+  }
+
+  @Override
+  public Object beginRateLimitWait() {
+    RateLimitWait event = new RateLimitWait();
+    if(!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void endRateLimitWait(Object e, String url) {
+    RateLimitWait event = (RateLimitWait)e;
+    event.end();
+    if(event.shouldCommit()) {
+      event.url = url;
+      event.commit();
+    }
+  }
+
+  @Override
+  public Object beginServiceCall() {
+    ServiceCall event = new ServiceCall();
+    if(!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void endServiceCall(Object e, String endpoint, String document,
+          String mimeType, boolean succeeded) {
+    ServiceCall event = (ServiceCall)e;
+    event.end();
+    if(event.shouldCommit()) {
+      event.endpoint = endpoint;
+      event.document = document;
+      event.mimeType = mimeType;
+      event.succeeded = succeeded;
+      event.commit();
+    }
+  }
+
+  @Override
+  public Object beginAnnotationParse() {
+    AnnotationParse event = new AnnotationParse();
+    if(!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void endAnnotationParse(Object e, String document,
+          int annotationSets, long documentLength) {
+    AnnotationParse event = (AnnotationParse)e;
+    event.end();
+    if(event.shouldCommit()) {
+      event.document = document;
+      event.annotationSets = annotationSets;
+      event.documentLength = documentLength;
+      event.commit();
+    }
+  }
+}
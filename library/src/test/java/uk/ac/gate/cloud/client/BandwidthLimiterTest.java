@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class BandwidthLimiterTest {
+
+  private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Test
+  public void burstCreditIsAvailableAfterIdle() throws Exception {
+    BandwidthLimiter limiter = new BandwidthLimiter(100000, 10000);
+    Thread.sleep(150);
+    assertEquals(0, limiter.reserve(10000));
+    // the credit is used up, so the next 10k takes a tenth of a second
+    long wait = limiter.reserve(10000);
+    assertTrue("wait was " + wait, wait > 80 * MILLIS && wait <= 100 * MILLIS);
+  }
+
+  @Test
+  public void creditIsCappedAtBurstSize() throws Exception {
+    BandwidthLimiter limiter = new BandwidthLimiter(100000, 10000);
+    // idle for long enough to earn far more than the burst
+    Thread.sleep(300);
+    long wait = limiter.reserve(30000);
+    assertTrue("wait was " + wait, wait > 180 * MILLIS && wait <= 200 * MILLIS);
+  }
+
+  @Test
+  public void defaultBurstIsAtLeastOneChunk() {
+    assertEquals(16384, new BandwidthLimiter(1000).getBurstBytes());
+    assertEquals(100000, new BandwidthLimiter(1000000).getBurstBytes());
+  }
+
+  @Test
+  public void limitedStreamsTransferAtRate() throws Exception {
+    BandwidthLimiter limiter = new BandwidthLimiter(200000, 16384);
+    byte[] data = new byte[16384 + 40000];
+    Thread.sleep(100);
+    long start = System.nanoTime();
+    ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    try(OutputStream out = limiter.limit(sink)) {
+      out.write(data);
+    }
+    long elapsed = System.nanoTime() - start;
+    assertArrayEquals(data, sink.toByteArray());
+    // the first 16k is burst credit, the rest takes 200ms at the rate
+    assertTrue("took " + elapsed, elapsed >= 180 * MILLIS);
+
+    // reads draw from the same bucket, so a further 40k takes another
+    // 200ms on top of the debt left by the writes
+    start = System.nanoTime();
+    byte[] read;
+    try(InputStream in = limiter.limit(new ByteArrayInputStream(data, 0, 40000))) {
+      read = IOUtils.toByteArray(in);
+    }
+    elapsed = System.nanoTime() - start;
+    assertEquals(40000, read.length);
+    assertTrue("took " + elapsed, elapsed >= 180 * MILLIS);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsZeroRate() {
+    new BandwidthLimiter(0);
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import uk.ac.gate.cloud.client.CircuitBreaker.State;
+
+public class CircuitBreakerTest {
+
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private static void call(CircuitBreaker breaker, boolean failure,
+          long durationNanos) throws CallNotPermittedException {
+    breaker.acquirePermission();
+    breaker.onResult(failure, durationNanos);
+  }
+
+  private static void assertRefused(CircuitBreaker breaker, State state) {
+    try {
+      breaker.acquirePermission();
+      fail("call should have been refused");
+    } catch(CallNotPermittedException e) {
+      assertEquals(state, e.getState());
+    }
+  }
+
+  private static CircuitBreaker breaker() {
+    CircuitBreaker breaker = new CircuitBreaker("test", 10);
+    breaker.setMinimumCalls(4);
+    breaker.setOpenMillis(100);
+    breaker.setHalfOpenCalls(2);
+    return breaker;
+  }
+
+  @Test
+  public void opensWhenFailureRateReached() throws Exception {
+    CircuitBreaker breaker = breaker();
+    call(breaker, true, FAST);
+    call(breaker, true, FAST);
+    call(breaker, false, FAST);
+    // not enough calls yet
+    assertEquals(State.CLOSED, breaker.getState());
+    call(breaker, false, FAST);
+    assertEquals(State.OPEN, breaker.getState());
+    assertRefused(breaker, State.OPEN);
+    assertEquals(0, breaker.getActiveCalls());
+  }
+
+  @Test
+  public void staysClosedBelowThreshold() throws Exception {
+    CircuitBreaker breaker = breaker();
+    for(int i = 0; i < 30; i++) {
+      call(breaker, i % 4 == 0, FAST);
+    }
+    assertEquals(State.CLOSED, breaker.getState());
+    assertEquals(10, breaker.getRecordedCalls());
+  }
+
+  @Test
+  public void opensOnSlowCalls() throws Exception {
+    CircuitBreaker breaker = breaker();
+    breaker.setSlowCallMillis(50);
+    breaker.setSlowCallRateThreshold(0.75);
+    long slow = TimeUnit.MILLISECONDS.toNanos(60);
+    call(breaker, false, slow);
+    call(breaker, false, slow);
+    call(breaker, false, FAST);
+    call(breaker, false, slow);
+    assertEquals(State.OPEN, breaker.getState());
+  }
+
+  @Test
+  public void halfOpenClosesAfterSuccessfulTrials() throws Exception {
+    CircuitBreaker breaker = breaker();
+    List<State> transitions = new ArrayList<>();
+    breaker.addStateListener((b, from, to) -> transitions.add(to));
+    for(int i = 0; i < 4; i++) {
+      call(breaker, true, FAST);
+    }
+    Thread.sleep(150);
+    breaker.acquirePermission();
+    assertEquals(State.HALF_OPEN, breaker.getState());
+    breaker.acquirePermission();
+    // only two trial calls are allowed
+    assertRefused(breaker, State.HALF_OPEN);
+    breaker.onResult(false, FAST);
+    breaker.onResult(false, FAST);
+    assertEquals(State.CLOSED, breaker.getState());
+    assertEquals(0, breaker.getRecordedCalls());
+    assertEquals(Arrays.asList(State.OPEN, State.HALF_OPEN, State.CLOSED),
+            transitions);
+  }
+
+  @Test
+  public void halfOpenReopensOnFailure() throws Exception {
+    CircuitBreaker breaker = breaker();
+    for(int i = 0; i < 4; i++) {
+      call(breaker, true, FAST);
+    }
+    Thread.sleep(150);
+    call(breaker, true, FAST);
+    assertEquals(State.OPEN, breaker.getState());
+    assertRefused(breaker, State.OPEN);
+  }
+
+  @Test
+  public void releaseReturnsHalfOpenPermit() throws Exception {
+    CircuitBreaker breaker = breaker();
+    breaker.setHalfOpenCalls(1);
+    for(int i = 0; i < 4; i++) {
+      call(breaker, true, FAST);
+    }
+    Thread.sleep(150);
+    breaker.acquirePermission();
+    assertRefused(breaker, State.HALF_OPEN);
+    breaker.release();
+    call(breaker, false, FAST);
+    assertEquals(State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  public void bulkheadLimitsConcurrentCalls() throws Exception {
+    CircuitBreaker breaker = breaker();
+    breaker.setMaxConcurrentCalls(2);
+    breaker.acquirePermission();
+    breaker.acquirePermission();
+    assertRefused(breaker, State.CLOSED);
+    assertEquals(2, breaker.getActiveCalls());
+    breaker.onResult(false, FAST);
+    breaker.acquirePermission();
+    breaker.release();
+    breaker.release();
+    assertEquals(0, breaker.getActiveCalls());
+  }
+}
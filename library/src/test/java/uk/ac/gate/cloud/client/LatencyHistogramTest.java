@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void everyBucketIsReachable() {
+    for(int i = 0; i < LatencyHistogram.BUCKETS - 1; i++) {
+      assertEquals("bucket " + i, i,
+              LatencyHistogram.bucket(LatencyHistogram.value(i)));
+    }
+  }
+
+  @Test
+  public void bucketValueIsCloseToRecordedValue() {
+    for(long micros = 1; micros < (1L << 39); micros = micros * 3 / 2 + 1) {
+      long value = LatencyHistogram.value(LatencyHistogram.bucket(micros));
+      assertTrue("value " + micros + " became " + value,
+              Math.abs(value - micros) <= micros * 0.07);
+    }
+  }
+
+  @Test
+  public void largeValuesGoInLastBucket() {
+    assertEquals(LatencyHistogram.BUCKETS - 2,
+            LatencyHistogram.bucket((1L << 40) - 1));
+    assertEquals(LatencyHistogram.BUCKETS - 1,
+            LatencyHistogram.bucket(1L << 40));
+    assertEquals(LatencyHistogram.BUCKETS - 1,
+            LatencyHistogram.bucket(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void percentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getPercentileNanos(0.5));
+    for(int i = 1; i <= 100; i++) {
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+    }
+    assertEquals(100, histogram.getCount());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(100), histogram.getMaxNanos());
+    long median = histogram.getPercentileNanos(0.5);
+    assertTrue(Math.abs(median - TimeUnit.MILLISECONDS.toNanos(50))
+            <= TimeUnit.MILLISECONDS.toNanos(4));
+    assertEquals(histogram.getMaxNanos(), histogram.getPercentileNanos(1.0));
+  }
+}
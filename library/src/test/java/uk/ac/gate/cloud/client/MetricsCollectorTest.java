@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class MetricsCollectorTest {
+
+  @Test
+  public void endpointNormalisation() {
+    assertEquals("https://cloud-api.gate.ac.uk/process/annie",
+            MetricsCollector.endpoint(
+                    "https://cloud-api.gate.ac.uk/process/annie?x=1"));
+    assertEquals("https://cloud-api.gate.ac.uk/jobs/{id}/items/{id}",
+            MetricsCollector.endpoint(
+                    "https://cloud-api.gate.ac.uk/jobs/123/items/45?full=true"));
+    assertEquals("https://cloud-api.gate.ac.uk/jobs/{id}/",
+            MetricsCollector.endpoint("https://cloud-api.gate.ac.uk/jobs/123/"));
+    assertEquals("https://cloud-api.gate.ac.uk/jobs/12a",
+            MetricsCollector.endpoint("https://cloud-api.gate.ac.uk/jobs/12a"));
+    assertEquals("http://localhost:8080",
+            MetricsCollector.endpoint("http://localhost:8080"));
+  }
+}
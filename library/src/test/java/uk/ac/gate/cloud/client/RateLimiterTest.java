@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class RateLimiterTest {
+
+  /**
+   * Build response headers from alternating names and values.
+   */
+  private static Map<String, List<String>> headers(String... namesAndValues) {
+    Map<String, List<String>> headers = new HashMap<>();
+    for(int i = 0; i < namesAndValues.length; i += 2) {
+      headers.put(namesAndValues[i],
+              Collections.singletonList(namesAndValues[i + 1]));
+    }
+    return headers;
+  }
+
+  /**
+   * Headers for a window with the given number of calls left, ending
+   * the given number of milliseconds from now.
+   */
+  private static Map<String, List<String>> window(long calls, long resetMillis) {
+    return headers("X-GATE-Rate-Limit-Calls", String.valueOf(calls),
+            "X-GATE-Rate-Limit-Reset",
+            String.valueOf(System.currentTimeMillis() + resetMillis));
+  }
+
+  @Test
+  public void unlimitedUntilFirstResponse() {
+    RateLimiter limiter = new RateLimiter();
+    for(int i = 0; i < 1000; i++) {
+      assertTrue(limiter.tryAcquire());
+    }
+    assertEquals(Double.POSITIVE_INFINITY, limiter.getRate(), 0.0);
+    assertEquals(-1, limiter.getRemainingCalls());
+  }
+
+  @Test
+  public void spreadsRemainingCallsOverWindow() {
+    RateLimiter limiter = new RateLimiter();
+    limiter.update(headers("X-GATE-Rate-Limit-Calls", "10",
+            "X-GATE-Rate-Limit-Reset", "20", "X-GATE-Remaining-Quota", "500"));
+    assertEquals(0.5, limiter.getRate(), 0.01);
+    assertEquals(10, limiter.getRemainingCalls());
+    assertEquals(500, limiter.getRemainingQuota());
+    assertTrue(limiter.tryAcquire());
+    long wait = limiter.tryReserve();
+    assertTrue("wait was " + wait, wait > TimeUnit.SECONDS.toNanos(1)
+            && wait <= TimeUnit.SECONDS.toNanos(2));
+  }
+
+  @Test
+  public void exhaustedWindowBlocksUntilReset() throws Exception {
+    RateLimiter limiter = new RateLimiter();
+    limiter.update(window(0, 300));
+    assertFalse(limiter.tryAcquire());
+    long wait = limiter.tryReserve();
+    assertTrue("wait was " + wait, wait > TimeUnit.MILLISECONDS.toNanos(100)
+            && wait <= TimeUnit.MILLISECONDS.toNanos(300));
+    long start = System.nanoTime();
+    limiter.acquire();
+    long waited = System.nanoTime() - start;
+    assertTrue("waited " + waited, waited >= TimeUnit.MILLISECONDS
+            .toNanos(100));
+  }
+
+  @Test
+  public void newWindowUnblocksExhaustedOne() {
+    RateLimiter limiter = new RateLimiter();
+    limiter.update(window(0, 60000));
+    assertFalse(limiter.tryAcquire());
+    // the server has moved on to a fresh window
+    limiter.update(window(100, 120000));
+    assertTrue(limiter.tryAcquire());
+    assertEquals(100, limiter.getRemainingCalls());
+  }
+
+  @Test
+  public void staleResponseForSameWindowIsIgnored() {
+    RateLimiter limiter = new RateLimiter();
+    limiter.update(window(5, 60000));
+    assertEquals(5, limiter.getRemainingCalls());
+    // an older response for the same window, overtaken by the newer one
+    limiter.update(window(8, 60000));
+    assertEquals(5, limiter.getRemainingCalls());
+    limiter.update(window(0, 60000));
+    limiter.update(window(3, 60000));
+    assertEquals(0, limiter.getRemainingCalls());
+    assertFalse(limiter.tryAcquire());
+  }
+
+  @Test
+  public void burstAllowsBackToBackCalls() {
+    RateLimiter limiter = new RateLimiter(1, 3);
+    long start = System.nanoTime();
+    int allowed = 0;
+    while(limiter.tryAcquire()) {
+      allowed++;
+    }
+    // the first call is free, and idle time since construction is
+    // negligible compared to the one second interval
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    assertEquals(3, allowed);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsZeroBurst() {
+    new RateLimiter(1, 0);
+  }
+}
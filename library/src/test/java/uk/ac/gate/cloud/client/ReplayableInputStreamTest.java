@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ReplayableInputStreamTest {
+
+  private static byte[] data(int length) {
+    byte[] data = new byte[length];
+    new Random(42).nextBytes(data);
+    return data;
+  }
+
+  /**
+   * Read up to <code>limit</code> bytes from the stream in chunks of
+   * the given size.
+   */
+  private static byte[] read(InputStream in, int chunk, int limit)
+          throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[chunk];
+    int n;
+    while(out.size() < limit
+            && (n = in.read(buf, 0, Math.min(chunk, limit - out.size()))) >= 0) {
+      out.write(buf, 0, n);
+    }
+    return out.toByteArray();
+  }
+
+  @Test
+  public void replaysFromMemory() throws IOException {
+    byte[] data = data(5000);
+    try(ReplayableInputStream in =
+            new ReplayableInputStream(new ByteArrayInputStream(data), 100000)) {
+      assertArrayEquals(data, read(in, 700, Integer.MAX_VALUE));
+      in.rewind();
+      assertArrayEquals(data, read(in, 333, Integer.MAX_VALUE));
+      assertEquals(-1, in.read());
+    }
+  }
+
+  @Test
+  public void replaysAfterSpillingToDisk() throws IOException {
+    byte[] data = data(100000);
+    try(ReplayableInputStream in =
+            new ReplayableInputStream(new ByteArrayInputStream(data), 10000)) {
+      assertArrayEquals(data, read(in, 4096, Integer.MAX_VALUE));
+      in.rewind();
+      assertArrayEquals(data, read(in, 1000, Integer.MAX_VALUE));
+      in.rewind();
+      assertArrayEquals(data, read(in, 65536, Integer.MAX_VALUE));
+    }
+  }
+
+  @Test
+  public void rewindAfterPartialReadContinuesFromSource() throws IOException {
+    byte[] data = data(50000);
+    try(ReplayableInputStream in =
+            new ReplayableInputStream(new ByteArrayInputStream(data), 8000)) {
+      // an attempt that fails part way through, before and after the
+      // data has spilled
+      read(in, 1024, 3000);
+      in.rewind();
+      read(in, 1024, 20000);
+      in.rewind();
+      assertArrayEquals(data, read(in, 3000, Integer.MAX_VALUE));
+    }
+  }
+
+  @Test
+  public void singleByteReads() throws IOException {
+    byte[] data = data(300);
+    try(ReplayableInputStream in =
+            new ReplayableInputStream(new ByteArrayInputStream(data), 100)) {
+      for(int i = 0; i < 150; i++) {
+        assertEquals(data[i] & 0xff, in.read());
+      }
+      in.rewind();
+      assertArrayEquals(data, read(in, 1, Integer.MAX_VALUE));
+    }
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.online;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.gate.cloud.client.RestClientException;
+
+public class BatchProcessorTest {
+
+  private EchoServer server;
+
+  private BatchProcessor<TextDocument> processor;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new EchoServer();
+    processor =
+            new BatchProcessor<>(server.endpoint(), "text/plain",
+                    ResponseType.JSON);
+  }
+
+  @After
+  public void tearDown() {
+    server.close();
+  }
+
+  private static List<TextDocument> documents(String... texts) {
+    List<TextDocument> docs = new ArrayList<>();
+    for(String text : texts) {
+      docs.add(new TextDocument(text));
+    }
+    return docs;
+  }
+
+  private static List<TextDocument> numbered(String prefix, int count) {
+    List<TextDocument> docs = new ArrayList<>();
+    for(int i = 0; i < count; i++) {
+      docs.add(new TextDocument(prefix + i));
+    }
+    return docs;
+  }
+
+  /**
+   * Sink that records what it receives, and checks that it is never
+   * called from two threads at once.
+   */
+  private static class RecordingSink
+                                    implements
+                                    BatchProcessor.ResultSink<TextDocument> {
+    final List<String> results = Collections.synchronizedList(new ArrayList<>());
+
+    final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+    final AtomicInteger inSink = new AtomicInteger();
+
+    final AtomicBoolean overlapped = new AtomicBoolean();
+
+    @Override
+    public void result(TextDocument document, InputStream response)
+            throws IOException {
+      enter();
+      try {
+        results.add(IOUtils.toString(response, StandardCharsets.UTF_8));
+      } finally {
+        inSink.decrementAndGet();
+      }
+    }
+
+    @Override
+    public void failure(TextDocument document, Exception error) {
+      enter();
+      try {
+        failures.add(document.text);
+      } finally {
+        inSink.decrementAndGet();
+      }
+    }
+
+    private void enter() {
+      if(inSink.incrementAndGet() > 1) {
+        overlapped.set(true);
+      }
+    }
+  }
+
+  @Test
+  public void orderedDeliveryWithSlowHead() throws Exception {
+    List<TextDocument> docs = numbered("doc-", 20);
+    docs.set(0, new TextDocument("slow-0"));
+    processor.setOrdered(true);
+    processor.setParallelism(4);
+    processor.setMaxInFlightRequests(8);
+    AtomicInteger taken = new AtomicInteger();
+    AtomicInteger maxAhead = new AtomicInteger();
+    Iterator<TextDocument> source = docs.iterator();
+    Iterator<TextDocument> counting = new Iterator<TextDocument>() {
+      @Override
+      public boolean hasNext() {
+        return source.hasNext();
+      }
+
+      @Override
+      public TextDocument next() {
+        taken.incrementAndGet();
+        return source.next();
+      }
+    };
+    RecordingSink sink = new RecordingSink() {
+      @Override
+      public void result(TextDocument document, InputStream response)
+              throws IOException {
+        maxAhead.accumulateAndGet(taken.get() - results.size(), Math::max);
+        super.result(document, response);
+      }
+    };
+
+    BatchProcessor.Summary summary = processor.process(counting, sink);
+
+    assertEquals(20, summary.getSucceeded());
+    assertEquals(0, summary.getFailed());
+    List<String> expected = new ArrayList<>();
+    for(TextDocument doc : docs) {
+      expected.add(doc.text);
+    }
+    assertEquals(expected, sink.results);
+    assertFalse("sink was called concurrently", sink.overlapped.get());
+    assertTrue(server.getMaxActive() <= 4);
+    // while the head is slow the documents behind it wait in the reorder
+    // buffer, and no more than the in-flight limit are taken (plus one
+    // that may be waiting for room)
+    assertTrue("ran " + maxAhead.get() + " ahead", maxAhead.get() <= 9);
+  }
+
+  @Test
+  public void failuresAreReportedAndBatchContinues() throws Exception {
+    List<TextDocument> docs = numbered("doc-", 10);
+    docs.set(3, new TextDocument("fail-3"));
+    List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+    RecordingSink sink = new RecordingSink() {
+      @Override
+      public void failure(TextDocument document, Exception error) {
+        errors.add(error);
+        super.failure(document, error);
+      }
+    };
+
+    BatchProcessor.Summary summary = processor.process(docs.stream(), sink);
+
+    assertEquals(9, summary.getSucceeded());
+    assertEquals(1, summary.getFailed());
+    assertEquals(Collections.singletonList("fail-3"), sink.failures);
+    assertTrue(errors.get(0) instanceof RestClientException);
+    assertEquals(9, sink.results.size());
+  }
+
+  @Test
+  public void parallelismLimitsConcurrentCalls() throws Exception {
+    processor.setParallelism(3);
+    RecordingSink sink = new RecordingSink();
+
+    BatchProcessor.Summary summary =
+            processor.process(numbered("slow-", 9).iterator(), sink);
+
+    assertEquals(9, summary.getSucceeded());
+    assertEquals(3, server.getMaxActive());
+  }
+
+  @Test
+  public void sourceFailureIsRethrownAfterInFlightDocuments() throws Exception {
+    List<TextDocument> docs = documents("slow-0", "doc-1", "doc-2");
+    Iterator<TextDocument> source = docs.iterator();
+    Iterator<TextDocument> failing = new Iterator<TextDocument>() {
+      @Override
+      public boolean hasNext() {
+        return true;
+      }
+
+      @Override
+      public TextDocument next() {
+        if(source.hasNext()) {
+          return source.next();
+        }
+        throw new IllegalStateException("source failed");
+      }
+    };
+    RecordingSink sink = new RecordingSink();
+    try {
+      processor.process(failing, sink);
+      fail("source exception should be rethrown");
+    } catch(IllegalStateException e) {
+      assertEquals("source failed", e.getMessage());
+    }
+    assertEquals(3, sink.results.size());
+  }
+}
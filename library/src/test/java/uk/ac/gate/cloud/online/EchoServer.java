@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.online;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import uk.ac.gate.cloud.client.RestClient;
+
+/**
+ * Embedded HTTP server for the online API tests, standing in for a
+ * GATE Cloud endpoint. It echoes each request body back as the
+ * response. A document whose text starts with <code>slow</code> is
+ * answered after a delay, and one that starts with <code>fail</code>
+ * gets a 400 error.
+ */
+class EchoServer implements AutoCloseable {
+
+  static final long SLOW_MILLIS = 300;
+
+  private final HttpServer server;
+
+  private final ExecutorService threads = Executors.newCachedThreadPool();
+
+  private final AtomicInteger active = new AtomicInteger();
+
+  private final AtomicInteger maxActive = new AtomicInteger();
+
+  EchoServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(threads);
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    int now = active.incrementAndGet();
+    maxActive.accumulateAndGet(now, Math::max);
+    try {
+      byte[] body = IOUtils.toByteArray(exchange.getRequestBody());
+      String text = new String(body, StandardCharsets.UTF_8);
+      if(text.startsWith("slow")) {
+        Thread.sleep(SLOW_MILLIS);
+      }
+      int status = 200;
+      if(text.startsWith("fail")) {
+        status = 400;
+        body = "{\"message\":\"bad document\"}".getBytes(StandardCharsets.UTF_8);
+      }
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status, body.length);
+      try(OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      active.decrementAndGet();
+      exchange.close();
+    }
+  }
+
+  /**
+   * An endpoint on this server, called through a new client.
+   */
+  ApiEndpoint endpoint() throws IOException {
+    URL base =
+            new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    RestClient client = new RestClient(base, "key", "password");
+    return new OnlineApiManager(client).getEndpoint(base + "process");
+  }
+
+  /**
+   * The largest number of requests that were in progress at once.
+   */
+  int getMaxActive() {
+    return maxActive.get();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    threads.shutdownNow();
+  }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2026 The University of Sheffield
+ *
+ * This file is part of the GATE Cloud REST client library, and is
+ * licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.gate.cloud.online;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import uk.ac.gate.cloud.client.RestClientException;
+
+public class ReactiveDocumentProcessorTest {
+
+  private EchoServer server;
+
+  private ReactiveDocumentProcessor<TextDocument> processor;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new EchoServer();
+    processor =
+            new ReactiveDocumentProcessor<>(server.endpoint(), "text/plain",
+                    ResponseType.JSON);
+  }
+
+  @After
+  public void tearDown() {
+    server.close();
+  }
+
+  private static List<TextDocument> numbered(String prefix, int count) {
+    List<TextDocument> docs = new ArrayList<>();
+    for(int i = 0; i < count; i++) {
+      docs.add(new TextDocument(prefix + i));
+    }
+    return docs;
+  }
+
+  /**
+   * Publisher that emits the documents of a list as they are requested,
+   * optionally followed by an error, and records how many were asked
+   * for.
+   */
+  private static class ListPublisher implements Publisher<TextDocument> {
+    final Iterator<TextDocument> documents;
+
+    final Throwable error;
+
+    final AtomicLong requested = new AtomicLong();
+
+    volatile boolean cancelled;
+
+    ListPublisher(List<TextDocument> documents, Throwable error) {
+      this.documents = documents.iterator();
+      this.error = error;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super TextDocument> s) {
+      s.onSubscribe(new Subscription() {
+        private boolean done;
+
+        @Override
+        public synchronized void request(long n) {
+          requested.addAndGet(n);
+          for(long i = 0; i < n && documents.hasNext() && !cancelled; i++) {
+            s.onNext(documents.next());
+          }
+          if(!documents.hasNext() && !done && !cancelled) {
+            done = true;
+            if(error == null) {
+              s.onComplete();
+            } else {
+              s.onError(error);
+            }
+          }
+        }
+
+        @Override
+        public void cancel() {
+          cancelled = true;
+        }
+      });
+    }
+  }
+
+  /**
+   * Subscriber that records what it receives and only requests when
+   * told to.
+   */
+  private static class RecordingSubscriber
+                                          implements
+                                          Subscriber<ProcessedDocument<TextDocument>> {
+    final List<ProcessedDocument<TextDocument>> received =
+            new CopyOnWriteArrayList<>();
+
+    final CountDownLatch terminated = new CountDownLatch(1);
+
+    volatile Subscription subscription;
+
+    volatile Throwable error;
+
+    volatile boolean completed;
+
+    @Override
+    public void onSubscribe(Subscription s) {
+      subscription = s;
+    }
+
+    @Override
+    public void onNext(ProcessedDocument<TextDocument> result) {
+      received.add(result);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      error = t;
+      terminated.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+      terminated.countDown();
+    }
+
+    void awaitReceived(int count) throws InterruptedException {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while(received.size() < count && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(count, received.size());
+    }
+
+    void awaitTerminated() throws InterruptedException {
+      assertTrue("stream did not terminate",
+              terminated.await(10, TimeUnit.SECONDS));
+    }
+
+    List<String> texts() {
+      List<String> texts = new ArrayList<>();
+      for(ProcessedDocument<TextDocument> result : received) {
+        texts.add(result.getDocument().text);
+      }
+      return texts;
+    }
+  }
+
+  private RecordingSubscriber connect(ListPublisher publisher) {
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    processor.subscribe(subscriber);
+    publisher.subscribe(processor);
+    return subscriber;
+  }
+
+  @Test
+  public void requestsNoMoreThanDownstreamDemand() throws Exception {
+    ListPublisher publisher = new ListPublisher(numbered("doc-", 10), null);
+    RecordingSubscriber subscriber = connect(publisher);
+    assertEquals(0, publisher.requested.get());
+
+    subscriber.subscription.request(3);
+    subscriber.awaitReceived(3);
+    // give the processor a chance to over-request
+    Thread.sleep(200);
+    assertEquals(3, publisher.requested.get());
+    assertEquals(3, subscriber.received.size());
+
+    subscriber.subscription.request(2);
+    subscriber.awaitReceived(5);
+    Thread.sleep(200);
+    assertEquals(5, publisher.requested.get());
+    assertFalse(subscriber.completed);
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+    subscriber.awaitTerminated();
+    assertTrue(subscriber.completed);
+    assertEquals(10, subscriber.received.size());
+    for(ProcessedDocument<TextDocument> result : subscriber.received) {
+      assertTrue(result.isSuccess());
+      assertEquals(result.getDocument().text, new String(result.getResponse(),
+              StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  public void unboundedDemandIsLimitedByMaxInFlight() throws Exception {
+    processor.setMaxInFlightRequests(2);
+    ListPublisher publisher = new ListPublisher(numbered("slow-", 6), null);
+    RecordingSubscriber subscriber = connect(publisher);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    subscriber.awaitTerminated();
+    assertTrue(subscriber.completed);
+    assertEquals(6, subscriber.received.size());
+    assertEquals(2, server.getMaxActive());
+  }
+
+  @Test
+  public void nonPositiveRequestSignalsError() throws Exception {
+    ListPublisher publisher = new ListPublisher(numbered("doc-", 10), null);
+    RecordingSubscriber subscriber = connect(publisher);
+    subscriber.subscription.request(0);
+    subscriber.awaitTerminated();
+    // rule 3.9
+    assertTrue(subscriber.error instanceof IllegalArgumentException);
+    assertTrue(publisher.cancelled);
+    assertFalse(subscriber.completed);
+  }
+
+  @Test
+  public void orderedModePublishesInInputOrder() throws Exception {
+    processor.setOrdered(true);
+    List<TextDocument> docs = numbered("doc-", 6);
+    docs.set(0, new TextDocument("slow-0"));
+    ListPublisher publisher = new ListPublisher(docs, null);
+    RecordingSubscriber subscriber = connect(publisher);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    subscriber.awaitTerminated();
+    assertEquals(Arrays.asList("slow-0", "doc-1", "doc-2", "doc-3", "doc-4",
+            "doc-5"), subscriber.texts());
+  }
+
+  @Test
+  public void failedDocumentsDoNotEndTheStream() throws Exception {
+    processor.setOrdered(true);
+    ListPublisher publisher =
+            new ListPublisher(Arrays.asList(new TextDocument("doc-0"),
+                    new TextDocument("fail-1"), new TextDocument("doc-2")),
+                    null);
+    RecordingSubscriber subscriber = connect(publisher);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    subscriber.awaitTerminated();
+    assertTrue(subscriber.completed);
+    assertEquals(3, subscriber.received.size());
+    ProcessedDocument<TextDocument> failed = subscriber.received.get(1);
+    assertFalse(failed.isSuccess());
+    assertNull(failed.getResponse());
+    assertTrue(failed.getError() instanceof RestClientException);
+  }
+
+  @Test
+  public void upstreamErrorFollowsDocumentsInFlight() throws Exception {
+    IllegalStateException error = new IllegalStateException("upstream failed");
+    ListPublisher publisher = new ListPublisher(numbered("slow-", 2), error);
+    RecordingSubscriber subscriber = connect(publisher);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    subscriber.awaitTerminated();
+    assertEquals(error, subscriber.error);
+    assertEquals(2, subscriber.received.size());
+  }
+}